@@ -0,0 +1,50 @@
+package groupXX.bot;
+
+/**
+ * Activation functions of the network layers, with the codes that identify them in network files.
+ */
+public enum Activation {
+    SIGMOID(0),
+    /** max(0, x) */
+    RELU(1),
+    /** min(max(0, x), 1), which keeps the values in the range of the int8 inference */
+    CLIPPED_RELU(2),
+    LINEAR(3);
+
+    final int code;
+
+    Activation(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the activation with the given file code, or null if there is none.
+     */
+    static Activation ofCode(int code) {
+        for (Activation activation : values()) {
+            if (activation.code == code) {
+                return activation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether all values of this activation lie in [0, 1].
+     */
+    boolean bounded() {
+        return this == SIGMOID || this == CLIPPED_RELU;
+    }
+
+    /**
+     * Applies this activation to one value.
+     */
+    double apply(double x) {
+        return switch (this) {
+            case SIGMOID -> 1.0 / (1.0 + Math.exp(-x));
+            case RELU -> Math.max(0.0, x);
+            case CLIPPED_RELU -> Math.min(Math.max(0.0, x), 1.0);
+            case LINEAR -> x;
+        };
+    }
+}
@@ -5,6 +5,7 @@ import groupXX.Game;
 import groupXX.Player;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -13,15 +14,100 @@ import java.util.Random;
  * algorithm for decision-making during the game.
  */
 public class AlphaBetaBot implements Bot {
+    private static final long PLACE_TIME_MS = 2000;
+    private static final int MOVE_DEPTH = 10;       // depth of every moving phase search
+    private static final int MAX_MOVE_DEPTH = 16;   // deepest search that banked time may buy
+
     private int move_to = -1;
 
+    // Search time saved by opening book hits, spent on the later off-book placements and the moving phase
+    private long bankedTimeMs = 0;
+    // Deadline of a moving phase search deepened with banked time (0 = none), and whether it ran out
+    private long searchDeadline = 0;
+    private boolean searchAborted = false;
+
+    // Selective search in the moving phase
+    private static final int QUIET_MOVE = 0;
+    private static final int BLOCKING_MOVE = 1;
+    private static final int MILL_MOVE = 2;
+    private static final int LMR_FULL_DEPTH_MOVES = 3; // moves searched at full depth before reducing
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_REDUCTION = 1;
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int NULL_MOVE_MIN_MOBILITY = 3; // fewer moves than this counts as blocked
+    private static final int[] FUTILITY_MARGINS = {0, 100, 300}; // indexed by remaining depth
+    // The same margins in evaluator points: the best quiet move gains about 4.5 times as many points with the
+    // bundled network as with the line heuristic (95th percentile 489 against 112 over random games)
+    private static final int[] EVALUATOR_FUTILITY_MARGINS = {0, 480, 1440};
+
+    // The selective searches lost 30 game matches at 100 ms per moving phase decision against the full width
+    // search: late move reductions with null moves 11.5 to 18.5 (Benchmark selfplay) and futility pruning 10.5
+    // to 19.5 (Benchmark selfplay-futility), so they are all off by default
+    public boolean useLateMoveReductions = false;
+    public boolean useNullMovePruning = false;
+    public boolean useFutilityPruning = false;
+
+    // Thinking time per moving phase decision, searched with iterative deepening; 0 searches every move to
+    // MOVE_DEPTH (and deeper with banked time)
+    public long moveTimeMs = 0;
+
+    // Counters of the last search; the selective search ones only count in the moving phase
+    public long searchedNodes = 0;
+    public long lateMoveReductions = 0;
+    public long lateMoveResearches = 0;
+    public long nullMoveCutoffs = 0;
+    public long futilityPrunes = 0;
+
+    // Scores of boardScore by position, kept between moves; null scores every leaf again
+    public EvalCache evalCache = new EvalCache();
+
+    // Scores the leaves of all searches instead of the built-in heuristics; null keeps the heuristics.
+    // A score of 1 counts EVALUATOR_POINTS, like a closed mill line.
+    public Evaluator evaluator = null;
+    // Evaluate the leaves below a depth 1 node as one batch: cheaper per leaf, but without the cutoffs among them
+    public boolean batchLeaves = false;
+    private static final double EVALUATOR_POINTS = 1000;
+
+    // Counters of the evaluator in the last search
+    public long evaluations = 0;
+    public long evaluationNanos = 0;
+
+    // Scratch states for the evaluator, and the leaves collected for one batch
+    private MorrisState leafState;
+    private MorrisState[] batchStates = new MorrisState[0];
+    private double[] batchScores = new double[0];
+    private int batchCount = 0;
+    private boolean collecting = false;
+
+    private Player searchPlayer;
+    private int rootDepth;
+
+    // Forced mill search, kept between moves so its cache stays warm
+    private final ThreatSpaceSearch threatSpaceSearch = new ThreatSpaceSearch();
+
+    // Solver for decided looking positions and the deletion belonging to a proven move
+    private final ProofNumberSearch proofNumberSearch = new ProofNumberSearch();
+    private int plannedDelete = -1;
+
 
     @Override
     public int placePiece(Game game) {
         GameState state = new GameState(game);
 
+        long startTime = System.currentTimeMillis();
+        int bookMove = probeOpeningBook(state);
+        if (bookMove != -1) {
+            bankedTimeMs += PLACE_TIME_MS - (System.currentTimeMillis() - startTime);
+            return bookMove;
+        }
+
+        // Off book: spend the regular budget plus at most half a budget of banked time, so some of it is left
+        // for the moving phase
+        long extraTime = Math.min(bankedTimeMs, PLACE_TIME_MS / 2);
+        bankedTimeMs -= extraTime;
+
         int maxDepth = 8;
-        long endTime = System.currentTimeMillis() + 2000;
+        long endTime = startTime + PLACE_TIME_MS + extraTime;
 
         int bestMove = -1;
         int bestScore = Integer.MIN_VALUE;
@@ -46,24 +132,30 @@ public class AlphaBetaBot implements Bot {
 
     @Override
     public int selectPiece(Game game) {
-        // 1) check canThree
-        int[] result = canThree(new GameState(game), 6);
-        // if canThree found a move
-        if (result[0] != -1) {
-            move_to = result[2];
-            return result[1]; // 'from'
+        plannedDelete = -1;
+
+        // 1) play a forced mill if the threat space search proves one
+        int[] threat = threatSpaceSearch.search(new GameState(game));
+        if (threat != null) {
+            move_to = threat[1];
+            return threat[0];
         }
 
-        // 2) check crackThree
-        result = crackThree(new GameState(game));
-        if (result[0] != -1) {
-            move_to = result[2];
-            return result[1];
+        // 2) in decided looking positions try to solve the game and play a proven win right away
+        GameState state = new GameState(game);
+        if (ProofNumberSearch.isDecisive(state)) {
+            int[] proof = proofNumberSearch.solve(state, game.moveWithoutCapture);
+            if (proof[0] == ProofNumberSearch.WIN) {
+                move_to = proof[2];
+                plannedDelete = proof[3];
+                return proof[1];
+            }
         }
 
         // 3) do alpha-beta for normal move
-        GameState state = new GameState(game);
-        int[] best = movePiece_limited_alphabeta_search(state, 10);
+        int[] best = moveTimeMs > 0
+                ? deepen(state, movePiece_limited_alphabeta_search(state, 1), 2, moveTimeMs)
+                : deepenWithBankedTime(state, movePiece_limited_alphabeta_search(state, MOVE_DEPTH));
         // best => [score, fromPos, toPos]
         int fromPos = best[1];
         move_to = best[2];
@@ -100,6 +192,13 @@ public class AlphaBetaBot implements Bot {
 
     @Override
     public int determinePieceToDelete(Game game) {
+        // 0) A proven win comes with its deletion
+        int planned = plannedDelete;
+        plannedDelete = -1;
+        if (planned != -1 && isValidDeleteChoice(game, planned)) {
+            return planned;
+        }
+
         // 1) Use your existing alpha-beta search to get a candidate
         GameState state = new GameState(game);
         int[] result = deletePiece_limited_alphabeta_search(state, 6);
@@ -117,6 +216,72 @@ public class AlphaBetaBot implements Bot {
         return candidate;
     }
 
+    /**
+     * Searches the moving phase position deeper than MOVE_DEPTH while banked time is left, at most a placement
+     * budget per move. A search that runs out of time is abandoned and the deepest completed one is played.
+     *
+     * @param best the result of the regular search
+     * @return the result of the deepest completed search
+     */
+    private int[] deepenWithBankedTime(GameState state, int[] best) {
+        long budget = Math.min(bankedTimeMs, PLACE_TIME_MS);
+        if (budget <= 0) {
+            return best;
+        }
+        long startTime = System.currentTimeMillis();
+        best = deepen(state, best, MOVE_DEPTH + 1, budget);
+        bankedTimeMs = Math.max(0, bankedTimeMs - (System.currentTimeMillis() - startTime));
+        return best;
+    }
+
+    /**
+     * Searches the moving phase position one ply deeper at a time, from the given depth up to MAX_MOVE_DEPTH,
+     * until the time budget runs out.
+     *
+     * @param best the result of the search one ply shallower than fromDepth
+     * @return the result of the deepest completed search
+     */
+    private int[] deepen(GameState state, int[] best, int fromDepth, long budgetMs) {
+        searchDeadline = System.currentTimeMillis() + budgetMs;
+        for (int depth = fromDepth; depth <= MAX_MOVE_DEPTH; depth++) {
+            int[] result = movePiece_limited_alphabeta_search(state, depth);
+            if (searchAborted) {
+                break;
+            }
+            if (result[1] >= 0) {
+                best = result;
+            }
+        }
+        searchDeadline = 0;
+        searchAborted = false;
+        return best;
+    }
+
+    // Checks the deadline every 1024 nodes; once it has passed every node of the search returns at once
+    private boolean outOfTime() {
+        if (searchDeadline != 0 && (searchedNodes & 1023) == 0 && System.currentTimeMillis() >= searchDeadline) {
+            searchAborted = true;
+        }
+        return searchAborted;
+    }
+
+    /**
+     * Looks the position up in the opening book of the current board version.
+     *
+     * @return the book move, or -1 if there is no book or the position is not in it
+     */
+    private int probeOpeningBook(GameState state) {
+        OpeningBook book = OpeningBook.get(state.gameBoard.isIn12MenVer());
+        if (book == null) {
+            return -1;
+        }
+        int move = book.probe(state);
+        if (move < 0 || state.boardPositions[move] != null) {
+            return -1;
+        }
+        return move;
+    }
+
     private boolean isValidDeleteChoice(Game game, int candidate) {
         if (candidate < 0 || candidate >= 24) return false;
         Player opp = game.getCurrentPlayer().opponent();
@@ -146,7 +311,8 @@ public class AlphaBetaBot implements Bot {
     }
 
 
-    private int[] placePiece_limited_alphabeta_search(GameState state, int depthLimit) {
+    int[] placePiece_limited_alphabeta_search(GameState state, int depthLimit) {
+        startSearch(state);
         return placePiece_maxValue(state, Integer.MIN_VALUE, Integer.MAX_VALUE, depthLimit);
     }
 
@@ -163,6 +329,7 @@ public class AlphaBetaBot implements Bot {
         }
 
 
+        searchedNodes++;
         int v = Integer.MIN_VALUE;
         int bestMove = -1;
 
@@ -174,10 +341,22 @@ public class AlphaBetaBot implements Bot {
         }
 
         if (depthLimit == 0) {
-            v = boardScore(state);
+            v = placeLeafScore(state);
             return new int[]{v, bestMove};
         }
 
+        if (depthLimit == 1 && batching()) {
+            List<GameState> children = new ArrayList<>(actions.size());
+            for (int pos : actions) {
+                GameState nextState = state.newState(pos, p);
+                nextState.currentPlayer = p.opponent();
+                children.add(nextState);
+            }
+            int[] best = scoreChildren(state, children,
+                    child -> placePiece_minValue(child, Integer.MIN_VALUE, Integer.MAX_VALUE, 0), true);
+            return new int[]{best[0], best[1] < 0 ? -1 : actions.get(best[1])};
+        }
+
         for (int pos : actions) {
             GameState nextState = state.newState(pos, p);
 
@@ -234,6 +413,7 @@ public class AlphaBetaBot implements Bot {
             }
         }
 
+        searchedNodes++;
         int v = Integer.MAX_VALUE;
         int bestMove = -1;
 
@@ -244,10 +424,22 @@ public class AlphaBetaBot implements Bot {
         }
 
         if (depthLimit == 0) {
-            v = boardScore(state);
+            v = placeLeafScore(state);
             return new int[]{v, bestMove};
         }
 
+        if (depthLimit == 1 && batching()) {
+            List<GameState> children = new ArrayList<>(actions.size());
+            for (int pos : actions) {
+                GameState nextState = state.newState(pos, p);
+                nextState.currentPlayer = p.opponent();
+                children.add(nextState);
+            }
+            int[] best = scoreChildren(state, children,
+                    child -> placePiece_maxValue(child, Integer.MIN_VALUE, Integer.MAX_VALUE, 0), false);
+            return new int[]{best[0], best[1] < 0 ? -1 : actions.get(best[1])};
+        }
+
         for (int pos : actions) {
             GameState nextState = state.newState(pos, p);
             nextState.currentPlayer = (p == Player.RED) ? Player.BLUE : Player.RED;
@@ -295,11 +487,137 @@ public class AlphaBetaBot implements Bot {
     }
 
     /**
-    * Calculates the heuristic board score for the current state.
+    * Calculates the heuristic board score for the current state, or looks it up in the evaluation cache.
     * The score is influenced by factors such as piece count, potential mills, and mobility.
 
     */
     private int boardScore(GameState state) {
+        if (evalCache == null) {
+            return heuristicBoardScore(state);
+        }
+        long key = Zobrist.key(state);
+        double cached = evalCache.probe(key);
+        if (!Double.isNaN(cached)) {
+            return (int) cached;
+        }
+        int score = heuristicBoardScore(state);
+        evalCache.store(key, score);
+        return score;
+    }
+
+    /**
+     * Resets the counters of a search and remembers the player at its root, whose view the evaluator scores
+     * the leaves from.
+     */
+    private void startSearch(GameState root) {
+        searchPlayer = root.currentPlayer;
+        searchedNodes = 0;
+        evaluations = 0;
+        evaluationNanos = 0;
+        boolean in12 = root.gameBoard.isIn12MenVer();
+        if (evaluator != null && (leafState == null || leafState.in12MenVersion != in12)) {
+            leafState = new MorrisState(in12);
+            batchStates = new MorrisState[0];
+            batchScores = new double[0];
+        }
+    }
+
+    private boolean batching() {
+        return evaluator != null && batchLeaves;
+    }
+
+    // Leaf score of the placing and the deleting search
+    private int placeLeafScore(GameState state) {
+        return evaluator == null ? boardScore(state) : evaluatorScore(state);
+    }
+
+    // Futility margin of the moving search, in the points of its leaf score
+    private int futilityMargin(int depthLimit) {
+        return evaluator == null ? FUTILITY_MARGINS[depthLimit] : EVALUATOR_FUTILITY_MARGINS[depthLimit];
+    }
+
+    // Leaf score of the moving search
+    private int moveLeafScore(GameState state) {
+        return evaluator == null ? movePiece_boardScore(state, searchPlayer) : evaluatorScore(state);
+    }
+
+    /**
+     * Scores a leaf with the evaluator from the view of the root player, or only collects it while the children
+     * of a depth 1 node are gathered for a batch.
+     */
+    private int evaluatorScore(GameState state) {
+        if (collecting) {
+            if (batchCount == batchStates.length) {
+                int size = Math.max(32, 2 * batchCount);
+                batchStates = Arrays.copyOf(batchStates, size);
+                for (int i = batchCount; i < size; i++) {
+                    batchStates[i] = new MorrisState(leafState.in12MenVersion);
+                }
+                batchScores = new double[size];
+            }
+            batchStates[batchCount++].copyFrom(state);
+            return 0;
+        }
+        leafState.copyFrom(state);
+        long start = System.nanoTime();
+        double score = evaluator.evaluate(leafState, searchPlayer == Player.BLUE ? 0 : 1);
+        evaluationNanos += System.nanoTime() - start;
+        evaluations++;
+        return evaluatorPoints(score);
+    }
+
+    private static int evaluatorPoints(double score) {
+        return (int) Math.round(Math.max(-1.0, Math.min(1.0, score)) * EVALUATOR_POINTS);
+    }
+
+    // Searches a child of a depth 1 node at depth 0
+    private interface LeafSearch {
+        int[] search(GameState child);
+    }
+
+    /**
+     * Scores all children of a depth 1 node: terminal children keep the score of their search, the other leaves
+     * are scored with a single {@link Evaluator#evaluateBatch} call after {@link Evaluator#beginChildren}. There
+     * are no cutoffs among the children, since every leaf is evaluated anyway.
+     *
+     * @return The best score and the index of the first child with it, or -1 if no child beats the initial value
+     */
+    private int[] scoreChildren(GameState parent, List<GameState> children, LeafSearch leafSearch, boolean max) {
+        int n = children.size();
+        int[] scores = new int[n];
+        int[] batchIndex = new int[n];
+        batchCount = 0;
+        collecting = true;
+        for (int i = 0; i < n; i++) {
+            int before = batchCount;
+            scores[i] = leafSearch.search(children.get(i))[0];
+            batchIndex[i] = batchCount > before ? before : -1;
+        }
+        collecting = false;
+
+        if (batchCount > 0) {
+            leafState.copyFrom(parent);
+            int player = searchPlayer == Player.BLUE ? 0 : 1;
+            long start = System.nanoTime();
+            evaluator.beginChildren(leafState, player);
+            evaluator.evaluateBatch(batchStates, batchCount, player, batchScores);
+            evaluationNanos += System.nanoTime() - start;
+            evaluations += batchCount;
+        }
+
+        int v = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int best = -1;
+        for (int i = 0; i < n; i++) {
+            int score = batchIndex[i] < 0 ? scores[i] : evaluatorPoints(batchScores[batchIndex[i]]);
+            if (max ? score > v : score < v) {
+                v = score;
+                best = i;
+            }
+        }
+        return new int[]{v, best};
+    }
+
+    int heuristicBoardScore(GameState state) {
         double adjust_weight = 2.5;
         Player myPlayer  = state.currentPlayer;
         Player oppPlayer = myPlayer.opponent();
@@ -308,16 +626,20 @@ public class AlphaBetaBot implements Bot {
         int required = state.gameBoard.getRequiredPieces(); // 9 or 12
         int totalMovesSoFar = state.moveCountBlue + state.moveCountRed;
 
-        int basicScore = getHeuristicScore(state, myPlayer)
-                - (int)(adjust_weight * getHeuristicScore(state, oppPlayer));
+        int[][] paths = get(state.gameBoard.isIn12MenVer());
+        int myMask  = Bitboards.mask(state.boardPositions, myPlayer);
+        int oppMask = Bitboards.mask(state.boardPositions, oppPlayer);
+
+        int basicScore = sumLineScores(paths, myMask, oppMask, HEURISTIC_LINE_SCORES)
+                - (int)(adjust_weight * sumLineScores(paths, oppMask, myMask, HEURISTIC_LINE_SCORES));
 
 
-        int myCount  = countPieces(state, myPlayer);
-        int oppCount = countPieces(state, oppPlayer);
+        int myCount  = Integer.bitCount(myMask);
+        int oppCount = Integer.bitCount(oppMask);
         int pieceDiffScore = (myCount - oppCount) * 5;
 
-        int myPotentialMills  = countPotentialMills(state, myPlayer);
-        int oppPotentialMills = countPotentialMills(state, oppPlayer);
+        int myPotentialMills  = sumLineScores(paths, myMask, oppMask, POTENTIAL_MILL_LINES);
+        int oppPotentialMills = sumLineScores(paths, oppMask, myMask, POTENTIAL_MILL_LINES);
         int potentialMillScore = (myPotentialMills - oppPotentialMills) * 3;
 
 
@@ -387,27 +709,6 @@ public class AlphaBetaBot implements Bot {
     }
 
 
-    private int countPotentialMills(GameState state, Player player) {
-        int count = 0;
-        int[][] paths = get(state.gameBoard.isIn12MenVer());
-
-        for (int[] path : paths) {
-            int pCount = 0;
-            int nullCount = 0;
-            for (int pos : path) {
-                if (state.boardPositions[pos] == player) {
-                    pCount++;
-                } else if (state.boardPositions[pos] == null) {
-                    nullCount++;
-                }
-            }
-            if (pCount == 2 && nullCount == 1) {
-                count++;
-            }
-        }
-        return count;
-    }
-
     /**
     * Counts the number of pieces of a specific player on the board.
 
@@ -425,100 +726,194 @@ public class AlphaBetaBot implements Bot {
     /**
     * Calculates a heuristic score for the board for a given player. 
     * This score is based on various factors such as forming mills and blocking the opponent.
-
+    * Every mill line is scored with a single lookup in {@link #HEURISTIC_LINE_SCORES}.
     */
-
     public int getHeuristicScore(GameState state, Player player) {
-        Player opp = player.opponent();
-        int score = 0;
-
+        return sumLineScores(get(state.gameBoard.isIn12MenVer()),
+                Bitboards.mask(state.boardPositions, player),
+                Bitboards.mask(state.boardPositions, player.opponent()),
+                HEURISTIC_LINE_SCORES);
+    }
 
-        int[][] paths = get(state.gameBoard.isIn12MenVer());
+    ///////////////////////////////////////////////////////////////////////////
+    // Table driven line evaluation. A line has 27 possible (own/opp/empty)^3 patterns; the pattern is
+    // read from the bitboards as a 6 bit index (own bits | opponent bits << 3) and scored with one array load.
+
+    private static final int[] HEURISTIC_LINE_SCORES = new int[64];
+    private static final int[] MOVE_LINE_SCORES = new int[64];
+    private static final int[] POTENTIAL_MILL_LINES = new int[64];
+
+    static {
+        Player player = Player.BLUE;
+        Player opp = Player.RED;
+        for (int own = 0; own < 8; own++) {
+            for (int other = 0; other < 8; other++) {
+                if ((own & other) != 0) {
+                    continue;
+                }
+                Player[] line = new Player[3];
+                for (int k = 0; k < 3; k++) {
+                    line[k] = (own >> k & 1) != 0 ? player : (other >> k & 1) != 0 ? opp : null;
+                }
+                int index = own | other << 3;
+                HEURISTIC_LINE_SCORES[index] = heuristicLineScore(line[0], line[1], line[2], player);
+                MOVE_LINE_SCORES[index] = moveLineScore(line[0], line[1], line[2], player);
+                POTENTIAL_MILL_LINES[index] = Integer.bitCount(own) == 2 && other == 0 ? 1 : 0;
+            }
+        }
+    }
 
+    /**
+     * Scores the pieces of a player with the line table of the placing or the moving phase, straight from the
+     * bitboards, e.g. for the priors of MonteCarloBot.
+     */
+    static int lineScore(boolean in12MenVersion, boolean placing, int own, int opp) {
+        return sumLineScores(get(in12MenVersion), own, opp, placing ? HEURISTIC_LINE_SCORES : MOVE_LINE_SCORES);
+    }
 
+    /**
+     * Sums a line score table over all mill lines.
+     *
+     * @param own bitboard of the player the score is computed for
+     * @param opp bitboard of the opponent
+     */
+    private static int sumLineScores(int[][] paths, int own, int opp, int[] table) {
+        int score = 0;
         for (int[] path : paths) {
-            Player pos0 = state.boardPositions[path[0]];
-            Player pos1 = state.boardPositions[path[1]];
-            Player pos2 = state.boardPositions[path[2]];
-
-
-            if (pos0 == player && pos1 == player && pos2 == player) {
-
-                score += 1000;
-                continue;
-
-            }
+            int a = path[0], b = path[1], c = path[2];
+            score += table[(own >> a & 1) | (own >> b & 1) << 1 | (own >> c & 1) << 2
+                    | (opp >> a & 1) << 3 | (opp >> b & 1) << 4 | (opp >> c & 1) << 5];
+        }
+        return score;
+    }
 
-            int myCount = 0;
-            int emptyCount = 0;
-            if (pos0 == player) myCount++;
-            else if (pos0 == null) emptyCount++;
-            if (pos1 == player) myCount++;
-            else if (pos1 == null) emptyCount++;
-            if (pos2 == player) myCount++;
-            else if (pos2 == null) emptyCount++;
+    /**
+     * The placing phase rules for a single line, used to fill {@link #HEURISTIC_LINE_SCORES}.
+     */
+    private static int heuristicLineScore(Player pos0, Player pos1, Player pos2, Player player) {
+        Player opp = player.opponent();
+        int score = 0;
 
-            if (myCount == 2 && emptyCount == 1) {
-                score += 15;
-            }
+        if (pos0 == player && pos1 == player && pos2 == player) {
+            return 1000;
+        }
 
+        int myCount = 0;
+        int emptyCount = 0;
+        if (pos0 == player) myCount++;
+        else if (pos0 == null) emptyCount++;
+        if (pos1 == player) myCount++;
+        else if (pos1 == null) emptyCount++;
+        if (pos2 == player) myCount++;
+        else if (pos2 == null) emptyCount++;
+
+        if (myCount == 2 && emptyCount == 1) {
+            score += 15;
+        }
 
-            int oppCount = 0;
-            int emptyCountOpp = 0;
-            if (pos0 == opp) oppCount++;
-            else if (pos0 == null) emptyCountOpp++;
-            if (pos1 == opp) oppCount++;
-            else if (pos1 == null) emptyCountOpp++;
-            if (pos2 == opp) oppCount++;
-            else if (pos2 == null) emptyCountOpp++;
+        int oppCount = 0;
+        int emptyCountOpp = 0;
+        if (pos0 == opp) oppCount++;
+        else if (pos0 == null) emptyCountOpp++;
+        if (pos1 == opp) oppCount++;
+        else if (pos1 == null) emptyCountOpp++;
+        if (pos2 == opp) oppCount++;
+        else if (pos2 == null) emptyCountOpp++;
+
+        if (oppCount == 2 && emptyCountOpp == 1) {
+            score += 5;
+        }
 
+        // (player,player,opp)
+        if (pos0 == player && pos1 == player && pos2 == opp) {
+            score -= 2;
+        }
+        // (player,opp,player)
+        if (pos0 == player && pos1 == opp && pos2 == player) {
+            score -= 2;
+        }
+        // (opp,player,player)
+        if (pos0 == opp && pos1 == player && pos2 == player) {
+            score -= 2;
+        }
 
-            if (oppCount == 2 && emptyCountOpp == 1) {
+        // (opp,opp,player)
+        if (pos0 == opp && pos1 == opp && pos2 == player) {
+            score += 20;
+        }
+        // (opp,player,opp)
+        if (pos0 == opp && pos1 == player && pos2 == opp) {
+            score += 20;
+        }
+        // (player,opp,opp)
+        if (pos0 == player && pos1 == opp && pos2 == opp) {
+            score += 20;
+        }
 
-                score += 5;
-            }
+        // (opp,opp,null)
+        if (pos0 == opp && pos1 == opp && pos2 == null) {
+            score -= 10;
+        }
+        // (opp,null,opp)
+        if (pos0 == opp && pos1 == null && pos2 == opp) {
+            score -= 10;
+        }
+        // (null,opp,opp)
+        if (pos0 == null && pos1 == opp && pos2 == opp) {
+            score -= 10;
+        }
+        return score;
+    }
 
+    /**
+     * The moving phase rules for a single line, used to fill {@link #MOVE_LINE_SCORES}.
+     */
+    private static int moveLineScore(Player pos0, Player pos1, Player pos2, Player player) {
+        Player other_player = player.opponent();
+        int score = 0;
+        if (pos0 == player && pos1 == player && pos2 == player) {
+            score += 1000;
+        }
 
-            // (player,player,opp)
-            if (pos0 == player && pos1 == player && pos2 == opp) {
-                score -= 2;
-            }
-            // (player,opp,player)
-            if (pos0 == player && pos1 == opp && pos2 == player) {
-                score -= 2;
-            }
-            // (opp,player,player)
-            if (pos0 == opp && pos1 == player && pos2 == player) {
-                score -= 2;
-            }
+        if (pos0 == player && pos1 == player && pos2 == null) {
+            score += 10;
+        }
+        if (pos0 == player && pos1 == null && pos2 == player) {
+            score += 10;
+        }
+        if (pos0 == null && pos1 == player && pos2 == player) {
+            score += 10;
+        }
 
-            // (opp,opp,player)
-            if (pos0 == opp && pos1 == opp && pos2 == player) {
-                score += 20;
-            }
-            // (opp,player,opp)
-            if (pos0 == opp && pos1 == player && pos2 == opp) {
-                score += 20;
-            }
-            // (player,opp,opp)
-            if (pos0 == player && pos1 == opp && pos2 == opp) {
-                score += 20;
-            }
+        if (pos0 == other_player && pos1 == other_player && pos2 == player) {
+            score += 20;
+        }
+        if (pos0 == other_player && pos1 == player && pos2 == other_player) {
+            score += 20;
+        }
+        if (pos0 == player && pos1 == other_player && pos2 == other_player) {
+            score += 20;
+        }
 
-            // (opp,opp,null)
-            if (pos0 == opp && pos1 == opp && pos2 == null) {
-                score -= 10;
-            }
-            // (opp,null,opp)
-            if (pos0 == opp && pos1 == null && pos2 == opp) {
-                score -= 10;
-            }
-            // (null,opp,opp)
-            if (pos0 == null && pos1 == opp && pos2 == opp) {
-                score -= 10;
-            }
+        if (pos0 == player && pos1 == player && pos2 == other_player) {
+            score -= 2;
+        }
+        if (pos0 == player && pos1 == other_player && pos2 == player) {
+            score -= 2;
+        }
+        if (pos0 == other_player && pos1 == player && pos2 == player) {
+            score -= 2;
         }
 
+        if (pos0 == other_player && pos1 == other_player && pos2 == null) {
+            score -= 10;
+        }
+        if (pos0 == other_player && pos1 == null && pos2 == other_player) {
+            score -= 10;
+        }
+        if (pos0 == null && pos1 == other_player && pos2 == other_player) {
+            score -= 10;
+        }
         return score;
     }
 
@@ -531,6 +926,7 @@ public class AlphaBetaBot implements Bot {
     */
     private int[] deletePiece_limited_alphabeta_search(GameState state, int depthLimit) {
         deleteDepthLimit = depthLimit;
+        startSearch(state);
         return deletePiece_maxValue(state, Integer.MIN_VALUE, Integer.MAX_VALUE, depthLimit);
     }
 
@@ -539,6 +935,7 @@ public class AlphaBetaBot implements Bot {
 
     */
     private int[] deletePiece_maxValue(GameState state, int alpha, int beta, int depthLimit) {
+        searchedNodes++;
         Player p = state.currentPlayer;
 
         int v = Integer.MIN_VALUE;
@@ -550,10 +947,22 @@ public class AlphaBetaBot implements Bot {
         }
 
         if (depthLimit == 0) {
-            int sc = boardScore(state);
+            int sc = placeLeafScore(state);
             return new int[]{sc, bestMove};
         }
 
+        if (depthLimit == 1 && batching()) {
+            List<GameState> children = new ArrayList<>(actions.size());
+            for (int pos : actions) {
+                GameState next = state.newStateForDelete(pos, p);
+                next.currentPlayer = p.opponent();
+                children.add(next);
+            }
+            int[] best = scoreChildren(state, children,
+                    child -> deletePiece_minValue(child, Integer.MIN_VALUE, Integer.MAX_VALUE, 0), true);
+            return new int[]{best[0], best[1] < 0 ? -1 : actions.get(best[1])};
+        }
+
         for (int pos : actions) {
             GameState next = state.newStateForDelete(pos, p);
 
@@ -579,6 +988,7 @@ public class AlphaBetaBot implements Bot {
 
     */
     private int[] deletePiece_minValue(GameState state, int alpha, int beta, int depthLimit) {
+        searchedNodes++;
         Player p = state.currentPlayer;
 
         int v = Integer.MAX_VALUE;
@@ -590,10 +1000,22 @@ public class AlphaBetaBot implements Bot {
         }
 
         if (depthLimit == 0) {
-            int sc = boardScore(state);
+            int sc = placeLeafScore(state);
             return new int[]{sc, bestMove};
         }
 
+        if (depthLimit == 1 && batching()) {
+            List<GameState> children = new ArrayList<>(actions.size());
+            for (int pos : actions) {
+                GameState next = state.newStateForDelete(pos, p);
+                next.currentPlayer = p.opponent();
+                children.add(next);
+            }
+            int[] best = scoreChildren(state, children,
+                    child -> deletePiece_maxValue(child, Integer.MIN_VALUE, Integer.MAX_VALUE, 0), false);
+            return new int[]{best[0], best[1] < 0 ? -1 : actions.get(best[1])};
+        }
+
         for (int pos : actions) {
             GameState next = state.newStateForDelete(pos, p);
             next.currentPlayer = p.opponent();
@@ -615,20 +1037,30 @@ public class AlphaBetaBot implements Bot {
     
     /**
      * Performs a limited depth search for moving a piece in the game.
-     * 
-
+     * Leaves are scored from the point of view of the player to move at the root, so reduced
+     * (selective) lines of odd length are scored consistently with full-depth ones.
      */
     private int[] movePiece_limited_alphabeta_search(GameState state, int depthLimit) {
-        return movePiece_maxValue(state, Integer.MIN_VALUE, Integer.MAX_VALUE, depthLimit);
+        startSearch(state);
+        rootDepth = depthLimit;
+        lateMoveReductions = 0;
+        lateMoveResearches = 0;
+        nullMoveCutoffs = 0;
+        futilityPrunes = 0;
+        return movePiece_maxValue(state, Integer.MIN_VALUE, Integer.MAX_VALUE, depthLimit, false);
     }
 
     /**
      * Performs the max-value part of the alpha-beta search for moving a piece.
-
+     *
+     * @param afterNullMove true if the previous ply was a null move, to avoid two passes in a row
      * @return An array containing the best value and the corresponding moves.
      */
-
-    private int[] movePiece_maxValue(GameState state, int alpha, int beta, int depthLimit) {
+    private int[] movePiece_maxValue(GameState state, int alpha, int beta, int depthLimit, boolean afterNullMove) {
+        searchedNodes++;
+        if (outOfTime()) {
+            return new int[]{0, -1, -1};
+        }
         int v = Integer.MIN_VALUE;
         int bestFrom = -1, bestTo = -1;
 
@@ -639,16 +1071,71 @@ public class AlphaBetaBot implements Bot {
             return new int[]{Integer.MIN_VALUE, -1, -1};
         }
 
-        if (depthLimit == 0) {
-            int eval = movePiece_boardScore(state);
+        if (depthLimit <= 0) {
+            int eval = moveLeafScore(state);
             return new int[]{eval, bestFrom, bestTo};
         }
 
-        for (int[] a : actions) {
+        // Null move: if passing still fails high, a real move will fail high as well
+        if (useNullMovePruning && !afterNullMove && depthLimit < rootDepth
+                && depthLimit > NULL_MOVE_REDUCTION + 1 && beta < Integer.MAX_VALUE
+                && nullMoveAllowed(state, p, actions)) {
+            GameState passState = new GameState(state);
+            passState.currentPlayer = p.opponent();
+            int[] child = movePiece_minValue(passState, beta - 1, beta, depthLimit - 1 - NULL_MOVE_REDUCTION, true);
+            if (child[0] >= beta) {
+                nullMoveCutoffs++;
+                return new int[]{beta, -1, -1};
+            }
+        }
+
+        if (depthLimit == 1 && batching()) {
+            List<GameState> children = new ArrayList<>(actions.size());
+            for (int[] a : actions) {
+                GameState nextState = state.newMoveState(a);
+                nextState.currentPlayer = p.opponent();
+                children.add(nextState);
+            }
+            int[] best = scoreChildren(state, children,
+                    child -> movePiece_minValue(child, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, false), true);
+            if (best[1] < 0) {
+                return new int[]{best[0], -1, -1};
+            }
+            int[] a = actions.get(best[1]);
+            return new int[]{best[0], a[0], a[1]};
+        }
+
+        boolean futile = false;
+        int staticEval = 0;
+        if (useFutilityPruning && depthLimit < FUTILITY_MARGINS.length && depthLimit < rootDepth) {
+            staticEval = moveLeafScore(state);
+            futile = alpha > Integer.MIN_VALUE && staticEval + futilityMargin(depthLimit) <= alpha;
+        }
+
+        List<int[]> ordered = futile || depthLimit > 1 ? orderMoves(state, actions, p) : actions;
+        for (int i = 0; i < ordered.size(); i++) {
+            int[] a = ordered.get(i);
+            boolean quiet = a.length > 2 && a[2] == QUIET_MOVE;
+            if (futile && quiet) {
+                futilityPrunes++;
+                v = Math.max(v, staticEval);
+                continue;
+            }
             GameState nextState = state.newMoveState(a);
             nextState.currentPlayer = p.opponent();
 
-            int[] child = movePiece_minValue(nextState, alpha, beta, depthLimit - 1);
+            int[] child;
+            if (useLateMoveReductions && quiet && i >= LMR_FULL_DEPTH_MOVES && depthLimit >= LMR_MIN_DEPTH) {
+                lateMoveReductions++;
+                child = movePiece_minValue(nextState, alpha, beta, depthLimit - 1 - LMR_REDUCTION, false);
+                if (child[0] > alpha) {
+                    // The reduced search fails high: verify at full depth
+                    lateMoveResearches++;
+                    child = movePiece_minValue(nextState, alpha, beta, depthLimit - 1, false);
+                }
+            } else {
+                child = movePiece_minValue(nextState, alpha, beta, depthLimit - 1, false);
+            }
             int childScore = child[0];
             if (childScore > v) {
                 v = childScore;
@@ -665,20 +1152,14 @@ public class AlphaBetaBot implements Bot {
 
     /**
      * Performs the min-value part of the alpha-beta search for moving a piece.
-     * 
-
+     *
+     * @param afterNullMove true if the previous ply was a null move, to avoid two passes in a row
      */
-    private int[] movePiece_minValue(GameState state, int alpha, int beta, int depthLimit) {
-        /*
-        if (placePiece_iSterminal(state)) {
-            if (state.currentPlayer == Player.RED) {
-                return new int[]{1000000000, -1, -1};
-            } else {
-                return new int[]{-1000000000, -1, -1};
-            }
+    private int[] movePiece_minValue(GameState state, int alpha, int beta, int depthLimit, boolean afterNullMove) {
+        searchedNodes++;
+        if (outOfTime()) {
+            return new int[]{0, -1, -1};
         }
-         */
-
         int v = Integer.MAX_VALUE;
         int bestFrom = -1;
         int bestTo = -1;
@@ -690,16 +1171,68 @@ public class AlphaBetaBot implements Bot {
             return new int[]{Integer.MAX_VALUE, -1, -1};
         }
 
-        if (depthLimit == 0) {
-            int eval = movePiece_boardScore(state);
+        if (depthLimit <= 0) {
+            int eval = moveLeafScore(state);
             return new int[]{eval, bestFrom, bestTo};
         }
 
-        for (int[] a : actions) {
+        if (useNullMovePruning && !afterNullMove && depthLimit > NULL_MOVE_REDUCTION + 1
+                && alpha > Integer.MIN_VALUE && nullMoveAllowed(state, p, actions)) {
+            GameState passState = new GameState(state);
+            passState.currentPlayer = p.opponent();
+            int[] child = movePiece_maxValue(passState, alpha, alpha + 1, depthLimit - 1 - NULL_MOVE_REDUCTION, true);
+            if (child[0] <= alpha) {
+                nullMoveCutoffs++;
+                return new int[]{alpha, -1, -1};
+            }
+        }
+
+        if (depthLimit == 1 && batching()) {
+            List<GameState> children = new ArrayList<>(actions.size());
+            for (int[] a : actions) {
+                GameState nextState = state.newMoveState(a);
+                nextState.currentPlayer = p.opponent();
+                children.add(nextState);
+            }
+            int[] best = scoreChildren(state, children,
+                    child -> movePiece_maxValue(child, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, false), false);
+            if (best[1] < 0) {
+                return new int[]{best[0], -1, -1};
+            }
+            int[] a = actions.get(best[1]);
+            return new int[]{best[0], a[0], a[1]};
+        }
+
+        boolean futile = false;
+        int staticEval = 0;
+        if (useFutilityPruning && depthLimit < FUTILITY_MARGINS.length) {
+            staticEval = moveLeafScore(state);
+            futile = beta < Integer.MAX_VALUE && staticEval - futilityMargin(depthLimit) >= beta;
+        }
+
+        List<int[]> ordered = futile || depthLimit > 1 ? orderMoves(state, actions, p) : actions;
+        for (int i = 0; i < ordered.size(); i++) {
+            int[] a = ordered.get(i);
+            boolean quiet = a.length > 2 && a[2] == QUIET_MOVE;
+            if (futile && quiet) {
+                futilityPrunes++;
+                v = Math.min(v, staticEval);
+                continue;
+            }
             GameState nextState = state.newMoveState(a);
             nextState.currentPlayer = p.opponent();
 
-            int[] child = movePiece_maxValue(nextState, alpha, beta, depthLimit - 1);
+            int[] child;
+            if (useLateMoveReductions && quiet && i >= LMR_FULL_DEPTH_MOVES && depthLimit >= LMR_MIN_DEPTH) {
+                lateMoveReductions++;
+                child = movePiece_maxValue(nextState, alpha, beta, depthLimit - 1 - LMR_REDUCTION, false);
+                if (child[0] < beta) {
+                    lateMoveResearches++;
+                    child = movePiece_maxValue(nextState, alpha, beta, depthLimit - 1, false);
+                }
+            } else {
+                child = movePiece_maxValue(nextState, alpha, beta, depthLimit - 1, false);
+            }
             int childScore = child[0];
             if (childScore < v) {
                 v = childScore;
@@ -714,66 +1247,64 @@ public class AlphaBetaBot implements Bot {
         return new int[]{v, bestFrom, bestTo};
     }
 
-
-    public int movePiece_boardScore(GameState state) {
-        double adjust_weight = 2.5;
-        Player cur = state.currentPlayer;
-        Player opp = cur.opponent();
-        return movePiece_getHeuristicScore(state, cur) -
-                (int)(adjust_weight * movePiece_getHeuristicScore(state, opp));
+    /**
+     * Null moves are unsound in zugzwang-prone positions: when the side to move is flying or
+     * nearly blocked, passing may be better than any legal move.
+     */
+    private boolean nullMoveAllowed(GameState state, Player p, List<int[]> actions) {
+        return countPieces(state, p) > 3 && actions.size() > NULL_MOVE_MIN_MOBILITY;
     }
 
-
-    public int movePiece_getHeuristicScore(GameState state, Player player) {
-        Player other_player = player == Player.RED ? Player.BLUE : Player.RED;
-        int score = 0;
-        int [][] paths = get(state.gameBoard.isIn12MenVer());
-        for (int[] path : paths) {
-            if (state.boardPositions[path[0]] == player && state.boardPositions[path[1]] == player && state.boardPositions[path[2]] == player) {
-                score += 1000;
+    /**
+     * Orders moves for the selective search: mill-closing moves first, then moves that block an
+     * opponent mill, then quiet moves. Each returned move is {from, to, kind}.
+     */
+    private List<int[]> orderMoves(GameState state, List<int[]> actions, Player p) {
+        List<int[]> mills = new ArrayList<>();
+        List<int[]> blocks = new ArrayList<>();
+        List<int[]> quiet = new ArrayList<>();
+        Player opp = p.opponent();
+        for (int[] a : actions) {
+            state.boardPositions[a[0]] = null;
+            boolean closesMill = formsMillIfPlace(state, a[1], p);
+            boolean blocksMill = !closesMill && formsMillIfPlace(state, a[1], opp);
+            state.boardPositions[a[0]] = p;
+            if (closesMill) {
+                mills.add(new int[]{a[0], a[1], MILL_MOVE});
+            } else if (blocksMill) {
+                blocks.add(new int[]{a[0], a[1], BLOCKING_MOVE});
+            } else {
+                quiet.add(new int[]{a[0], a[1], QUIET_MOVE});
             }
+        }
+        mills.addAll(blocks);
+        mills.addAll(quiet);
+        return mills;
+    }
 
-            if (state.boardPositions[path[0]] == player && state.boardPositions[path[1]] == player && state.boardPositions[path[2]] == null) {
-                score += 10;
-            }
-            if (state.boardPositions[path[0]] == player && state.boardPositions[path[1]] == null && state.boardPositions[path[2]] == player) {
-                score += 10;
-            }
-            if (state.boardPositions[path[0]] == null && state.boardPositions[path[1]] == player && state.boardPositions[path[2]] == player) {
-                score += 10;
-            }
 
-            if (state.boardPositions[path[0]] == other_player && state.boardPositions[path[1]] == other_player && state.boardPositions[path[2]] == player) {
-                score += 20;
-            }
-            if (state.boardPositions[path[0]] == other_player && state.boardPositions[path[1]] == player && state.boardPositions[path[2]] == other_player) {
-                score += 20;
-            }
-            if (state.boardPositions[path[0]] == player && state.boardPositions[path[1]] == other_player && state.boardPositions[path[2]] == other_player) {
-                score += 20;
-            }
+    public int movePiece_boardScore(GameState state) {
+        return movePiece_boardScore(state, state.currentPlayer);
+    }
 
-            if (state.boardPositions[path[0]] == player && state.boardPositions[path[1]] == player && state.boardPositions[path[2]] == other_player) {
-                score -= 2;
-            }
-            if (state.boardPositions[path[0]] == player && state.boardPositions[path[1]] == other_player && state.boardPositions[path[2]] == player) {
-                score -= 2;
-            }
-            if (state.boardPositions[path[0]] == other_player && state.boardPositions[path[1]] == player && state.boardPositions[path[2]] == player) {
-                score -= 2;
-            }
+    /**
+     * Scores a moving phase position from the point of view of the given player.
+     */
+    public int movePiece_boardScore(GameState state, Player cur) {
+        double adjust_weight = 2.5;
+        int[][] paths = get(state.gameBoard.isIn12MenVer());
+        int curMask = Bitboards.mask(state.boardPositions, cur);
+        int oppMask = Bitboards.mask(state.boardPositions, cur.opponent());
+        return sumLineScores(paths, curMask, oppMask, MOVE_LINE_SCORES) -
+                (int)(adjust_weight * sumLineScores(paths, oppMask, curMask, MOVE_LINE_SCORES));
+    }
 
-            if (state.boardPositions[path[0]] == other_player && state.boardPositions[path[1]] == other_player && state.boardPositions[path[2]] == null) {
-                score -= 10;
-            }
-            if (state.boardPositions[path[0]] == other_player && state.boardPositions[path[1]] == null && state.boardPositions[path[2]] == other_player) {
-                score -= 10;
-            }
-            if (state.boardPositions[path[0]] == null && state.boardPositions[path[1]] == other_player && state.boardPositions[path[2]] == other_player) {
-                score -= 10;
-            }
-        }
-        return score;
+
+    public int movePiece_getHeuristicScore(GameState state, Player player) {
+        return sumLineScores(get(state.gameBoard.isIn12MenVer()),
+                Bitboards.mask(state.boardPositions, player),
+                Bitboards.mask(state.boardPositions, player.opponent()),
+                MOVE_LINE_SCORES);
     }
 
     ///////////////////////////////////////////////////////////////////////////
@@ -795,51 +1326,6 @@ public class AlphaBetaBot implements Bot {
     }
     
 
-    private int[] canThree(GameState state, int depth) {
-        int[] result = new int[]{-1, -1, -1};
-        Player player = state.currentPlayer;
-        List<int []> actions = state.selectActions(player);
-        //Player other_player = player == Player.RED ? Player.BLUE : Player.RED;
-        int [][] paths = get(state.gameBoard.isIn12MenVer());
-        for (int[] path : paths) {
-            for (int[] move : actions) {
-                if ((state.boardPositions[path[0]] == player && state.boardPositions[path[1]] == player && path[2] == move[1] && path[0] != move[0] && path[1] != move[0])
-                        || (state.boardPositions[path[0]] == player && path[1] == move[1] && path[0] != move[0] && path[2] != move[0] && state.boardPositions[path[2]] == player)
-                        || (path[0] == move[1] && path[1] != move[0] && path[2] != move[0] && state.boardPositions[path[1]] == player && state.boardPositions[path[2]] == player)) {
-
-                    result[0] = 1;
-                    result[1] = move[0];
-                    result[2] = move[1];
-                    if (depth == 0) {
-                        return result;
-                    }
-                    int[] result2 = canThree(state.newMoveState(move), depth - 1);
-                    if (result2[0] == 1) {
-                        return result;
-                    }
-                }
-            }
-        }
-        return result;
-    }
-
-
-    private int[] crackThree(GameState state) {
-        Player player = state.currentPlayer;
-        List<int []> actions = state.selectActions(player);
-
-        int [][] paths = get(state.gameBoard.isIn12MenVer());
-        for (int[] path : paths) {
-            if (state.boardPositions[path[0]] == player && state.boardPositions[path[1]] == player && state.boardPositions[path[2]] == player) {
-                for (int[] move : actions) {
-                    if (path[0] == move[0] || path[1] == move[0] || path[2] == move[0]) {
-                        return new int[]{1, move[0], move[1]};
-                    }
-                }
-            }
-        }
-        return new int[]{-1, -1, -1};
-    }
     private int pickRandomMoveSource(Game game) {
         Player me = game.getCurrentPlayer();
         List<Integer> myPieces = new ArrayList<>();
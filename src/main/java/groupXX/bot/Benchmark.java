@@ -0,0 +1,937 @@
+package groupXX.bot;
+
+import groupXX.Game;
+import groupXX.Player;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmark runs headless bot experiments from the command line, like the Trainer does for the neural network.
+ * It only measures speed and playing strength; {@link Checks} verifies that the fast paths give correct results.
+ *
+ * Usage: {@code Benchmark selfplay [games] [ms per move]} plays AlphaBetaBot with late move reductions and null
+ * moves against AlphaBetaBot without them at equal time per moving phase decision and reports the score together
+ * with the thinking time each side used, in total and in the moving phase alone.
+ * {@code Benchmark selfplay-futility [games] [ms per move]} plays AlphaBetaBot with futility pruning against
+ * AlphaBetaBot without it in the same way.
+ * {@code Benchmark playouts [seconds]} measures how many MCTS rollouts per second the RolloutEngine plays.
+ * {@code Benchmark mcts-threads [seconds]} measures how the MonteCarloBot search scales with its thread count.
+ * {@code Benchmark mcts-ensemble [games]} compares the root parallel MonteCarloBot with the single-threaded one.
+ * {@code Benchmark mcts-rave [games]} compares MonteCarloBot with and without RAVE: how fast each converges to
+ * the move of a long search, and matches at equal iterations and at equal time.
+ * {@code Benchmark mcts-turns [games]} compares the MonteCarloBot tree with whole turns as edges with the one
+ * with single actions.
+ * {@code Benchmark mcts-priors [games]} compares MonteCarloBot with and without priors and progressive widening.
+ * {@code Benchmark mcts-memory [seconds]} runs a long MonteCarloBot search in a small node budget, with and without
+ * recycling.
+ * {@code Benchmark nn-forward [seconds]} measures the network forward passes per second with and without the
+ * Vector API (which needs {@code --add-modules jdk.incubator.vector}), to decide whether to turn on
+ * {@code -Dmorris.vectorKernels}.
+ * {@code Benchmark nn-load [network file]} compares the load time of a text network with loading it as a float64
+ * and a float32 {@link NetFile}.
+ * {@code Benchmark nn-quant [seconds] [network file]} measures the forward passes per second of the double,
+ * float32 and int8 networks.
+ * {@code Benchmark nn-incremental [seconds] [network file]} compares evaluating the successors of a position with
+ * one batch and with an accumulator that only adds the changed squares, in every precision.
+ * {@code Benchmark nn-layers [seconds]} measures the forward passes per second of random networks of several
+ * shapes and activations in every precision.
+ * {@code Benchmark nn-features [seconds]} compares evaluating random positions with the board input and with the
+ * sparse {@link NetFeatures}, including building the input from the position, in every precision.
+ * {@code Benchmark eval-cache [games]} runs AlphaBetaBot placement searches, MonteCarloBot decisions and EasyBot
+ * moves along random games with and without their {@link EvalCache} and reports the time and the hit rate.
+ * {@code Benchmark evaluators [games] [network file]} runs AlphaBetaBot placement searches and MonteCarloBot
+ * decisions along random games with the built-in heuristics and with each {@link Evaluator}, the AlphaBetaBot ones
+ * with and without batched leaves, and reports the time per decision and the evaluation cost per node.
+ */
+public class Benchmark {
+
+    private static final int MAX_PLIES = 300; // games still running after this many plies count as a draw
+    private static final int RANDOM_OPENING_PLIES = 4; // random placements so deterministic bots play different games
+
+    private static final PrintStream OUT = System.out;
+    private static final PrintStream SILENT = new PrintStream(OutputStream.nullOutputStream());
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "selfplay";
+        switch (mode) {
+            case "selfplay" -> selfPlay(args.length > 1 ? Integer.parseInt(args[1]) : 10,
+                    args.length > 2 ? Long.parseLong(args[2]) : 200);
+            case "selfplay-futility" -> selfPlayFutility(args.length > 1 ? Integer.parseInt(args[1]) : 10,
+                    args.length > 2 ? Long.parseLong(args[2]) : 200);
+            case "playouts" -> playouts(args.length > 1 ? Integer.parseInt(args[1]) : 5);
+            case "mcts-threads" -> mctsThreads(args.length > 1 ? Integer.parseInt(args[1]) : 8);
+            case "mcts-ensemble" -> mctsEnsemble(args.length > 1 ? Integer.parseInt(args[1]) : 10);
+            case "mcts-rave" -> mctsRave(args.length > 1 ? Integer.parseInt(args[1]) : 10);
+            case "mcts-turns" -> mctsTurns(args.length > 1 ? Integer.parseInt(args[1]) : 10);
+            case "mcts-priors" -> mctsPriors(args.length > 1 ? Integer.parseInt(args[1]) : 10);
+            case "mcts-memory" -> mctsMemory(args.length > 1 ? Integer.parseInt(args[1]) : 10);
+            case "nn-forward" -> nnForward(args.length > 1 ? Integer.parseInt(args[1]) : 2);
+            case "nn-load" -> nnLoad(args.length > 1 ? args[1] : "bestnet/20241109075547.txt");
+            case "nn-quant" -> nnQuant(args.length > 1 ? Integer.parseInt(args[1]) : 2,
+                    args.length > 2 ? args[2] : "bestnet/20241109075547.txt");
+            case "nn-incremental" -> nnIncremental(args.length > 1 ? Integer.parseInt(args[1]) : 2,
+                    args.length > 2 ? args[2] : "bestnet/20241109075547.txt");
+            case "nn-layers" -> nnLayers(args.length > 1 ? Integer.parseInt(args[1]) : 1);
+            case "nn-features" -> nnFeatures(args.length > 1 ? Integer.parseInt(args[1]) : 1);
+            case "eval-cache" -> evalCache(args.length > 1 ? Integer.parseInt(args[1]) : 5);
+            case "evaluators" -> evaluators(args.length > 1 ? Integer.parseInt(args[1]) : 3,
+                    args.length > 2 ? args[2] : "bestnet/20241109075547.txt");
+            default -> OUT.println("Unknown benchmark: " + mode);
+        }
+    }
+
+    /**
+     * Plays AlphaBetaBot with late move reductions and null moves against AlphaBetaBot without them, both without
+     * futility pruning, at the same thinking time per moving phase decision, so the reductions are judged by the
+     * strength they buy at equal time rather than at equal depth.
+     */
+    private static void selfPlay(int games, long moveTimeMs) {
+        Contestant selective = new Contestant("lmr+null", () -> alphaBetaBot(moveTimeMs, true, true, false));
+        Contestant plain = new Contestant("plain", () -> alphaBetaBot(moveTimeMs, false, false, false));
+        OUT.println(moveTimeMs + " ms per moving phase decision");
+        playMatch(selective, plain, games);
+    }
+
+    /**
+     * Plays AlphaBetaBot with futility pruning against AlphaBetaBot without it, both without late move reductions
+     * and null moves, at the same thinking time per moving phase decision.
+     */
+    private static void selfPlayFutility(int games, long moveTimeMs) {
+        Contestant pruned = new Contestant("futility", () -> alphaBetaBot(moveTimeMs, false, false, true));
+        Contestant full = new Contestant("no-futility", () -> alphaBetaBot(moveTimeMs, false, false, false));
+        OUT.println(moveTimeMs + " ms per moving phase decision");
+        playMatch(pruned, full, games);
+    }
+
+    private static AlphaBetaBot alphaBetaBot(long moveTimeMs, boolean lateMoveReductions, boolean nullMovePruning,
+                                             boolean futilityPruning) {
+        AlphaBetaBot bot = new AlphaBetaBot();
+        bot.moveTimeMs = moveTimeMs;
+        bot.useLateMoveReductions = lateMoveReductions;
+        bot.useNullMovePruning = nullMovePruning;
+        bot.useFutilityPruning = futilityPruning;
+        return bot;
+    }
+
+    /**
+     * Plays rollouts from a fixed set of positions for the given time, after a warm-up second.
+     */
+    private static void playouts(int seconds) {
+        MorrisState[] positions = MorrisState.randomPositions(64, new SplittableRandom(42));
+        RolloutEngine engine = new RolloutEngine(false, new SplittableRandom(7));
+        for (long end = System.nanoTime() + 1_000_000_000L; System.nanoTime() < end; ) {
+            engine.playout(positions[(int) (engine.playouts % positions.length)]);
+        }
+        engine.playouts = 0;
+        engine.actionsPlayed = 0;
+
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            engine.playout(positions[(int) (engine.playouts % positions.length)]);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        OUT.printf("%d playouts in %.1f s: %.0f playouts/s, %.0f actions/s, %.1f actions per playout%n",
+                engine.playouts, elapsed, engine.playouts / elapsed, engine.actionsPlayed / elapsed,
+                (double) engine.actionsPlayed / engine.playouts);
+    }
+
+    /**
+     * Searches the same positions with 1, 2, 4, ... threads (up to at least 4 and at least the number of
+     * cores) for the given total time each and reports the MCTS iterations per second and the speedup.
+     */
+    private static void mctsThreads(int seconds) {
+        MorrisState[] positions = Arrays.stream(MorrisState.randomPositions(32, new SplittableRandom(42)))
+                .filter(state -> state.loser() == -1)
+                .limit(8)
+                .toArray(MorrisState[]::new);
+        long timePerPosition = seconds * 1000L / positions.length;
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        OUT.println(Runtime.getRuntime().availableProcessors() + " cores, " + positions.length + " positions, "
+                + timePerPosition + " ms each");
+
+        searchPositions(positions, 1, MonteCarloBot.Parallelism.TREE, 1000 / positions.length); // warm-up
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double rate = searchPositions(positions, threads, MonteCarloBot.Parallelism.TREE, timePerPosition);
+            if (threads == 1) {
+                baseline = rate;
+            }
+            OUT.printf("%2d threads: %.0f iterations/s, speedup %.2f%n", threads, rate, rate / baseline);
+        }
+    }
+
+    /**
+     * Compares a root parallel ensemble with one thread per core (at least 4) against the single-threaded search:
+     * first the iterations per second on sample positions, then a match with 200 ms per decision.
+     */
+    private static void mctsEnsemble(int games) {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        MorrisState[] positions = Arrays.stream(MorrisState.randomPositions(32, new SplittableRandom(42)))
+                .filter(state -> state.loser() == -1)
+                .limit(8)
+                .toArray(MorrisState[]::new);
+        searchPositions(positions, 1, MonteCarloBot.Parallelism.TREE, 1000 / positions.length); // warm-up
+        double single = searchPositions(positions, 1, MonteCarloBot.Parallelism.TREE, 500);
+        double ensemble = searchPositions(positions, threads, MonteCarloBot.Parallelism.ROOT, 500);
+        OUT.printf("%d cores: single thread %.0f iterations/s, ensemble of %d %.0f iterations/s (%.2fx)%n",
+                Runtime.getRuntime().availableProcessors(), single, threads, ensemble, ensemble / single);
+
+        Contestant singleBot = new Contestant("single", () -> mctsBot(1, MonteCarloBot.Parallelism.TREE, 200));
+        Contestant ensembleBot = new Contestant("ensemble-" + threads,
+                () -> mctsBot(threads, MonteCarloBot.Parallelism.ROOT, 200));
+        playMatch(ensembleBot, singleBot, games);
+    }
+
+    /**
+     * Measures how fast MonteCarloBot converges with and without RAVE: the share of sample positions in which
+     * a search with a given number of iterations picks the move of a long search without RAVE. Then plays a
+     * match at equal iterations and one at equal time.
+     */
+    private static void mctsRave(int games) {
+        MorrisState[] positions = Arrays.stream(MorrisState.randomPositions(64, new SplittableRandom(42)))
+                .filter(state -> state.loser() == -1)
+                .limit(24)
+                .toArray(MorrisState[]::new);
+        int[] reference = new int[positions.length];
+        MonteCarloBot referenceBot = mctsBot(1, MonteCarloBot.Parallelism.TREE, 2000);
+        referenceBot.useRave = false;
+        for (int i = 0; i < positions.length; i++) {
+            reference[i] = silentMove(positions[i].toGame(), referenceBot);
+        }
+        for (int iterations = 1000; iterations <= 64000; iterations *= 4) {
+            int plainAgrees = 0;
+            int raveAgrees = 0;
+            for (int i = 0; i < positions.length; i++) {
+                for (boolean rave : new boolean[]{false, true}) {
+                    MonteCarloBot bot = mctsBot(1, MonteCarloBot.Parallelism.TREE, 60_000);
+                    bot.maxIterations = iterations;
+                    bot.useRave = rave;
+                    if (silentMove(positions[i].toGame(), bot) == reference[i]) {
+                        if (rave) {
+                            raveAgrees++;
+                        } else {
+                            plainAgrees++;
+                        }
+                    }
+                }
+            }
+            OUT.printf("%6d iterations: UCT picks the reference move in %d/%d positions, RAVE in %d/%d%n",
+                    iterations, plainAgrees, positions.length, raveAgrees, positions.length);
+        }
+
+        OUT.println("Equal iterations (5000 per decision):");
+        playMatch(new Contestant("rave", () -> raveBot(true, 5000)), new Contestant("uct", () -> raveBot(false, 5000)), games);
+        OUT.println("Equal time (200 ms per decision):");
+        playMatch(new Contestant("rave", () -> raveBot(true, Long.MAX_VALUE)),
+                new Contestant("uct", () -> raveBot(false, Long.MAX_VALUE)), games);
+    }
+
+    /**
+     * Compares the turn tree with the action tree: the iterations and tree nodes of a 500 ms search on sample
+     * positions, then a match with 200 ms per decision. With whole turns the bot searches once per turn, so
+     * the thinking time of the match is reported as well.
+     */
+    private static void mctsTurns(int games) {
+        MorrisState[] positions = Arrays.stream(MorrisState.randomPositions(32, new SplittableRandom(42)))
+                .filter(state -> state.loser() == -1)
+                .limit(8)
+                .toArray(MorrisState[]::new);
+        for (boolean turns : new boolean[]{false, true}) {
+            long iterations = 0;
+            long nodes = 0;
+            for (MorrisState position : positions) {
+                MonteCarloBot bot = turnsBot(turns, 500);
+                silentMove(position.toGame(), bot);
+                iterations += bot.iterations;
+                nodes += bot.treeNodes;
+            }
+            OUT.printf("%-7s tree: %d iterations and %d nodes per decision%n",
+                    turns ? "turn" : "action", iterations / positions.length, nodes / positions.length);
+        }
+        playMatch(new Contestant("turns", () -> turnsBot(true, 200)), new Contestant("actions", () -> turnsBot(false, 200)), games);
+    }
+
+    private static MonteCarloBot turnsBot(boolean turns, long timeLimitMs) {
+        MonteCarloBot bot = mctsBot(1, MonteCarloBot.Parallelism.TREE, timeLimitMs);
+        bot.compoundTurns = turns;
+        return bot;
+    }
+
+    /**
+     * Compares the search with priors and progressive widening with the plain UCB search: how many root turns
+     * a 100 ms search in the turn tree visits in flying positions, then a match with 200 ms per decision.
+     */
+    private static void mctsPriors(int games) {
+        MorrisState[] positions = flyingPositions(8, new SplittableRandom(42));
+        for (boolean priors : new boolean[]{false, true}) {
+            long children = 0;
+            long visited = 0;
+            long iterations = 0;
+            for (MorrisState position : positions) {
+                MonteCarloBot bot = priorsBot(priors, 100);
+                bot.compoundTurns = true;
+                silentMove(position.toGame(), bot);
+                children += bot.rootChildren;
+                visited += bot.visitedRootChildren;
+                iterations += bot.iterations;
+            }
+            OUT.printf("%-9s %d iterations per decision, %d of %d root turns visited in flying positions%n",
+                    priors ? "priors:" : "uniform:", iterations / positions.length, visited, children);
+        }
+        playMatch(new Contestant("priors", () -> priorsBot(true, 200)), new Contestant("uniform", () -> priorsBot(false, 200)), games);
+    }
+
+    /**
+     * Searches the start position for the given time in a 4 MB node budget and reports the iterations, the
+     * occupancy of the pool, how often and how much it was recycled and the heap the bot holds afterwards.
+     */
+    private static void mctsMemory(int seconds) {
+        int capacity = NodePool.capacityFor(4 << 20);
+        long heapBefore = usedHeap();
+        for (boolean recycle : new boolean[]{false, true}) {
+            MonteCarloBot bot = new MonteCarloBot(capacity);
+            bot.timeLimitMs = seconds * 1000L;
+            bot.recycleNodes = recycle;
+            silentMove(new Game(), bot);
+            long heap = usedHeap() - heapBefore;
+            OUT.printf("%-13s %d nodes: %.0f iterations/s, occupancy %.2f, %d recycles freeing %d nodes (%.1f recycles/s), %.1f MB heap%n",
+                    recycle ? "recycling:" : "no recycling:", capacity, bot.iterations / (double) seconds,
+                    bot.occupancy, bot.recycles, bot.recycledNodes, bot.recycles / (double) seconds, heap / 1e6);
+        }
+    }
+
+    /**
+     * Returns the bytes in use on the heap after a garbage collection.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static MonteCarloBot priorsBot(boolean priors, long timeLimitMs) {
+        MonteCarloBot bot = mctsBot(1, MonteCarloBot.Parallelism.TREE, timeLimitMs);
+        bot.usePriors = priors;
+        return bot;
+    }
+
+    /**
+     * Returns random moving phase positions in which BLUE, to move, has 3 pieces and flies.
+     */
+    static MorrisState[] flyingPositions(int count, SplittableRandom random) {
+        MorrisState[] positions = new MorrisState[count];
+        for (int i = 0; i < count; i++) {
+            MorrisState state;
+            do {
+                state = new MorrisState(false);
+                state.placed[0] = state.requiredPieces;
+                state.placed[1] = state.requiredPieces;
+                state.phase = 1;
+                int[] pieceCounts = {3, 3 + random.nextInt(5)};
+                for (int player = 0; player < 2; player++) {
+                    while (Integer.bitCount(state.pieces[player]) < pieceCounts[player]) {
+                        int position = random.nextInt(24);
+                        if ((state.empty() >> position & 1) != 0) {
+                            state.pieces[player] |= 1 << position;
+                        }
+                    }
+                }
+            } while (state.loser() != -1);
+            positions[i] = state;
+        }
+        return positions;
+    }
+
+    private static MonteCarloBot raveBot(boolean rave, long maxIterations) {
+        MonteCarloBot bot = mctsBot(1, MonteCarloBot.Parallelism.TREE, maxIterations == Long.MAX_VALUE ? 200 : 60_000);
+        bot.useRave = rave;
+        bot.maxIterations = maxIterations;
+        return bot;
+    }
+
+    private static int silentMove(Game game, Bot bot) {
+        System.setOut(SILENT);
+        try {
+            return botMove(game, bot);
+        } finally {
+            System.setOut(OUT);
+        }
+    }
+
+    /**
+     * Runs the forward pass of a random network over net inputs of random positions for the given time per
+     * kernel, after a warm-up second each, switching kernels every second so both see the same JIT and machine
+     * state, and reports the throughput. The vector-kernels check compares the outputs.
+     */
+    private static void nnForward(int seconds) {
+        NeuralNetwork net = new NeuralNetwork();
+        net.initNet();
+        int[][] inputs = netInputs(256, new SplittableRandom(42));
+        double[] out = new double[inputs.length];
+        boolean[] kernels = NetKernels.VECTOR_API_AVAILABLE ? new boolean[]{false, true} : new boolean[]{false};
+        long[] counts = new long[2];
+        long[] nanos = new long[2];
+        for (int round = -1; round < seconds; round++) {
+            for (boolean vectorized : kernels) {
+                NetKernels.vectorized = vectorized;
+                long count = 0;
+                long start = System.nanoTime();
+                for (long end = start + 1_000_000_000L; System.nanoTime() < end; count++) {
+                    int i = (int) (count % inputs.length);
+                    out[i] = net.forward(inputs[i]);
+                }
+                if (round >= 0) {
+                    counts[vectorized ? 1 : 0] += count;
+                    nanos[vectorized ? 1 : 0] += System.nanoTime() - start;
+                }
+            }
+        }
+        for (boolean vectorized : kernels) {
+            int k = vectorized ? 1 : 0;
+            OUT.printf("%-7s %.0f forward passes/s%n", vectorized ? "vector" : "scalar", counts[k] / (nanos[k] / 1e9));
+        }
+        NetKernels.vectorized = NetKernels.VECTORIZED_BY_DEFAULT;
+        if (kernels.length == 1) {
+            OUT.println("Vector API not available, start with --add-modules jdk.incubator.vector");
+        }
+    }
+
+    /**
+     * Converts a text network into temporary binary files, then loads each file for a second (after a warm-up
+     * second) and reports the file sizes and the load times. The net-file check compares the outputs.
+     */
+    private static void nnLoad(String textFile) {
+        try {
+            Path text = Paths.get(textFile);
+            NetWeights reference = NetWeights.parse(Files.readAllLines(text));
+            Path float64 = Files.createTempFile("net", ".bin");
+            Path float32 = Files.createTempFile("net", ".bin");
+            try {
+                NetFile.write(float64, reference, false);
+                NetFile.write(float32, reference, true);
+                for (Path file : new Path[]{text, float64, float32}) {
+                    Callable<NetWeights> load = file == text ? () -> NetWeights.parse(Files.readAllLines(text))
+                            : () -> NetFile.read(file);
+                    long count = 0;
+                    long start = 0;
+                    for (long end = System.nanoTime() + 2_000_000_000L; System.nanoTime() < end; count++) {
+                        if (start == 0 && System.nanoTime() > end - 1_000_000_000L) {   // first second is the warm-up
+                            start = System.nanoTime();
+                            count = 0;
+                        }
+                        load.call();
+                    }
+                    OUT.printf("%-7s %6d bytes, %7.1f us per load%n",
+                            file == text ? "text" : file == float64 ? "float64" : "float32", Files.size(file),
+                            (System.nanoTime() - start) / 1e3 / count);
+                }
+            } finally {
+                Files.deleteIfExists(float64);
+                Files.deleteIfExists(float32);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Evaluates random positions in each precision for the given time and reports the forward passes per second.
+     * The quantization check compares the outputs and choices with the double network.
+     */
+    private static void nnQuant(int seconds, String file) {
+        int[][] inputs = netInputs(1000, new SplittableRandom(7));
+        for (NetPrecision precision : NetPrecision.values()) {
+            NetModel net = NetRegistry.get(file, precision);
+            double[] out = new double[inputs.length];
+            long count = 0;
+            long start = System.nanoTime();
+            for (long end = start + seconds * 1_000_000_000L; System.nanoTime() < end; count += inputs.length) {
+                net.forwardBatch(inputs, out);
+            }
+            OUT.printf("%-7s %.0f forward passes/s%n", precision, count / ((System.nanoTime() - start) / 1e9));
+        }
+    }
+
+    /**
+     * Evaluates the successors of every turn of random positions in each precision, with one forwardBatch call per
+     * position and with an accumulator reset to the position, and reports the time per successor. The accumulator
+     * check compares the outputs.
+     */
+    private static void nnIncremental(int seconds, String file) {
+        MorrisState[] positions = Arrays.stream(MorrisState.randomPositions(500, new SplittableRandom(11)))
+                .filter(state -> state.loser() == -1).toArray(MorrisState[]::new);
+        int[][] parents = new int[positions.length][];
+        for (int p = 0; p < positions.length; p++) {
+            parents[p] = positions[p].netInput(positions[p].toMove);
+        }
+        int[][][] successors = successorInputs(positions);
+        long total = Arrays.stream(successors).mapToLong(choices -> choices.length).sum();
+
+        for (NetPrecision precision : NetPrecision.values()) {
+            NetModel net = NetRegistry.get(file, precision);
+            NetAccumulator accumulator = net.accumulator();
+            double[][] batched = new double[positions.length][];
+            double[][] incremental = new double[positions.length][];
+            for (int p = 0; p < positions.length; p++) {
+                batched[p] = new double[successors[p].length];
+                incremental[p] = new double[successors[p].length];
+            }
+            for (boolean useAccumulator : new boolean[]{false, true, false, true}) {   // first round is the warm-up
+                long evaluated = 0;
+                long start = System.nanoTime();
+                for (long end = start + seconds * 500_000_000L; System.nanoTime() < end; evaluated += total) {
+                    for (int p = 0; p < positions.length; p++) {
+                        if (useAccumulator) {
+                            accumulator.reset(parents[p]);
+                            for (int t = 0; t < successors[p].length; t++) {
+                                incremental[p][t] = accumulator.evaluate(successors[p][t]);
+                            }
+                        } else {
+                            net.forwardBatch(successors[p], batched[p]);
+                        }
+                    }
+                }
+                OUT.printf("%-7s %-12s %.0f ns per successor%n", precision, useAccumulator ? "incremental:" : "batch:",
+                        (System.nanoTime() - start) / (double) evaluated);
+            }
+        }
+    }
+
+    /**
+     * Builds random networks of the current shape (25-50-1 sigmoid), a wider one, and smaller and deeper ones with
+     * clipped ReLU hidden layers, and runs each in every precision over random positions for the given time.
+     */
+    private static void nnLayers(int seconds) {
+        int[][] inputs = netInputs(1000, new SplittableRandom(7));
+        int in = inputs[0].length;
+        Activation sigmoid = Activation.SIGMOID;
+        Activation clipped = Activation.CLIPPED_RELU;
+        int[][] shapes = {{in, 50, 1}, {in, 128, 1}, {in, 32, 1}, {in, 64, 32, 1}};
+        Activation[][] layerActivations = {{sigmoid, sigmoid}, {sigmoid, sigmoid}, {clipped, sigmoid},
+                {clipped, clipped, sigmoid}};
+        int[][] calibration = netInputs(2000, new SplittableRandom(1));
+        for (int s = 0; s < shapes.length; s++) {
+            NetWeights net = NetWeights.random(shapes[s], layerActivations[s], 3);
+            NetModel[] models = {net, FloatNetWeights.of(net), QuantizedNetWeights.calibrate(net, calibration)};
+            StringBuilder line = new StringBuilder(String.format("%-14s %-36s",
+                    Arrays.stream(shapes[s]).mapToObj(String::valueOf).collect(Collectors.joining("-")), Arrays.toString(layerActivations[s])));
+            double[] out = new double[inputs.length];
+            for (int m = 0; m < models.length; m++) {
+                long count = 0;
+                long start = 0;
+                for (int round = 0; round < 2; round++) {   // first round is the warm-up
+                    count = 0;
+                    start = System.nanoTime();
+                    for (long end = start + seconds * 1_000_000_000L; System.nanoTime() < end; count += inputs.length) {
+                        models[m].forwardBatch(inputs, out);
+                    }
+                }
+                line.append(String.format(" %s %.2fM/s", NetPrecision.values()[m],
+                        count / ((System.nanoTime() - start) / 1e3)));
+            }
+            OUT.println(line);
+        }
+    }
+
+    /**
+     * Builds random 25-50-1 board and 78-50-1 feature networks and evaluates random positions with each, in every
+     * precision, for the given time after a warm-up. Also reports the average number of active features. The
+     * sparse-features check compares the outputs with the dense pass over the same features.
+     */
+    private static void nnFeatures(int seconds) {
+        MorrisState[] positions = MorrisState.randomPositions(1000, new SplittableRandom(7));
+        Activation[] sigmoid = {Activation.SIGMOID, Activation.SIGMOID};
+        int[][] calibration = netInputs(2000, new SplittableRandom(1));
+        int[][] featureCalibration = new int[calibration.length][];
+        int[] active = new int[NetFeatures.MAX_ACTIVE];
+        MorrisState[] calibrationPositions = MorrisState.randomPositions(calibration.length, new SplittableRandom(1));
+        for (int i = 0; i < calibration.length; i++) {
+            MorrisState state = calibrationPositions[i];
+            featureCalibration[i] = NetFeatures.dense(active, NetFeatures.extract(state, state.toMove, active));
+        }
+        NetWeights board = NetWeights.random(new int[]{calibration[0].length, 50, 1}, sigmoid, 3);
+        NetWeights features = NetWeights.random(new int[]{NetFeatures.COUNT, 50, 1}, sigmoid, 3);
+        NetModel[] boardModels = {board, FloatNetWeights.of(board), QuantizedNetWeights.calibrate(board, calibration)};
+        NetModel[] featureModels = {features, FloatNetWeights.of(features),
+                QuantizedNetWeights.calibrate(features, featureCalibration)};
+
+        long activeTotal = 0;
+        for (MorrisState state : positions) {
+            activeTotal += NetFeatures.extract(state, state.toMove, active);
+        }
+        OUT.printf("%.1f active features per position on average%n", activeTotal / (double) positions.length);
+        for (int m = 0; m < boardModels.length; m++) {
+            StringBuilder line = new StringBuilder(String.format("%-7s", NetPrecision.values()[m]));
+            double[] out = new double[positions.length];
+            for (boolean sparse : new boolean[]{false, true}) {
+                NetModel net = sparse ? featureModels[m] : boardModels[m];
+                long count = 0;
+                long start = 0;
+                for (int round = 0; round < 2; round++) {   // first round is the warm-up
+                    count = 0;
+                    start = System.nanoTime();
+                    for (long end = start + seconds * 1_000_000_000L; System.nanoTime() < end; count++) {
+                        int i = (int) (count % positions.length);
+                        MorrisState state = positions[i];
+                        out[i] = sparse ? net.forwardFeatures(active, NetFeatures.extract(state, state.toMove, active))
+                                : net.forward(state.netInput(state.toMove));
+                    }
+                }
+                line.append(String.format(sparse ? ", %s %.0f ns" : " %s %.0f ns", sparse ? "features" : "board",
+                        (System.nanoTime() - start) / (double) count));
+            }
+            OUT.println(line);
+        }
+    }
+
+    /**
+     * Plays random games and lets each evaluator work through their positions in order, once without and once with
+     * a cache (after a warm-up round of both): AlphaBetaBot searches the placements to depth 1 to 5 like its
+     * iterative deepening, MonteCarloBot decides the moving phase positions with 5000 iterations each, and EasyBot
+     * chooses a move in every position, so consecutive decisions share successors. The rollout-eval-cache and
+     * search-eval-cache checks compare the decisions.
+     */
+    private static void evalCache(int games) {
+        List<MorrisState> line = randomGames(games);
+        MorrisState[] placements = line.stream().filter(state -> state.phase == 0).toArray(MorrisState[]::new);
+        MorrisState[] moves = line.stream().filter(state -> state.actionType() == MorrisState.SELECT)
+                .toArray(MorrisState[]::new);
+        OUT.printf("%d positions from %d games: %d placements, %d moves%n", line.size(), games, placements.length,
+                moves.length);
+
+        System.setOut(SILENT);
+        try {
+            for (boolean measure : new boolean[]{false, true}) {   // first round is the warm-up
+                for (boolean cached : new boolean[]{false, true}) {
+                    AlphaBetaBot alphaBeta = new AlphaBetaBot();
+                    alphaBeta.evalCache = cached ? new EvalCache() : null;
+                    long start = System.nanoTime();
+                    for (MorrisState position : placements) {
+                        GameState state = new GameState(position.toGame());
+                        for (int depth = 1; depth <= 5; depth++) {
+                            alphaBeta.placePiece_limited_alphabeta_search(state, depth);
+                        }
+                    }
+                    report(measure, "AlphaBetaBot", cached, start, placements.length, alphaBeta.evalCache);
+
+                    MonteCarloBot monteCarlo = mctsBot(1, MonteCarloBot.Parallelism.TREE, 60_000);
+                    monteCarlo.maxIterations = 5000;
+                    monteCarlo.evalCache = cached ? new EvalCache() : null;
+                    start = System.nanoTime();
+                    for (MorrisState position : moves) {
+                        botMove(position.toGame(), monteCarlo);
+                    }
+                    report(measure, "MonteCarloBot", cached, start, moves.length, monteCarlo.evalCache);
+
+                    EasyBot easy = new EasyBot();
+                    easy.evalCache = cached ? new EvalCache() : null;
+                    start = System.nanoTime();
+                    for (MorrisState position : line) {
+                        botMove(position.toGame(), easy);
+                    }
+                    report(measure, "EasyBot", cached, start, line.size(), easy.evalCache);
+                }
+            }
+        } finally {
+            System.setOut(OUT);
+        }
+    }
+
+    /**
+     * Runs AlphaBetaBot placement searches to depth 1 to 4 and MonteCarloBot moving phase decisions with 2000
+     * iterations each along random games, with every evaluator (null for the built-in heuristics), after a
+     * warm-up round. The evaluation cost is the time spent in the evaluator per searched node or iteration.
+     */
+    private static void evaluators(int games, String file) {
+        List<MorrisState> line = randomGames(games);
+        MorrisState[] placements = line.stream().filter(state -> state.phase == 0).toArray(MorrisState[]::new);
+        MorrisState[] moves = line.stream().filter(state -> state.actionType() == MorrisState.SELECT)
+                .toArray(MorrisState[]::new);
+        OUT.printf("%d placements and %d moves from %d games%n", placements.length, moves.length, games);
+
+        List<String> names = new ArrayList<>(List.of("heuristics", "lines", "rollout"));
+        List<Evaluator> evaluators = new ArrayList<>(Arrays.asList(null, Evaluators.lines(), Evaluators.rollout()));
+        for (NetPrecision precision : NetPrecision.values()) {
+            names.add("net " + precision.name().toLowerCase());
+            evaluators.add(new NetEvaluator(NetRegistry.get(file, precision)));
+        }
+
+        System.setOut(SILENT);
+        try {
+            for (boolean measure : new boolean[]{false, true}) {   // first round is the warm-up
+                for (int e = 0; e < evaluators.size(); e++) {
+                    for (boolean batch : new boolean[]{false, true}) {
+                        if (batch && evaluators.get(e) == null) {
+                            continue;
+                        }
+                        AlphaBetaBot alphaBeta = new AlphaBetaBot();
+                        alphaBeta.evaluator = evaluators.get(e);
+                        alphaBeta.batchLeaves = batch;
+                        long nodes = 0;
+                        long evaluations = 0;
+                        long evaluationNanos = 0;
+                        long start = System.nanoTime();
+                        for (MorrisState position : placements) {
+                            GameState state = new GameState(position.toGame());
+                            for (int depth = 1; depth <= 4; depth++) {
+                                alphaBeta.placePiece_limited_alphabeta_search(state, depth);
+                                nodes += alphaBeta.searchedNodes;
+                                evaluations += alphaBeta.evaluations;
+                                evaluationNanos += alphaBeta.evaluationNanos;
+                            }
+                        }
+                        if (measure) {
+                            OUT.printf("AlphaBetaBot  %-11s %-9s %8.1f us per decision, %6.0f nodes, %s%n",
+                                    names.get(e), batch ? "batched:" : "single:",
+                                    (System.nanoTime() - start) / 1e3 / placements.length,
+                                    (double) nodes / placements.length, evaluationCost(evaluations, evaluationNanos,
+                                            nodes, "node"));
+                        }
+                    }
+                }
+                for (int e = 0; e < evaluators.size(); e++) {
+                    MonteCarloBot monteCarlo = mctsBot(1, MonteCarloBot.Parallelism.TREE, 60_000);
+                    monteCarlo.maxIterations = 2000;
+                    monteCarlo.evaluator = evaluators.get(e);
+                    long iterations = 0;
+                    long evaluations = 0;
+                    long evaluationNanos = 0;
+                    long start = System.nanoTime();
+                    for (MorrisState position : moves) {
+                        botMove(position.toGame(), monteCarlo);
+                        iterations += monteCarlo.iterations;
+                        evaluations += monteCarlo.evaluations;
+                        evaluationNanos += monteCarlo.evaluationNanos;
+                    }
+                    if (measure) {
+                        OUT.printf("MonteCarloBot %-11s %-9s %8.1f us per decision, %6.0f iterations, %s%n",
+                                names.get(e), "", (System.nanoTime() - start) / 1e3 / moves.length,
+                                (double) iterations / moves.length, evaluationCost(evaluations, evaluationNanos,
+                                        iterations, "iteration"));
+                    }
+                }
+            }
+        } finally {
+            System.setOut(OUT);
+        }
+    }
+
+    private static String evaluationCost(long evaluations, long evaluationNanos, long nodes, String node) {
+        if (evaluations == 0) {
+            return "built-in evaluation";
+        }
+        return String.format("%.2f evaluations and %.0f ns of evaluation per %s (%.0f ns each)",
+                (double) evaluations / nodes, (double) evaluationNanos / nodes, node,
+                (double) evaluationNanos / evaluations);
+    }
+
+    /**
+     * Returns the positions of random games from the start, at most 120 plies each, in the order they were played.
+     */
+    private static List<MorrisState> randomGames(int games) {
+        SplittableRandom random = new SplittableRandom(5);
+        List<MorrisState> line = new ArrayList<>();
+        int[] actions = new int[MorrisState.MAX_ACTIONS];
+        for (int game = 0; game < games; game++) {
+            MorrisState state = new MorrisState(false);
+            for (int ply = 0; ply < 120 && state.loser() == -1; ply++) {
+                MorrisState position = new MorrisState(false);
+                position.copyFrom(state);
+                line.add(position);
+                state.apply(actions[random.nextInt(state.actions(actions))]);
+            }
+        }
+        return line;
+    }
+
+    private static void report(boolean measure, String bot, boolean cached, long start, int decisions,
+                               EvalCache cache) {
+        if (measure) {
+            OUT.printf("%-13s %-8s %8.1f us per decision%s%n", bot, cached ? "cached:" : "plain:",
+                    (System.nanoTime() - start) / 1e3 / decisions, cache == null ? "" : ", " + cache);
+        }
+    }
+
+    /**
+     * Returns the net inputs of the positions after every turn of each given position, for the player who moved.
+     */
+    static int[][][] successorInputs(MorrisState[] positions) {
+        int[][][] successors = new int[positions.length][][];
+        int[] turns = new int[MorrisState.MAX_TURNS];
+        MorrisState next = new MorrisState(false);
+        for (int p = 0; p < positions.length; p++) {
+            int count = positions[p].turns(turns);
+            successors[p] = new int[count][];
+            for (int t = 0; t < count; t++) {
+                next.copyFrom(positions[p]);
+                next.applyTurn(turns[t]);
+                successors[p][t] = next.netInput(positions[p].toMove);
+            }
+        }
+        return successors;
+    }
+
+    /**
+     * Returns the net inputs (board values 0/1/2 and the player to move) of random positions.
+     */
+    static int[][] netInputs(int count, SplittableRandom random) {
+        MorrisState[] positions = MorrisState.randomPositions(count, random);
+        int[][] inputs = new int[count][];
+        for (int i = 0; i < count; i++) {
+            inputs[i] = positions[i].netInput(positions[i].toMove);
+        }
+        return inputs;
+    }
+
+    private static MonteCarloBot mctsBot(int threads, MonteCarloBot.Parallelism parallelism, long timeLimitMs) {
+        MonteCarloBot bot = new MonteCarloBot();
+        bot.threads = threads;
+        bot.parallelism = parallelism;
+        bot.timeLimitMs = timeLimitMs;
+        return bot;
+    }
+
+    /**
+     * Lets a fresh MonteCarloBot decide every position and returns the iterations per second.
+     */
+    private static double searchPositions(MorrisState[] positions, int threads, MonteCarloBot.Parallelism parallelism,
+                                          long timePerPosition) {
+        MonteCarloBot bot = mctsBot(threads, parallelism, timePerPosition);
+        bot.timeLimitMs = timePerPosition;
+        long iterations = 0;
+        long start = System.nanoTime();
+        System.setOut(SILENT);
+        try {
+            for (MorrisState position : positions) {
+                botMove(position.toGame(), bot);
+                iterations += bot.iterations;
+            }
+        } finally {
+            System.setOut(OUT);
+        }
+        return iterations / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Plays a match of the given number of games, swapping colours every game.
+     */
+    static void playMatch(Contestant a, Contestant b, int games) {
+        Random random = new Random(42);
+        for (int i = 0; i < games; i++) {
+            long seed = random.nextLong();
+            Contestant blue = i % 2 == 0 ? a : b;
+            Contestant red = i % 2 == 0 ? b : a;
+            Player loser = playGame(blue, red, seed);
+            if (loser == null) {
+                blue.points += 0.5;
+                red.points += 0.5;
+            } else {
+                (loser == Player.BLUE ? red : blue).points += 1;
+            }
+            OUT.println("Game " + (i + 1) + ": " + blue.name + " (BLUE) vs " + red.name + " (RED) -> "
+                    + (loser == null ? "draw" : loser.opponent() + " wins"));
+        }
+        a.report();
+        b.report();
+    }
+
+    /**
+     * Plays one game between two contestants.
+     *
+     * @return the losing player, or null for a draw
+     */
+    static Player playGame(Contestant blue, Contestant red, long seed) {
+        Game game = new Game();
+        game.blue = blue.factory.get();
+        game.red = red.factory.get();
+        Random random = new Random(seed);
+
+        System.setOut(SILENT);
+        try {
+            int plies = 0;
+            int invalidMoves = 0;
+            while (!game.isOver() && plies < MAX_PLIES && invalidMoves < 10) {
+                List<Integer> validMoves = game.getValidMoves();
+                int position;
+                if (plies < RANDOM_OPENING_PLIES && game.getPhase() == 0) {
+                    position = validMoves.get(random.nextInt(validMoves.size()));
+                } else {
+                    Contestant contestant = game.getCurrentPlayer() == Player.BLUE ? blue : red;
+                    long start = System.nanoTime();
+                    position = botMove(game, game.getCurrentBot());
+                    long nanos = System.nanoTime() - start;
+                    contestant.thinkNanos += nanos;
+                    contestant.decisions++;
+                    if (game.getPhase() != 0) {
+                        contestant.movingNanos += nanos;
+                        contestant.movingDecisions++;
+                    }
+                }
+                if (validMoves.contains(position)) {
+                    game.makeMove(position);
+                    invalidMoves = 0;
+                    plies++;
+                } else {
+                    invalidMoves++;
+                }
+            }
+            if (invalidMoves >= 10) {
+                return game.getCurrentPlayer();
+            }
+            return game.gameOver ? game.loser : null;
+        } finally {
+            System.setOut(OUT);
+        }
+    }
+
+    static int botMove(Game game, Bot bot) {
+        return switch (game.getPhase()) {
+            case 0 -> bot.placePiece(game);
+            case 1, 2 -> game.getSelectedPiece() == -1 ? bot.selectPiece(game) : bot.determineMove(game, game.getSelectedPiece());
+            default -> bot.determinePieceToDelete(game);
+        };
+    }
+
+    /**
+     * A named bot configuration with its accumulated score and thinking time.
+     */
+    static class Contestant {
+        final String name;
+        final Supplier<Bot> factory;
+        double points = 0;
+        long thinkNanos = 0;
+        long decisions = 0;
+        long movingNanos = 0;        // the part of thinkNanos spent after the placement phase
+        long movingDecisions = 0;
+
+        Contestant(String name, Supplier<Bot> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        void report() {
+            double seconds = thinkNanos / 1e9;
+            double movingSeconds = movingNanos / 1e9;
+            OUT.printf("%-12s points %.1f, thinking time %.1f s over %d decisions (%.1f ms each), %.3f points per second%n",
+                    name, points, seconds, decisions, decisions == 0 ? 0 : seconds * 1000 / decisions,
+                    seconds == 0 ? 0 : points / seconds);
+            OUT.printf("%-12s moving phase %.1f s over %d decisions (%.1f ms each), %.3f points per second%n",
+                    "", movingSeconds, movingDecisions,
+                    movingDecisions == 0 ? 0 : movingSeconds * 1000 / movingDecisions,
+                    movingSeconds == 0 ? 0 : points / movingSeconds);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package groupXX.bot;
+
+import groupXX.GameBoard;
+import groupXX.GameBoardFactory;
+import groupXX.Player;
+
+/**
+ * Bitboard helpers. A set of board positions is stored in an int with bit i set for position i,
+ * so one player's pieces fit in 24 bits and set operations become single instructions.
+ */
+public final class Bitboards {
+
+    /** All 24 board positions. */
+    public static final int FULL = (1 << 24) - 1;
+
+    private static final int[] NINE_ADJACENCY = adjacencyOf(GameBoardFactory.get(false));
+    private static final int[] TWELVE_ADJACENCY = adjacencyOf(GameBoardFactory.get(true));
+    private static final int[] NINE_LINES = lineMasksOf(AlphaBetaBot.get(false));
+    private static final int[] TWELVE_LINES = lineMasksOf(AlphaBetaBot.get(true));
+
+    private Bitboards() {
+    }
+
+    /**
+     * Returns the neighbours of every position as bitboards, indexed by position.
+     */
+    public static int[] adjacency(boolean in12MenVersion) {
+        return in12MenVersion ? TWELVE_ADJACENCY : NINE_ADJACENCY;
+    }
+
+    /**
+     * Returns every mill line as a bitboard with its three positions set.
+     */
+    public static int[] lineMasks(boolean in12MenVersion) {
+        return in12MenVersion ? TWELVE_LINES : NINE_LINES;
+    }
+
+    private static int[] adjacencyOf(GameBoard board) {
+        int[] result = new int[24];
+        for (int position = 0; position < 24; position++) {
+            for (int neighbour : board.getNeighbors(position)) {
+                result[position] |= 1 << neighbour;
+            }
+        }
+        return result;
+    }
+
+    private static int[] lineMasksOf(int[][] paths) {
+        int[] result = new int[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            result[i] = 1 << paths[i][0] | 1 << paths[i][1] | 1 << paths[i][2];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bitboard of the positions occupied by the given player (or of the empty positions for null).
+     */
+    public static int mask(Player[] boardPositions, Player player) {
+        int mask = 0;
+        for (int i = 0; i < boardPositions.length; i++) {
+            if (boardPositions[i] == player) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+}
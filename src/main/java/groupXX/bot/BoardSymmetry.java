@@ -0,0 +1,113 @@
+package groupXX.bot;
+
+import groupXX.Player;
+
+/**
+ * The BoardSymmetry class describes the 16 symmetries of the Morris board (the 8 rotations/reflections of the
+ * square combined with swapping the outer and inner ring) and uses them to reduce positions to a canonical key.
+ * The symmetries preserve both adjacency and mill lines on the Nine and the Twelve Men's Morris board.
+ */
+public final class BoardSymmetry {
+
+    /** Number of board symmetries. */
+    public static final int COUNT = 16;
+
+    // Ring (0 = outer, 1 = middle, 2 = inner), column and row of every position on its ring
+    private static final int[][] COORDINATES = {
+            {0, 0, 0}, {0, 1, 0}, {0, 2, 0},
+            {1, 0, 0}, {1, 1, 0}, {1, 2, 0},
+            {2, 0, 0}, {2, 1, 0}, {2, 2, 0},
+            {0, 0, 1}, {1, 0, 1}, {2, 0, 1},
+            {2, 2, 1}, {1, 2, 1}, {0, 2, 1},
+            {2, 0, 2}, {2, 1, 2}, {2, 2, 2},
+            {1, 0, 2}, {1, 1, 2}, {1, 2, 2},
+            {0, 0, 2}, {0, 1, 2}, {0, 2, 2}
+    };
+
+    /** PERMUTATIONS[s][i] is the position that position i is mapped to by symmetry s. */
+    static final int[][] PERMUTATIONS = new int[COUNT][24];
+
+    /** INVERSES[s][i] is the position that is mapped to position i by symmetry s. */
+    static final int[][] INVERSES = new int[COUNT][24];
+
+    static {
+        for (int s = 0; s < COUNT; s++) {
+            for (int i = 0; i < 24; i++) {
+                int ring = COORDINATES[i][0];
+                int x = COORDINATES[i][1];
+                int y = COORDINATES[i][2];
+                // Bit 0: mirror left/right, bit 1: mirror top/bottom, bit 2: transpose, bit 3: swap rings
+                if ((s & 1) != 0) x = 2 - x;
+                if ((s & 2) != 0) y = 2 - y;
+                if ((s & 4) != 0) {
+                    int t = x;
+                    x = y;
+                    y = t;
+                }
+                if ((s & 8) != 0) ring = 2 - ring;
+                int target = indexOf(ring, x, y);
+                PERMUTATIONS[s][i] = target;
+                INVERSES[s][target] = i;
+            }
+        }
+    }
+
+    private BoardSymmetry() {
+    }
+
+    private static int indexOf(int ring, int x, int y) {
+        for (int i = 0; i < 24; i++) {
+            if (COORDINATES[i][0] == ring && COORDINATES[i][1] == x && COORDINATES[i][2] == y) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No position at ring " + ring + " (" + x + "," + y + ")");
+    }
+
+    /**
+     * Applies a symmetry to a 24-bit position mask.
+     *
+     * @param mask a bit mask with bit i set for every occupied position i
+     * @param symmetry the symmetry index (0 is the identity)
+     * @return the transformed mask
+     */
+    public static int transform(int mask, int symmetry) {
+        int[] permutation = PERMUTATIONS[symmetry];
+        int result = 0;
+        while (mask != 0) {
+            int position = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            result |= 1 << permutation[position];
+        }
+        return result;
+    }
+
+    /**
+     * Packs a placing phase position into a key: blue mask, red mask, placed piece counts and the side to move.
+     */
+    public static long packKey(int blueMask, int redMask, int placedBlue, int placedRed, Player toMove) {
+        return (blueMask & 0xFFFFFFL)
+                | (redMask & 0xFFFFFFL) << 24
+                | (long) (placedBlue & 0xF) << 48
+                | (long) (placedRed & 0xF) << 52
+                | (toMove == Player.RED ? 1L : 0L) << 56;
+    }
+
+    /**
+     * Computes the smallest key over all symmetric variants of the position.
+     *
+     * @return a two element array: the canonical key and the symmetry that produced it
+     */
+    public static long[] canonicalKey(int blueMask, int redMask, int placedBlue, int placedRed, Player toMove) {
+        long best = Long.MAX_VALUE;
+        int bestSymmetry = 0;
+        for (int s = 0; s < COUNT; s++) {
+            long key = packKey(transform(blueMask, s), transform(redMask, s), placedBlue, placedRed, toMove);
+            if (key < best) {
+                best = key;
+                bestSymmetry = s;
+            }
+        }
+        return new long[]{best, bestSymmetry};
+    }
+}
@@ -0,0 +1,84 @@
+package groupXX.bot;
+
+/**
+ * CachedNetModel evaluates inputs with a network and keeps the outputs in an {@link EvalCache}, keyed by the
+ * {@link Zobrist#key(int[])} of the input. Only the inputs that are not in the cache go through the network; its
+ * accumulator evaluates the missing successors incrementally as before.
+ *
+ * The cache must belong to this network alone. A network that trains, like the weights of a {@link NetBase},
+ * needs a {@link EvalCache#clear()} whenever its weights change.
+ */
+public final class CachedNetModel implements NetModel {
+    final NetModel net;
+    final EvalCache cache;
+
+    /**
+     * @param net The network
+     * @param cache The cache of its outputs
+     */
+    public CachedNetModel(NetModel net, EvalCache cache) {
+        this.net = net;
+        this.cache = cache;
+    }
+
+    @Override
+    public double forward(int[] input) {
+        long key = Zobrist.key(input);
+        double output = cache.probe(key);
+        if (Double.isNaN(output)) {
+            output = net.forward(input);
+            cache.store(key, output);
+        }
+        return output;
+    }
+
+    @Override
+    public void forwardBatch(int[][] inputs, double[] out) {
+        for (int i = 0; i < inputs.length; i++) {
+            out[i] = forward(inputs[i]);
+        }
+    }
+
+    @Override
+    public double forwardFeatures(int[] active, int count) {
+        long key = Zobrist.featureKey(active, count);
+        double output = cache.probe(key);
+        if (Double.isNaN(output)) {
+            output = net.forwardFeatures(active, count);
+            cache.store(key, output);
+        }
+        return output;
+    }
+
+    @Override
+    public NetAccumulator accumulator() {
+        NetAccumulator accumulator = net.accumulator();
+        return new NetAccumulator() {
+            @Override
+            public void reset(int[] input) {
+                accumulator.reset(input);
+            }
+
+            @Override
+            public void set(int index, int value) {
+                accumulator.set(index, value);
+            }
+
+            @Override
+            public double evaluate() {
+                return accumulator.evaluate();
+            }
+
+            @Override
+            public double evaluate(int[] input) {
+                long key = Zobrist.key(input);
+                double output = cache.probe(key);
+                if (Double.isNaN(output)) {
+                    output = accumulator.evaluate(input);
+                    cache.store(key, output);
+                }
+                return output;
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package groupXX.bot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks runs the correctness checks of the bots from the command line. Unlike {@link Benchmark}, which only
+ * measures, every check compares a fast implementation with a reference on random positions and fails on the
+ * first wrong result.
+ *
+ * Usage: {@code Checks [check ...]} runs the named checks, or all of them, and exits with status 1 if any failed.
+ */
+public final class Checks {
+    private static final Map<String, Runnable> CHECKS = new LinkedHashMap<>();
+
+    static {
+        CHECKS.put("line-tables", HeuristicChecks::lineTables);
+        CHECKS.put("game-end", RuleChecks::gameEnd);
+        CHECKS.put("proof-draws", SearchChecks::proofDraws);
+        CHECKS.put("rollout-eval-cache", SearchChecks::rolloutEvalCache);
+        CHECKS.put("search-eval-cache", SearchChecks::searchEvalCache);
+        CHECKS.put("node-pool-compaction", SearchChecks::nodePoolCompaction);
+        CHECKS.put("vector-kernels", NetChecks::vectorKernels);
+        CHECKS.put("net-file", NetChecks::netFile);
+        CHECKS.put("quantization", NetChecks::quantization);
+        CHECKS.put("accumulator", NetChecks::accumulator);
+        CHECKS.put("layer-shapes", NetChecks::layerShapes);
+        CHECKS.put("sparse-features", NetChecks::sparseFeatures);
+    }
+
+    private Checks() {
+    }
+
+    public static void main(String[] args) {
+        List<String> names = args.length == 0 ? new ArrayList<>(CHECKS.keySet()) : List.of(args);
+        int failed = 0;
+        for (String name : names) {
+            Runnable check = CHECKS.get(name);
+            if (check == null) {
+                System.out.println("FAIL " + name + ": unknown check, one of " + CHECKS.keySet());
+                failed++;
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                check.run();
+                System.out.printf("PASS %s (%.1f s)%n", name, (System.nanoTime() - start) / 1e9);
+            } catch (AssertionError | RuntimeException e) {
+                System.out.println("FAIL " + name + ": " + e.getMessage());
+                failed++;
+            }
+        }
+        System.out.println((names.size() - failed) + " of " + names.size() + " checks passed");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Fails the running check with the given message unless the condition holds.
+     */
+    static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
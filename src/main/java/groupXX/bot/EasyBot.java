@@ -1,7 +1,7 @@
 package groupXX.bot;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 
@@ -25,15 +25,13 @@ public class EasyBot implements Bot {
   private List<EvaluationResult> evaluations;
 
   private static final String FILE_NAME = getFileName();
-  private static final List<String> FILE_CONTENT;
 
-  static {
-    try {
-      FILE_CONTENT = Files.readAllLines(Paths.get(FILE_NAME), StandardCharsets.UTF_8);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
-  }
+  /** Number format of the network evaluation; the networks are loaded once and shared by all EasyBots. */
+  public NetPrecision precision = NetPrecision.DOUBLE;
+
+  /** Network outputs of the positions this bot evaluated, kept between turns; null evaluates every position. */
+  public EvalCache evalCache = new EvalCache();
+  private CachedNetModel cachedNet;
 
   private GameOri copyGame(Game game) {
     GameOri gameOri = new GameOri();
@@ -52,16 +50,32 @@ public class EasyBot implements Bot {
     return gameOri;
   }
 
+  /**
+   * Returns the network of the current precision, behind the evaluation cache if there is one. The cache is
+   * cleared when the network or the cache changes, since its outputs belong to one network.
+   */
+  private NetModel net() {
+    NetModel net = NetRegistry.get(FILE_NAME, precision);
+    if (evalCache == null) {
+      return net;
+    }
+    if (cachedNet == null || cachedNet.net != net || cachedNet.cache != evalCache) {
+      evalCache.clear();
+      cachedNet = new CachedNetModel(net, evalCache);
+    }
+    return cachedNet;
+  }
+
   private static String getFileName() {
     // Define the nets directory
     Path netsDir = Paths.get("bestnet");
 
-    // Get the first .txt file in the nets directory
+    // Get the first network file in the nets directory, preferring converted binary files to text files
     try (Stream<Path> files = Files.list(netsDir)) {
       Path netFile = files
-        .filter(file -> file.toString().endsWith(".txt")) // Select only .txt files
-        .findFirst()  // Find the first matching file
-        .orElseThrow(() -> new IOException("No .txt file found in nets directory"));
+        .filter(file -> file.toString().endsWith(".bin") || file.toString().endsWith(".txt"))
+        .min(Comparator.comparing(file -> file.toString().endsWith(".txt"))) // .bin files sort first
+        .orElseThrow(() -> new IOException("No .bin or .txt file found in nets directory"));
 
       // Print the filename
       System.out.println("Loading network from file: " + netFile.getFileName());
@@ -82,11 +96,6 @@ public class EasyBot implements Bot {
    */
   @Override
   public int placePiece(Game game) {
-    // Create and load the neural network
-    NeuralNetwork myNet = new NeuralNetwork();
-    myNet.initNet(); // Initialize the neural network
-    myNet.loadNetFromLines(FILE_CONTENT); // Pass the file path as a string to loadNet method
-
     GameOri gameCurrent = copyGame(game);
     List<EvaluationResult> evaluations = new ArrayList<>(); // Store evaluation results
 
@@ -97,11 +106,12 @@ public class EasyBot implements Bot {
       if (gameNext.doActionPlace(position)) { // Try placing a piece at the current position
         System.arraycopy(gameNext.boardPositions, 0, gameNext.inputForNet, 0, 24); // Copy board positions
         gameNext.inputForNet[24] = gameCurrent.getCurrentPlayer(); // Set the current player
-        double evaluation = myNet.forward(gameNext.inputForNet); // Evaluate the game state using the neural network
-        evaluations.add(new EvaluationResult(gameNext, evaluation, 0, position, -99)); // Store the evaluation
+        evaluations.add(new EvaluationResult(gameNext, 0, 0, position, -99)); // Store the evaluation
       }
     }
 
+    EvaluationResult.evaluateAll(evaluations, gameCurrent, net()); // Evaluate all game states incrementally
+
     // Find the position with the maximum evaluation using a simple loop
     double maxEvaluation = Double.NEGATIVE_INFINITY; // Initialize to a very low value
     int bestPosition = -1; // Default to -1 if no valid positions are found
@@ -127,11 +137,6 @@ public class EasyBot implements Bot {
    */
   @Override
   public int selectPiece(Game game) {
-    // Create and load the neural network
-    NeuralNetwork myNet = new NeuralNetwork();
-    myNet.initNet(); // Initialize the neural network
-    myNet.loadNetFromLines(FILE_CONTENT); // Pass the file path as a string to loadNet method
-
     GameOri gameCurrent = copyGame(game);
     List<EvaluationResult> evaluations = new ArrayList<>(); // Store evaluation results
 
@@ -145,9 +150,8 @@ public class EasyBot implements Bot {
             if (gameNext.doActionFlyMove(sourcePosition, targetPosition)) { // Try moving or flying the piece
               System.arraycopy(gameNext.boardPositions, 0, gameNext.inputForNet, 0, 24); // Copy board positions
               gameNext.inputForNet[24] = gameCurrent.getCurrentPlayer(); // Set the current player
-              double evaluation = myNet.forward(gameNext.inputForNet); // Evaluate the game state using the neural network
 
-              evaluations.add(new EvaluationResult(gameNext, evaluation, gameCurrent.getPhase(), sourcePosition, targetPosition)); // Store the evaluation
+              evaluations.add(new EvaluationResult(gameNext, 0, gameCurrent.getPhase(), sourcePosition, targetPosition)); // Store the evaluation
 
             }
           }
@@ -156,6 +160,8 @@ public class EasyBot implements Bot {
       }
     }
 
+    EvaluationResult.evaluateAll(evaluations, gameCurrent, net()); // Evaluate all game states incrementally
+
     // Find the position with the maximum evaluation using a simple loop
     double maxEvaluation = Double.NEGATIVE_INFINITY; // Initialize to a very low value
     int bestPosition = -1; // Default to -1 if no valid positions are found
@@ -186,10 +192,6 @@ public class EasyBot implements Bot {
    */
   @Override
   public int determineMove(Game game, int selectedPiece) {
-    // Create and load the neural network
-    NeuralNetwork myNet = new NeuralNetwork();
-    myNet.initNet(); // Initialize the neural network
-    myNet.loadNetFromLines(FILE_CONTENT); // Pass the file path as a string to loadNet method
 
     GameOri gameCurrent = copyGame(game);
     List<EvaluationResult> evaluations = new ArrayList<>(); // Store evaluation results
@@ -202,14 +204,15 @@ public class EasyBot implements Bot {
           if (gameNext.doActionFlyMove(selectedPiece, targetPosition)) { // Try moving or flying the piece
             System.arraycopy(gameNext.boardPositions, 0, gameNext.inputForNet, 0, gameNext.boardPositions.length); // Copy board positions
             gameNext.inputForNet[24] = gameCurrent.getCurrentPlayer(); // Set the current player
-            double evaluation = myNet.forward(gameNext.inputForNet); // Evaluate the game state using the neural network
-            evaluations.add(new EvaluationResult(gameNext, evaluation, gameCurrent.getPhase(), selectedPiece, targetPosition)); // Store the evaluation
+            evaluations.add(new EvaluationResult(gameNext, 0, gameCurrent.getPhase(), selectedPiece, targetPosition)); // Store the evaluation
           }
         }
 
       }
     }
 
+    EvaluationResult.evaluateAll(evaluations, gameCurrent, net()); // Evaluate all game states incrementally
+
     // Find the position with the maximum evaluation using a simple loop
     double maxEvaluation = Double.NEGATIVE_INFINITY; // Initialize to a very low value
     int bestPosition = -1; // Default to -1 if no valid positions are found
@@ -234,11 +237,6 @@ public class EasyBot implements Bot {
    */
   @Override
   public int determinePieceToDelete(Game game) {
-    // Create and load the neural network
-    NeuralNetwork myNet = new NeuralNetwork();
-    myNet.initNet(); // Initialize the neural network
-    myNet.loadNetFromLines(FILE_CONTENT); // Pass the file path as a string to loadNet method
-
     GameOri gameCurrent = copyGame(game);
     List<EvaluationResult> evaluations = new ArrayList<>(); // Store evaluation results
 
@@ -249,11 +247,12 @@ public class EasyBot implements Bot {
       if (gameNext.doActionDelete(position)) { // Try placing a piece at the current position
         System.arraycopy(gameNext.boardPositions, 0, gameNext.inputForNet, 0, 24); // Copy board positions
         gameNext.inputForNet[24] = gameCurrent.getCurrentPlayer(); // Set the current player
-        double evaluation = myNet.forward(gameNext.inputForNet); // Evaluate the game state using the neural network
-        evaluations.add(new EvaluationResult(gameNext, evaluation, 0, position, -99)); // Store the evaluation
+        evaluations.add(new EvaluationResult(gameNext, 0, 0, position, -99)); // Store the evaluation
       }
     }
 
+    EvaluationResult.evaluateAll(evaluations, gameCurrent, net()); // Evaluate all game states incrementally
+
     // Find the position with the maximum evaluation using a simple loop
     double maxEvaluation = Double.NEGATIVE_INFINITY; // Initialize to a very low value
     int bestPosition = -1; // Default to -1 if no valid positions are found
@@ -0,0 +1,117 @@
+package groupXX.bot;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EvalCache remembers the scores of evaluated positions by their {@link Zobrist} key, so an evaluator that meets a
+ * position again (a sibling that reaches the same position, a repetition in the moving phase, the successors of
+ * the next turn) returns the stored score instead of evaluating it. It is a direct mapped table of two primitive
+ * arrays with a fixed number of entries, and a new entry simply replaces the old one in its slot.
+ *
+ * The cache takes no locks, so all search threads can share one. Each slot holds the key XOR the score bits and the
+ * score bits. A slot two threads write at the same time may end up with the key of one and the score of the other,
+ * but then the XOR no longer gives a key that is probed, so a torn entry reads as a miss instead of a wrong score.
+ * The hit and miss counters are LongAdders for the same reason.
+ *
+ * A cache belongs to one evaluator: scores of different evaluators, or of a network before and after training,
+ * must not share it without a {@link #clear()}.
+ */
+public final class EvalCache {
+    public static final int DEFAULT_BITS = 16;
+
+    private final long[] keys;     // key ^ score bits
+    private final long[] scores;   // Double.doubleToRawLongBits of the score
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EvalCache() {
+        this(DEFAULT_BITS);
+    }
+
+    /**
+     * @param bits The cache has 2^bits entries of 16 bytes
+     */
+    public EvalCache(int bits) {
+        if (bits < 0 || bits > 30) {
+            throw new IllegalArgumentException("Cache size 2^" + bits + " is out of range.");
+        }
+        keys = new long[1 << bits];
+        scores = new long[1 << bits];
+        mask = (1 << bits) - 1;
+    }
+
+    /**
+     * Returns the stored score of a position.
+     * @param key The Zobrist key of the position
+     * @return The score, or NaN if the position is not in the cache
+     */
+    public double probe(long key) {
+        int index = (int) key & mask;
+        long score = scores[index];
+        if ((keys[index] ^ score) == key && key != 0) {
+            hits.increment();
+            return Double.longBitsToDouble(score);
+        }
+        misses.increment();
+        return Double.NaN;
+    }
+
+    /**
+     * Stores the score of a position, replacing the entry in its slot.
+     * @param key The Zobrist key of the position
+     * @param score The score, not NaN
+     */
+    public void store(long key, double score) {
+        int index = (int) key & mask;
+        long bits = Double.doubleToRawLongBits(score);
+        scores[index] = bits;
+        keys[index] = key ^ bits;
+    }
+
+    /**
+     * Removes all entries and resets the counters.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(scores, 0);
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * @return The number of entries
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return The number of probes that found their position since the last clear
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of probes that did not find their position since the last clear
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The share of the probes that found their position, or 0 before the first probe
+     */
+    public double hitRate() {
+        long hits = hits();
+        long probes = hits + misses();
+        return probes == 0 ? 0 : hits / (double) probes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d entries, %d hits, %d misses (%.1f%%)", size(), hits(), misses(), 100 * hitRate());
+    }
+}
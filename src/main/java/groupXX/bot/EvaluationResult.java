@@ -1,5 +1,9 @@
 package groupXX.bot;
 
+import groupXX.GameOri;
+
+import java.util.List;
+
 /**
 * The EvaluationResult class represents the result of evaluating a game situation.
 * It contains the evaluation score, the associated game situation, and details about the action taken,
@@ -48,4 +52,27 @@ public class EvaluationResult {
     public double getEvaluation() {
         return evaluation;
     }
+
+    /**
+     * Evaluates the net inputs of the game situations of all results, which are successors of the same
+     * position, and stores the outputs as their evaluation scores. The hidden sums of the position are
+     * computed once, and every successor only adds the weight rows of the squares it changed.
+     *
+     * @param results the results to evaluate
+     * @param parent the position the results were reached from, with the player who moved to move
+     * @param net the network to evaluate them with
+     */
+    public static void evaluateAll(List<EvaluationResult> results, GameOri parent, NetModel net) {
+        if (results.isEmpty()) {
+            return;
+        }
+        int[] input = new int[25];
+        System.arraycopy(parent.boardPositions, 0, input, 0, 24);
+        input[24] = parent.getCurrentPlayer(); // the successors are evaluated for the player who moved
+        NetAccumulator accumulator = net.accumulator();
+        accumulator.reset(input);
+        for (EvaluationResult result : results) {
+            result.evaluation = accumulator.evaluate(result.gameSituation.inputForNet);
+        }
+    }
 }
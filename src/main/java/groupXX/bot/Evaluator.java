@@ -0,0 +1,54 @@
+package groupXX.bot;
+
+/**
+ * Evaluator scores positions for the search bots, so that {@link AlphaBetaBot} and {@link MonteCarloBot} can use
+ * the network as well as the heuristics (see {@link Evaluators} and {@link NetEvaluator}).
+ *
+ * A score is the expected result of the position for the given player, in [-1, 1]: 1 for a sure win and -1 for a
+ * sure loss, like the result of a MonteCarloBot rollout. AlphaBetaBot counts 1 like a closed mill line of its
+ * heuristics.
+ *
+ * The search calls {@link #beginChildren(MorrisState, int)} before it evaluates the children of a node as one
+ * batch, so an evaluator can prepare what the children share, like the first layer of a network. An evaluator may
+ * keep such state and is used by one thread at a time; {@link #copy()} gives one to every further thread.
+ */
+public interface Evaluator {
+
+    /**
+     * Scores a position.
+     * @param state The position
+     * @param player The player (0 = BLUE, 1 = RED) the score is for
+     * @return The score in [-1, 1]
+     */
+    double evaluate(MorrisState state, int player);
+
+    /**
+     * Scores several positions for the same player.
+     * @param states The positions
+     * @param count The number of positions to score
+     * @param player The player the scores are for
+     * @param out Receives the score of every position
+     */
+    default void evaluateBatch(MorrisState[] states, int count, int player, double[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = evaluate(states[i], player);
+        }
+    }
+
+    /**
+     * Announces that the next positions are children of the given one. Evaluators without incremental updates
+     * ignore it.
+     * @param parent The position the children are reached from
+     * @param player The player the children will be scored for
+     */
+    default void beginChildren(MorrisState parent, int player) {
+    }
+
+    /**
+     * Returns an evaluator with the same scores for another thread. Evaluators without state return themselves.
+     * @return The evaluator
+     */
+    default Evaluator copy() {
+        return this;
+    }
+}
@@ -0,0 +1,38 @@
+package groupXX.bot;
+
+/**
+ * The heuristics of the bots as {@link Evaluator}s.
+ */
+public final class Evaluators {
+    // Heuristic points that make a score of 1: a closed mill line
+    private static final double LINE_POINTS = 1000;
+
+    private Evaluators() {
+    }
+
+    /**
+     * The rollout evaluation of MonteCarloBot: piece and mobility difference, see
+     * {@link MonteCarloBot#evaluateBoardState(MorrisState, int)}.
+     */
+    public static Evaluator rollout() {
+        return MonteCarloBot::evaluateBoardState;
+    }
+
+    /**
+     * The line scores of AlphaBetaBot: the own line score minus 2.5 times the opponent's, with the placing phase
+     * table while any pieces are left to place and the moving phase table afterwards. In the moving phase this is
+     * {@link AlphaBetaBot#movePiece_boardScore(GameState, groupXX.Player)}; the placing phase score leaves out the
+     * piece count, mobility and opening terms of its placing heuristic. Scores beyond a closed mill line are cut
+     * off at 1 and -1.
+     */
+    public static Evaluator lines() {
+        return (state, player) -> {
+            boolean placing = state.placed[0] < state.requiredPieces || state.placed[1] < state.requiredPieces;
+            int own = state.pieces[player];
+            int opp = state.pieces[1 - player];
+            int points = AlphaBetaBot.lineScore(state.in12MenVersion, placing, own, opp)
+                    - (int) (2.5 * AlphaBetaBot.lineScore(state.in12MenVersion, placing, opp, own));
+            return Math.max(-1.0, Math.min(1.0, points / LINE_POINTS));
+        };
+    }
+}
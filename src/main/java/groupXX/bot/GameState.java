@@ -27,6 +27,17 @@ public class GameState {
         moveCountRed = game.placedPiecesRed;
     }
 
+    /**
+     * Creates a state from raw board data, e.g. when enumerating positions without a running game.
+     */
+    public GameState(GameBoard gameBoard, Player[] boardPositions, Player currentPlayer, int moveCountBlue, int moveCountRed) {
+        this.gameBoard = gameBoard;
+        this.boardPositions = Arrays.copyOf(boardPositions, boardPositions.length);
+        this.currentPlayer = currentPlayer;
+        this.moveCountBlue = moveCountBlue;
+        this.moveCountRed = moveCountRed;
+    }
+
     /**
      * Clone constructor, placing a piece for a given player in a certain position.
      */
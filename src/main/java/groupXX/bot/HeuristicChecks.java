@@ -0,0 +1,326 @@
+package groupXX.bot;
+
+import groupXX.GameBoardFactory;
+import groupXX.Player;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks of the AlphaBetaBot heuristics, see {@link Checks}.
+ */
+final class HeuristicChecks {
+
+    private HeuristicChecks() {
+    }
+
+    /**
+     * The line score tables give the scores of the loop based heuristics they replaced, kept below as the
+     * reference, on random 9 and 12 men boards in the placing and the moving phase.
+     */
+    static void lineTables() {
+        SplittableRandom random = new SplittableRandom(28);
+        AlphaBetaBot bot = new AlphaBetaBot();
+        for (int i = 0; i < 20_000; i++) {
+            GameState state = randomState(random);
+            for (Player player : Player.values()) {
+                String where = " of " + player + " differs on board " + describe(state);
+                Checks.require(bot.getHeuristicScore(state, player) == heuristicScore(state, player),
+                        "getHeuristicScore" + where);
+                Checks.require(bot.movePiece_getHeuristicScore(state, player) == moveHeuristicScore(state, player),
+                        "movePiece_getHeuristicScore" + where);
+                Checks.require(bot.movePiece_boardScore(state, player) == moveBoardScore(state, player),
+                        "movePiece_boardScore" + where);
+            }
+            Checks.require(bot.heuristicBoardScore(state) == boardScore(state),
+                    "boardScore differs on board " + describe(state));
+        }
+    }
+
+    /**
+     * Returns a random board of either version with up to the required pieces per player, in the placing or the
+     * moving phase.
+     */
+    static GameState randomState(SplittableRandom random) {
+        boolean in12 = random.nextBoolean();
+        int required = in12 ? 12 : 9;
+        Player[] board = new Player[24];
+        int[] placed = new int[2];
+        for (int p = 0; p < 2; p++) {
+            placed[p] = random.nextInt(required + 1);
+            int pieces = random.nextInt(placed[p] + 1);
+            for (int n = 0; n < pieces; ) {
+                int position = random.nextInt(24);
+                if (board[position] == null) {
+                    board[position] = Player.values()[p];
+                    n++;
+                }
+            }
+        }
+        if (random.nextBoolean()) {
+            placed[0] = required;
+            placed[1] = required;
+        }
+        Player toMove = Player.values()[random.nextInt(2)];
+        return new GameState(GameBoardFactory.get(in12), board, toMove, placed[0], placed[1]);
+    }
+
+    static String describe(GameState state) {
+        StringBuilder board = new StringBuilder();
+        for (Player position : state.boardPositions) {
+            board.append(position == null ? '.' : position == Player.BLUE ? 'B' : 'R');
+        }
+        return board + " (" + (state.gameBoard.isIn12MenVer() ? 12 : 9) + " men, placed " + state.moveCountBlue
+                + "/" + state.moveCountRed + ", " + state.currentPlayer + " to move)";
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // The loop based heuristics of AlphaBetaBot before the line tables, unchanged
+
+    private static int boardScore(GameState state) {
+        double adjust_weight = 2.5;
+        Player myPlayer  = state.currentPlayer;
+        Player oppPlayer = myPlayer.opponent();
+
+        boolean isPlacingPhase = state.isPlacingPhase();
+        int required = state.gameBoard.getRequiredPieces();
+        int totalMovesSoFar = state.moveCountBlue + state.moveCountRed;
+
+        int basicScore = heuristicScore(state, myPlayer)
+                - (int)(adjust_weight * heuristicScore(state, oppPlayer));
+
+        int myCount  = countPieces(state, myPlayer);
+        int oppCount = countPieces(state, oppPlayer);
+        int pieceDiffScore = (myCount - oppCount) * 5;
+
+        int myPotentialMills  = countPotentialMills(state, myPlayer);
+        int oppPotentialMills = countPotentialMills(state, oppPlayer);
+        int potentialMillScore = (myPotentialMills - oppPotentialMills) * 3;
+
+        int mobilityScore = 0;
+        if (!isPlacingPhase) {
+            int myMobility  = calcMobility(state, myPlayer);
+            int oppMobility = calcMobility(state, oppPlayer);
+            mobilityScore   = (myMobility - oppMobility) * 2;
+        }
+
+        int openingScore = 0;
+        if (isPlacingPhase) {
+            if (totalMovesSoFar < required * 1.0) {
+                openingScore += evaluateEarlyPlacement(state, myPlayer);
+            }
+        }
+
+        int defenseScore = 0;
+        if (oppPotentialMills > 2) {
+            defenseScore -= 15;
+        }
+
+        return basicScore
+                + pieceDiffScore
+                + potentialMillScore
+                + mobilityScore
+                + openingScore
+                + defenseScore;
+    }
+
+    private static int evaluateEarlyPlacement(GameState state, Player myPlayer) {
+        int[] cornerPositions  = {0, 2, 6, 8, 15,17,21,23};
+        int[] centerPositions  = {4, 19};
+
+        int score = 0;
+        for (int pos : cornerPositions) {
+            if (state.boardPositions[pos] == myPlayer) {
+                score += 3;
+            }
+        }
+        for (int pos : centerPositions) {
+            if (state.boardPositions[pos] == myPlayer) {
+                score += 5;
+            }
+        }
+        return score;
+    }
+
+    private static int calcMobility(GameState state, Player player) {
+        if (state.moveCountBlue < state.gameBoard.getRequiredPieces()
+                || state.moveCountRed < state.gameBoard.getRequiredPieces()) {
+            return 0;
+        }
+        List<int[]> actions = state.selectActions(player);
+        return actions.size();
+    }
+
+    private static int countPotentialMills(GameState state, Player player) {
+        int count = 0;
+        int[][] paths = AlphaBetaBot.get(state.gameBoard.isIn12MenVer());
+
+        for (int[] path : paths) {
+            int pCount = 0;
+            int nullCount = 0;
+            for (int pos : path) {
+                if (state.boardPositions[pos] == player) {
+                    pCount++;
+                } else if (state.boardPositions[pos] == null) {
+                    nullCount++;
+                }
+            }
+            if (pCount == 2 && nullCount == 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int countPieces(GameState state, Player p) {
+        int count = 0;
+        for (Player pos : state.boardPositions) {
+            if (pos == p) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int heuristicScore(GameState state, Player player) {
+        Player opp = player.opponent();
+        int score = 0;
+        int[][] paths = AlphaBetaBot.get(state.gameBoard.isIn12MenVer());
+
+        for (int[] path : paths) {
+            Player pos0 = state.boardPositions[path[0]];
+            Player pos1 = state.boardPositions[path[1]];
+            Player pos2 = state.boardPositions[path[2]];
+
+            if (pos0 == player && pos1 == player && pos2 == player) {
+                score += 1000;
+                continue;
+            }
+
+            int myCount = 0;
+            int emptyCount = 0;
+            if (pos0 == player) myCount++;
+            else if (pos0 == null) emptyCount++;
+            if (pos1 == player) myCount++;
+            else if (pos1 == null) emptyCount++;
+            if (pos2 == player) myCount++;
+            else if (pos2 == null) emptyCount++;
+
+            if (myCount == 2 && emptyCount == 1) {
+                score += 15;
+            }
+
+            int oppCount = 0;
+            int emptyCountOpp = 0;
+            if (pos0 == opp) oppCount++;
+            else if (pos0 == null) emptyCountOpp++;
+            if (pos1 == opp) oppCount++;
+            else if (pos1 == null) emptyCountOpp++;
+            if (pos2 == opp) oppCount++;
+            else if (pos2 == null) emptyCountOpp++;
+
+            if (oppCount == 2 && emptyCountOpp == 1) {
+                score += 5;
+            }
+
+            // (player,player,opp)
+            if (pos0 == player && pos1 == player && pos2 == opp) {
+                score -= 2;
+            }
+            // (player,opp,player)
+            if (pos0 == player && pos1 == opp && pos2 == player) {
+                score -= 2;
+            }
+            // (opp,player,player)
+            if (pos0 == opp && pos1 == player && pos2 == player) {
+                score -= 2;
+            }
+
+            // (opp,opp,player)
+            if (pos0 == opp && pos1 == opp && pos2 == player) {
+                score += 20;
+            }
+            // (opp,player,opp)
+            if (pos0 == opp && pos1 == player && pos2 == opp) {
+                score += 20;
+            }
+            // (player,opp,opp)
+            if (pos0 == player && pos1 == opp && pos2 == opp) {
+                score += 20;
+            }
+
+            // (opp,opp,null)
+            if (pos0 == opp && pos1 == opp && pos2 == null) {
+                score -= 10;
+            }
+            // (opp,null,opp)
+            if (pos0 == opp && pos1 == null && pos2 == opp) {
+                score -= 10;
+            }
+            // (null,opp,opp)
+            if (pos0 == null && pos1 == opp && pos2 == opp) {
+                score -= 10;
+            }
+        }
+        return score;
+    }
+
+    private static int moveBoardScore(GameState state, Player cur) {
+        double adjust_weight = 2.5;
+        Player opp = cur.opponent();
+        return moveHeuristicScore(state, cur) - (int)(adjust_weight * moveHeuristicScore(state, opp));
+    }
+
+    private static int moveHeuristicScore(GameState state, Player player) {
+        Player other_player = player == Player.RED ? Player.BLUE : Player.RED;
+        Player[] board = state.boardPositions;
+        int score = 0;
+        int[][] paths = AlphaBetaBot.get(state.gameBoard.isIn12MenVer());
+        for (int[] path : paths) {
+            if (board[path[0]] == player && board[path[1]] == player && board[path[2]] == player) {
+                score += 1000;
+            }
+
+            if (board[path[0]] == player && board[path[1]] == player && board[path[2]] == null) {
+                score += 10;
+            }
+            if (board[path[0]] == player && board[path[1]] == null && board[path[2]] == player) {
+                score += 10;
+            }
+            if (board[path[0]] == null && board[path[1]] == player && board[path[2]] == player) {
+                score += 10;
+            }
+
+            if (board[path[0]] == other_player && board[path[1]] == other_player && board[path[2]] == player) {
+                score += 20;
+            }
+            if (board[path[0]] == other_player && board[path[1]] == player && board[path[2]] == other_player) {
+                score += 20;
+            }
+            if (board[path[0]] == player && board[path[1]] == other_player && board[path[2]] == other_player) {
+                score += 20;
+            }
+
+            if (board[path[0]] == player && board[path[1]] == player && board[path[2]] == other_player) {
+                score -= 2;
+            }
+            if (board[path[0]] == player && board[path[1]] == other_player && board[path[2]] == player) {
+                score -= 2;
+            }
+            if (board[path[0]] == other_player && board[path[1]] == player && board[path[2]] == player) {
+                score -= 2;
+            }
+
+            if (board[path[0]] == other_player && board[path[1]] == other_player && board[path[2]] == null) {
+                score -= 10;
+            }
+            if (board[path[0]] == other_player && board[path[1]] == null && board[path[2]] == other_player) {
+                score -= 10;
+            }
+            if (board[path[0]] == null && board[path[1]] == other_player && board[path[2]] == other_player) {
+                score -= 10;
+            }
+        }
+        return score;
+    }
+}
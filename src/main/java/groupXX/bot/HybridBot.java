@@ -23,9 +23,15 @@ public class HybridBot implements Bot {
 
     private final MonteCarloBot monteCarloBot;
 
+    private final ProofNumberSearch proofNumberSearch;
+
+    // {WIN, from, to, delete} of the proven move being played, or null
+    private int[] provenMove;
+
     public HybridBot() {
         this.alphaBetaBot = new AlphaBetaBot();
         this.monteCarloBot = new MonteCarloBot();
+        this.proofNumberSearch = new ProofNumberSearch();
     }
 
     /**
@@ -40,11 +46,21 @@ public class HybridBot implements Bot {
     /**
      * In mid/late game (phase 1 or 2), which can be more complex,
      * we switch to our MCTS-based approach for greater adaptability.
+     * Positions that look decided are first handed to the proof-number search, and a proven win is played directly.
      */
     @Override
     public int selectPiece(Game game) {
         int phase = game.getPhase();
+        provenMove = null;
         if (phase == 1 || phase == 2) {
+            GameState state = new GameState(game);
+            if (ProofNumberSearch.isDecisive(state)) {
+                int[] proof = proofNumberSearch.solve(state, game.moveWithoutCapture);
+                if (proof[0] == ProofNumberSearch.WIN) {
+                    provenMove = proof;
+                    return proof[1];
+                }
+            }
             return monteCarloBot.selectPiece(game);
         } else {
 
@@ -58,6 +74,9 @@ public class HybridBot implements Bot {
      */
     @Override
     public int determineMove(Game game, int piecePosition) {
+        if (provenMove != null && provenMove[1] == piecePosition) {
+            return provenMove[2];
+        }
         int phase = game.getPhase();
         if (phase == 1 || phase == 2) {
             return monteCarloBot.determineMove(game, piecePosition);
@@ -72,6 +91,11 @@ public class HybridBot implements Bot {
      */
     @Override
     public int determinePieceToDelete(Game game) {
+        int[] proof = provenMove;
+        provenMove = null;
+        if (proof != null && isValidDeleteChoice(game, proof[3])) {
+            return proof[3];
+        }
 
         int candidate = alphaBetaBot.determinePieceToDelete(game);
 
@@ -11,6 +11,7 @@ import java.util.List;
  * It handles the game logic, action evaluation, and decision-making using neural networks.
  */
 public class Match {
+    private static final int EVAL_CACHE_BITS = 12; // enough for the positions of one match, and cheap to allocate per match
     private GameSituation gameCurrent; // Current game state
     private GameSituation gameNext; // Next game state after action
     private List<EvaluationResult> evaluationsPlaceBlue; // Stores evaluations and game states for placing pieces
@@ -23,6 +24,9 @@ public class Match {
 
     private NeuralNetwork myNet; // Neural network to evaluate game states
     private NeuralNetwork opponentNet; // Neural network to evaluate game states
+    // Outputs of each net for the positions of this match; the nets only train between matches
+    private final EvalCache myCache = new EvalCache(EVAL_CACHE_BITS);
+    private final EvalCache opponentCache = new EvalCache(EVAL_CACHE_BITS);
     private BufferedWriter writer; // Writer to output logs to log.txt
 
     private boolean bLogFlage = false;
@@ -94,13 +98,12 @@ public class Match {
                 if (gameNext.doActionPlace(position)) { // Try placing a piece at the current position
                     System.arraycopy(gameNext.boardPositions, 0, gameNext.inputForNet, 0, 24); // Copy board positions
                     gameNext.inputForNet[24] = gameCurrent.getCurrentPlayer(); // Set the current player
-                    double evaluation = net.forward(gameNext.inputForNet); // Evaluate the game state using the neural network
 
                     if (gameCurrent.getPhase() == 0) {
                         if (gameCurrent.currentPlayer == 1){
-                            evaluationsPlaceBlue.add(new EvaluationResult(gameNext, evaluation,0,position,-99)); // Store the evaluation
+                            evaluationsPlaceBlue.add(new EvaluationResult(gameNext, 0,0,position,-99)); // Store the evaluation
                         }else if (gameCurrent.currentPlayer == 2){
-                            evaluationsPlaceRed.add(new EvaluationResult(gameNext, evaluation,0,position,-99)); // Store the evaluation
+                            evaluationsPlaceRed.add(new EvaluationResult(gameNext, 0,0,position,-99)); // Store the evaluation
                         }
                     }
                 }
@@ -123,12 +126,11 @@ public class Match {
                             if (gameNext.doActionFlyMove(sourcePosition, targetPosition)) { // Try moving or flying the piece
                                 System.arraycopy(gameNext.boardPositions, 0, gameNext.inputForNet, 0, 24); // Copy board positions
                                 gameNext.inputForNet[24] = gameCurrent.getCurrentPlayer(); // Set the current player
-                                double evaluation = net.forward(gameNext.inputForNet); // Evaluate the game state using the neural network
 
                                 if (gameCurrent.currentPlayer == 1){
-                                    evaluationsMoveFlyBlue.add(new EvaluationResult(gameNext, evaluation,gameCurrent.getPhase(),sourcePosition,targetPosition)); // Store the evaluation
+                                    evaluationsMoveFlyBlue.add(new EvaluationResult(gameNext, 0,gameCurrent.getPhase(),sourcePosition,targetPosition)); // Store the evaluation
                                 }else if (gameCurrent.currentPlayer == 2){
-                                    evaluationsMoveFlyRed.add(new EvaluationResult(gameNext, evaluation,gameCurrent.getPhase(),sourcePosition,targetPosition)); // Store the evaluation
+                                    evaluationsMoveFlyRed.add(new EvaluationResult(gameNext, 0,gameCurrent.getPhase(),sourcePosition,targetPosition)); // Store the evaluation
                                 }
                             }
                         }
@@ -145,17 +147,34 @@ public class Match {
                 if (gameNext.doActionDelete(position)) { // Try deleting a piece at the current position
                     System.arraycopy(gameNext.boardPositions, 0, gameNext.inputForNet, 0, 24); // Copy board positions
                     gameNext.inputForNet[24] = gameCurrent.getCurrentPlayer(); // Set the current player
-                    double evaluation = net.forward(gameNext.inputForNet); // Evaluate the game state using the neural network
 
                     if (gameCurrent.currentPlayer == 1){
-                        evaluationsDelBlue.add(new EvaluationResult(gameNext, evaluation, gameCurrent.getPhase(),position,-99)); // Store the evaluation
+                        evaluationsDelBlue.add(new EvaluationResult(gameNext, 0, gameCurrent.getPhase(),position,-99)); // Store the evaluation
                     }else if (gameCurrent.currentPlayer == 2){
-                        evaluationsDelRed.add(new EvaluationResult(gameNext, evaluation, gameCurrent.getPhase(),position,-99)); // Store the evaluation
+                        evaluationsDelRed.add(new EvaluationResult(gameNext, 0, gameCurrent.getPhase(),position,-99)); // Store the evaluation
                     }
                 }
             }
         }
 
+        // Evaluate the collected game states incrementally from the current one
+        List<EvaluationResult> tried = new ArrayList<>();
+        if (gameCurrent.currentPlayer == 1){
+            tried.addAll(evaluationsPlaceBlue);
+            tried.addAll(evaluationsMoveFlyBlue);
+            tried.addAll(evaluationsDelBlue);
+        }else if (gameCurrent.currentPlayer == 2){
+            tried.addAll(evaluationsPlaceRed);
+            tried.addAll(evaluationsMoveFlyRed);
+            tried.addAll(evaluationsDelRed);
+        }
+        EvalCache cache = net == myNet ? myCache : opponentCache;
+        EvaluationResult.evaluateAll(tried, gameCurrent, new CachedNetModel(net.weights(), cache));
+        if (!tried.isEmpty()) {
+            // backward() trains on the hidden layer of the net's last forward pass, which is the last state tried
+            net.forward(tried.get(tried.size() - 1).getGameStatus().inputForNet);
+        }
+
         if (gameCurrent.currentPlayer == 1){
             log("Number of evaluations (Place): " + evaluationsPlaceBlue.size()); // Log the number of evaluations for placement actions
             log("Number of evaluations (Move/Fly): " + evaluationsMoveFlyBlue.size()); // Log the number of evaluations for move/fly actions
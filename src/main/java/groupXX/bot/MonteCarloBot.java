@@ -1,19 +1,98 @@
 package groupXX.bot;
 
 import groupXX.Game;
-import groupXX.Player;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
 
 public class MonteCarloBot implements Bot {
 
 
     private static final int TIME_LIMIT_MS = 3000;
     private static final double EXPLORATION_CONSTANT = 1.41;
-    private static final int MAX_ROLLOUT_DEPTH = 50;
+    // How deep below the previous root a matching node is looked for: our select, move and delete
+    // followed by the opponent's select, move and delete
+    private static final int MAX_REUSE_DEPTH = 6;
+    // The same when the edges of the tree are whole turns: our turn followed by the opponent's
+    private static final int MAX_TURN_REUSE_DEPTH = 2;
+    // Loss a thread charges to every node on its path until its playout is backpropagated, so that
+    // other threads spread out over the tree instead of all following the same path
+    private static final int VIRTUAL_LOSS = 1;
+    // Number of visits at which the UCT value and the all-moves-as-first value of a child weigh the same;
+    // the weight of the latter is sqrt(k / (3 visits + k))
+    private static final double RAVE_EQUIVALENCE = 500;
+    // Priors: the line scores of the moves go through a softmax with this temperature, which is mixed with the
+    // uniform distribution so that moves the heuristic dislikes (like opening a mill) are still tried
+    private static final double PRIOR_TEMPERATURE = 20;
+    private static final double PRIOR_UNIFORM_SHARE = 0.25;
+    // Progressive widening: a node with n visits considers its WIDENING_BASE + sqrt(n) most probable children
+    private static final int WIDENING_BASE = 4;
+
+    // The search tree. Nodes hold no game; rootState is the state at the root and every other state
+    // is rebuilt by replaying moves into the scratch state of the worker
+    private final NodePool pool;
+    private int root = -1;
+    private MorrisState rootState;
+    private boolean turnTree = false;   // whether the edges of the tree are whole turns instead of single actions
+    private boolean priorTree = false;  // whether the children in the tree carry priors and are widened progressively
+    private Worker[] workers = new Worker[0];
+    private final SplittableRandom seeds = new SplittableRandom();
+    private final int[] actions = new int[MorrisState.MAX_ACTIONS];
+    // The turn chosen by the last search in the turn tree, and the state after the actions of it returned so far
+    private int plannedTurn = -1;
+    private MorrisState plannedState;
+
+    // Number of search threads, how they share the work, and the thinking time per decision
+    public int threads = 1;
+    public Parallelism parallelism = Parallelism.TREE;
+    public long timeLimitMs = TIME_LIMIT_MS;
+    // Share of timeLimitMs for a decision that finishes the turn of the last one (the move after the selection,
+    // or the capture after a mill) when the tree of the last search already holds visits below it
+    public double followUpTimeShare = 0.25;
+    public long maxIterations = Long.MAX_VALUE;   // per decision, to compare settings at equal playouts
+    // RAVE lost against plain UCT at equal playouts and at equal time (Benchmark mcts-rave), so it is off by
+    // default; it is not used in the turn tree, whose edges are not single positions
+    public boolean useRave = false;
+    // One tree edge per turn (the placement or move together with its capture) instead of one per action;
+    // the bot then searches once per turn and plays the rest of the chosen turn without searching
+    public boolean compoundTurns = false;
+    // PUCT selection with priors from the line heuristic of AlphaBetaBot, computed once at expansion, and
+    // progressive widening over the children sorted by prior
+    public boolean usePriors = true;
+    // When the tree fills the node budget, prune its least visited subtrees and go on searching, instead of
+    // letting it stop growing (see NodePool#recycle)
+    public boolean recycleNodes = true;
+    // Scores of the final positions of rollouts, shared by all threads; null evaluates every one
+    public EvalCache evalCache = null;
+    // Scores the final positions of rollouts instead of evaluateBoardState; every further thread gets a copy
+    public Evaluator evaluator = null;
+
+    // Statistics of the tree reuse and of the last search
+    public long reusedRoots = 0;
+    public long reusedVisits = 0;
+    public long iterations = 0;
+    public long solvedRoots = 0;   // decisions whose result was proven, which end the search early
+    public long treeNodes = 0;     // nodes in the (shared) tree after the last search
+    public int rootChildren = 0;
+    public int visitedRootChildren = 0;
+    public double occupancy = 0;    // share of the node budget the (shared) tree uses after the last search
+    public long recycles = 0;
+    public long recycledNodes = 0;
+    public long evaluations = 0;       // evaluator calls of the last search
+    public long evaluationNanos = 0;
+
+    public MonteCarloBot() {
+        this(NodePool.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the maximum number of tree nodes
+     */
+    public MonteCarloBot(int capacity) {
+        this.pool = new NodePool(capacity);
+    }
 
     /**
      * Places a piece on the board using MCTS.
@@ -74,494 +153,715 @@ public class MonteCarloBot implements Bot {
      * @return the best move determined by MCTS
      */
     private int runMCTS(Game game, ActionType actionType, int selectedPos) {
-        long endTime = System.currentTimeMillis() + TIME_LIMIT_MS;
-
-
-        MCTSNode root = new MCTSNode(null, null, game, actionType, selectedPos);
-
-        while (System.currentTimeMillis() < endTime) {
-
-            MCTSNode leaf = select(root);
-
-            if (!leaf.isTerminal()) {
-                leaf = leaf.expand();
+        long startTime = System.currentTimeMillis();
+
+        MorrisState current = new MorrisState(game);
+        current.selected = actionType == ActionType.MOVE ? selectedPos : -1;
+        if (plannedTurn != -1 && compoundTurns && plannedState.sameAs(current)) {
+            // the rest of the turn chosen by the last search
+            int action = current.turnAction(plannedTurn);
+            plannedState.apply(action);
+            return action;
+        }
+        plannedTurn = -1;
+        if (rootState != null && (rootState.in12MenVersion != current.in12MenVersion || turnTree != compoundTurns
+                || priorTree != usePriors)) {
+            root = -1;
+            workers = new Worker[0];
+        }
+        turnTree = compoundTurns;
+        priorTree = usePriors;
+        boolean ensemble = prepareWorkers(current.in12MenVersion);
+        if (ensemble) {
+            for (Worker worker : workers) {
+                worker.treeRoot = prepareTree(worker.tree, worker.treeRoot, current);
+            }
+            root = workers[0].treeRoot;
+        } else {
+            root = prepareTree(pool, root, current);
+            for (Worker worker : workers) {
+                worker.treeRoot = root;
+            }
+        }
+        rootState = current;
+
+        boolean followUp = (actionType == ActionType.MOVE || actionType == ActionType.DELETE) && pool.visits[root] > 0;
+        long endTime = startTime + (followUp ? (long) (timeLimitMs * followUpTimeShare) : timeLimitMs);
+        search(endTime, ensemble ? 0 : VIRTUAL_LOSS);
+        treeNodes = Math.min(pool.size, pool.capacity);
+        occupancy = pool.occupancy();
+        rootChildren = 0;
+        visitedRootChildren = 0;
+        if (pool.hasChildren(root)) {
+            for (int child = pool.firstChild(root); child != NodePool.NONE; child = pool.nextSibling[child]) {
+                rootChildren++;
+                if (pool.visits[child] > 0) {
+                    visitedRootChildren++;
+                }
             }
-
-            double result = simulate(leaf);
-
-            backpropagate(leaf, result);
         }
 
 
-        MCTSNode bestChild = root.getBestChild(0.0);
-        if (bestChild == null) {
+        int bestMove = -1;
+        if (ensemble) {
+            bestMove = mostVotedMove();
+        } else if (pool.hasChildren(root)) {
+            int best = getBestChild(pool, root, rootState, 0.0);
+            if (best == -1) {
+                // every move is proven lost; the most visited one is the hardest to refute
+                best = mostVisitedChild(pool, root);
+            }
+            bestMove = pool.move[best];
+        }
+        if (bestMove == -1) {
 
-            List<Integer> possibleActions = getPossibleActions(root.actionType, root.game, root.selectedPos);
-            if (possibleActions.isEmpty()) return -1;
-            return possibleActions.get(0);
+            int count = rootState.actions(actions);
+            if (count == 0) return -1;
+            return actions[0];
         }
-        return bestChild.chosenMove;
+        if (turnTree) {
+            plannedTurn = bestMove;
+            plannedState = new MorrisState(current.in12MenVersion);
+            plannedState.copyFrom(current);
+            int action = current.turnAction(bestMove);
+            plannedState.apply(action);
+            return action;
+        }
+        return bestMove;
     }
 
-    /**
-     * Selects the best node to expand based on the UCB formula.
-     *
-     * @param node the current node to select from
-     * @return the best child node
-     */
-    private MCTSNode select(MCTSNode node) {
-        MCTSNode current = node;
-        while (!current.children.isEmpty()) {
-            current = current.getBestChild(EXPLORATION_CONSTANT);
-        }
-        return current;
+    private boolean rave() {
+        return useRave && !turnTree;
     }
 
     /**
-     * Simulates a random game from the current node.
-     *
-     * @param node the current node to simulate from
-     * @return the result of the simulation (1 for win, -1 for loss, 0 for draw)
+     * Applies an edge of the tree to the state: a whole turn in the turn tree, otherwise a single action.
      */
-    private double simulate(MCTSNode node) {
-        Game rolloutGame = cloneGame(node.game);
-        Player startPlayer = rolloutGame.getCurrentPlayer();
-
-        int depth = 0;
-        while (!isTerminalState(rolloutGame) && depth < MAX_ROLLOUT_DEPTH) {
-            ActionType actionType = getActionType(rolloutGame);
-            List<Integer> possibleActions = getPossibleActions(actionType, rolloutGame, rolloutGame.getSelectedPiece());
-            if (possibleActions.isEmpty()) {
-
-                break;
-            }
-
-            int chosenAction = pickRolloutAction(rolloutGame, actionType, possibleActions);
-
-            makeRolloutMove(rolloutGame, actionType, chosenAction);
-
-            depth++;
-        }
-
-        // Evaluate the final state from the perspective of "startPlayer".
-        if (didPlayerWin(rolloutGame, startPlayer)) {
-            return 1.0;
-        } else if (didPlayerLose(rolloutGame, startPlayer)) {
-            return -1.0;
+    private void play(MorrisState state, int move) {
+        if (turnTree) {
+            state.applyTurn(move);
         } else {
-
-            return evaluateBoardState(rolloutGame, startPlayer);
+            state.apply(move);
         }
     }
 
     /**
-     * Backpropagates the result of a simulation to update the node's statistics.
+     * Creates one worker per thread, each with its own scratch state and random generator. In the root parallel
+     * mode the first worker searches the bot's tree with the whole node budget, and every other worker gets a tree
+     * of its own with 1/threads of it, so the ensemble takes less than twice the memory of a single tree however
+     * many threads it has. The trees differ in size, so {@link #mostVotedMove()} weighs their votes equally.
      *
-     * @param node the node to backpropagate from
-     * @param result the result of the simulation
+     * @return true if the workers search separate trees
      */
-    private void backpropagate(MCTSNode node, double result) {
-        MCTSNode current = node;
-        while (current != null) {
-            current.visits++;
-            current.wins += result;
-            current = current.parent;
+    private boolean prepareWorkers(boolean in12MenVersion) {
+        int count = Math.max(1, threads);
+        boolean ensemble = parallelism == Parallelism.ROOT && count > 1;
+        if (workers.length != count || workers[0].scratch.in12MenVersion != in12MenVersion
+                || (workers.length > 1 && (workers[1].tree != pool) != ensemble)) {
+            workers = new Worker[count];
+            for (int i = 0; i < count; i++) {
+                NodePool tree = ensemble && i > 0 ? new NodePool(pool.capacity / count) : pool;
+                workers[i] = new Worker(in12MenVersion, seeds.split(), tree);
+                workers[i].treeRoot = tree == pool ? root : -1;
+            }
         }
+        return ensemble;
     }
 
     /**
-     * Determines if the game is in a terminal state.
+     * Finds the root for the current decision in the tree of the last one, or starts a new tree.
      *
-     * @param game the current game state
-     * @return true if the game is in a terminal state, false otherwise
+     * @return the root node for the search
      */
-    private boolean isTerminalState(Game game) {
-
-        int totalPiecesNeeded = game.isIn12MenMorrisVersion() ? 24 : 18;
-
-
-        return (game.getPlacedPiecesBlue() + game.getPlacedPiecesRed() >= totalPiecesNeeded)
-          && (game.getPhase() == 1 || game.getPhase() == 2)
-          && (
-          !hasAnyValidMove(game, Player.BLUE) ||
-            !hasAnyValidMove(game, Player.RED)  ||
-            getPieceCount(game, Player.BLUE) < 3 ||
-            getPieceCount(game, Player.RED) < 3
-        );
+    private int prepareTree(NodePool tree, int treeRoot, MorrisState current) {
+        int reused = findReusableRoot(tree, treeRoot, current);
+        if (reused >= 0) {
+            treeRoot = reused;
+        } else {
+            tree.clear();
+            treeRoot = tree.allocate(-1);
+        }
+        // The pool cannot be compacted while the workers search it, so nodes outside the current tree are
+        // dropped up front; if the tree fills the pool during the search, it stops growing
+        if (tree.free() < tree.capacity / 4) {
+            treeRoot = tree.compact(treeRoot);
+        }
+        return treeRoot;
     }
 
     /**
-     * Checks if the player has won the game.
+     * Lets all workers search until endTime. With recycling the workers stop when their tree is full, the tree
+     * is recycled while none of them runs, and they go on.
      *
-     * @param game the current game state
-     * @param p the player to check
-     * @return true if the player has won, false otherwise
+     * @param virtualLoss the virtual loss the workers charge on the way down, if there is more than one
      */
-    private boolean didPlayerWin(Game game, Player p) {
-        Player opp = p.opponent();
-        return getPieceCount(game, opp) < 3 || !hasAnyValidMove(game, opp);
+    private void search(long endTime, int virtualLoss) {
+        long iterationLimit = Math.max(1, maxIterations / workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            Worker worker = workers[i];
+            worker.iterations = 0;
+            worker.rollouts.evalCache = evalCache;
+            worker.rollouts.evaluator = evaluator == null || i == 0 ? evaluator : evaluator.copy();
+            worker.rollouts.evaluations = 0;
+            worker.rollouts.evaluationNanos = 0;
+        }
+        boolean stopWhenFull = recycleNodes;
+        while (true) {
+            runWorkers(endTime, iterationLimit, virtualLoss, stopWhenFull);
+            if (!stopWhenFull || System.currentTimeMillis() >= endTime || !anyTreeFull()) {
+                break;
+            }
+            // if the principal lines alone fill a tree, it stops growing for the rest of the search
+            stopWhenFull = recycleFullTrees();
+        }
+        iterations = 0;
+        evaluations = 0;
+        evaluationNanos = 0;
+        boolean solved = false;
+        for (Worker worker : workers) {
+            iterations += worker.iterations;
+            evaluations += worker.rollouts.evaluations;
+            evaluationNanos += worker.rollouts.evaluationNanos;
+            solved |= worker.tree.winner(worker.treeRoot) != -1;
+        }
+        if (solved) {
+            solvedRoots++;
+        }
     }
 
     /**
-     * Checks if the player has lost the game.
-     *
-     * @param game the current game state
-     * @param p the player to check
-     * @return true if the player has lost, false otherwise
+     * Runs the workers once. A single worker runs on the calling thread and without virtual loss.
      */
-    private boolean didPlayerLose(Game game, Player p) {
-        return getPieceCount(game, p) < 3 || !hasAnyValidMove(game, p);
+    private void runWorkers(long endTime, long iterationLimit, int virtualLoss, boolean stopWhenFull) {
+        if (workers.length == 1) {
+            workers[0].search(endTime, iterationLimit, 0, stopWhenFull);
+        } else {
+            Thread[] running = new Thread[workers.length];
+            for (int i = 0; i < workers.length; i++) {
+                Worker worker = workers[i];
+                running[i] = new Thread(() -> worker.search(endTime, iterationLimit, virtualLoss, stopWhenFull),
+                        "mcts-worker-" + i);
+                running[i].start();
+            }
+            boolean interrupted = false;
+            for (Thread thread : running) {
+                // the tree must not be read or compacted while a worker still changes it
+                while (thread.isAlive()) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
-    /**
-     * Determines if a player has any valid moves available.
-     *
-     * @param game the current game state
-     * @param player the player to check
-     * @return true if the player has at least one valid move, false otherwise
-     */
-    private boolean hasAnyValidMove(Game game, Player player) {
-        for (int i = 0; i < 24; i++) {
-            if (game.getBoardPositions()[i] == player) {
-                List<Integer> moves = game.getValidMoves();
-                if (!moves.isEmpty()) {
-                    return true;
-                }
+    private boolean anyTreeFull() {
+        for (Worker worker : workers) {
+            if (worker.tree.free() == 0) {
+                return true;
             }
         }
         return false;
     }
 
     /**
-     * Returns the number of pieces of a player on the board.
+     * Recycles every full tree and moves the roots of the workers along.
      *
-     * @param game the current game state
-     * @param player the player to count the pieces of
-     * @return the number of pieces the player has on the board
+     * @return true if every recycled tree has room again
      */
-    private int getPieceCount(Game game, Player player) {
-        int count = 0;
-        for (Player pos : game.getBoardPositions()) {
-            if (pos == player) count++;
+    private boolean recycleFullTrees() {
+        boolean room = true;
+        for (Worker worker : workers) {
+            NodePool tree = worker.tree;
+            if (tree.free() == 0) {
+                long freed = tree.recycledNodes;
+                int newRoot = tree.recycle(worker.treeRoot);
+                recycles++;
+                recycledNodes += tree.recycledNodes - freed;
+                for (Worker other : workers) {
+                    if (other.tree == tree) {
+                        other.treeRoot = newRoot;
+                    }
+                }
+                room &= tree.free() > 0;
+            }
         }
-        return count;
+        root = workers[0].treeRoot;
+        return room;
     }
 
-    // MCTS Node class definition with essential methods (e.g., expand, getBestChild, etc.)
-    private class MCTSNode {
-        MCTSNode parent;
-        List<MCTSNode> children = new ArrayList<>();
-        Game game;
-        int visits = 0;
-        double wins = 0.0;
-
-        int chosenMove;
-        ActionType actionType;
-        int selectedPos;
-        boolean expanded = false;
-
-        MCTSNode(MCTSNode parent, Integer chosenMove, Game game, ActionType actionType, int selectedPos) {
-            this.parent = parent;
-            this.chosenMove = (chosenMove == null) ? -1 : chosenMove;
-            this.game = game;
-            this.actionType = actionType;
-            this.selectedPos = selectedPos;
-        }
-
-        boolean isTerminal() {
-            return isTerminalState(game);
-        }
-
-
-        MCTSNode expand() {
-            if (expanded) {
-                return this;
+    /**
+     * Sums the share of the visits every root move has in each worker's tree and returns the move with the
+     * largest sum, or -1 if no tree has been expanded. The shares give every tree the same weight, although the
+     * first one is larger and may carry visits from earlier decisions. A move proven to win in any tree is
+     * played right away, and moves proven to lose get no votes.
+     */
+    private int mostVotedMove() {
+        Map<Integer, Double> votes = new HashMap<>();
+        int player = rootState.toMove;
+        for (Worker worker : workers) {
+            NodePool tree = worker.tree;
+            if (!tree.hasChildren(worker.treeRoot)) {
+                continue;
             }
-            expanded = true;
-
-            List<Integer> possibleMoves = getPossibleActions(actionType, game, selectedPos);
-            if (possibleMoves.isEmpty()) {
-                return this;
+            long total = 0;
+            for (int child = tree.firstChild(worker.treeRoot); child != NodePool.NONE;
+                 child = tree.nextSibling[child]) {
+                int winner = tree.winner(child);
+                if (winner == player) {
+                    return tree.move[child];
+                }
+                if (winner == -1) {
+                    total += tree.visits[child];
+                }
             }
-
-            for (int move : possibleMoves) {
-                Game childGame = cloneGame(game);
-
-                applyAction(childGame, actionType, move, selectedPos);
-
-                ActionType nextActionType = getActionType(childGame);
-                int nextSelectedPos = -1;
-                if (actionType == ActionType.SELECT) {
-                    nextSelectedPos = move;
+            for (int child = tree.firstChild(worker.treeRoot); child != NodePool.NONE && total > 0;
+                 child = tree.nextSibling[child]) {
+                if (tree.winner(child) == -1) {
+                    votes.merge(tree.move[child], tree.visits[child] / (double) total, Double::sum);
                 }
-
-                MCTSNode child = new MCTSNode(this, move, childGame, nextActionType, nextSelectedPos);
-                children.add(child);
             }
-
-
-            return children.get(new Random().nextInt(children.size()));
         }
-
-
-        MCTSNode getBestChild(double c) {
-            if (children.isEmpty()) return null;
-
-            MCTSNode best = null;
-            double bestValue = Double.NEGATIVE_INFINITY;
-
-            for (MCTSNode child : children) {
-                double avgWinRate = child.wins / (child.visits + 1e-6);
-                double explorationTerm = Math.sqrt(Math.log(this.visits + 1.0) / (child.visits + 1e-6));
-                double ucbValue = avgWinRate + c * explorationTerm;
-
-
-                if (game.formsMill(child.chosenMove, game.getCurrentPlayer())) {
-                    ucbValue += 0.1;
-                }
-
-                if (game.formsMill(child.chosenMove, game.getCurrentPlayer().opponent())) {
-                    ucbValue -= 0.1;
-                }
-
-                if (ucbValue > bestValue) {
-                    bestValue = ucbValue;
-                    best = child;
-                }
+        int best = -1;
+        double bestVotes = 0;
+        for (Map.Entry<Integer, Double> vote : votes.entrySet()) {
+            if (vote.getValue() > bestVotes) {
+                best = vote.getKey();
+                bestVotes = vote.getValue();
             }
-            return best;
         }
+        return best;
     }
 
     /**
-     * Retrieves the list of possible actions for the AI to take, based on the current game phase
-     * and the provided action type.
+     * Looks for a node of the previous search tree that describes the current decision, e.g. the MOVE node
+     * below the piece chosen by the last SELECT search or the node reached after the opponent's reply.
      *
-     * @param actionType The type of action (PLACE, SELECT, MOVE, DELETE).
-     * @param game The current game state.
-     * @param selectedPos The position of the currently selected piece, if applicable.
-     * @return A list of possible actions that the AI can take.
+     * @return the node to continue searching from, or -1 if the decision is not in the old tree
      */
-    private List<Integer> getPossibleActions(ActionType actionType, Game game, int selectedPos) {
-        List<Integer> actions = new ArrayList<>();
-        switch (actionType) {
-            case PLACE:
-                if (game.getPhase() == 0) {
-                    for (int i = 0; i < 24; i++) {
-                        if (game.getBoardPositions()[i] == null) {
-                            if (game.formsMill(i, game.getCurrentPlayer())) {
-                                actions.add(0, i);
-                            } else {
-                                actions.add(i);
-                            }
-                        }
-                    }
-                }
-                break;
-            case SELECT:
-                for (int i = 0; i < 24; i++) {
-                    if (game.getBoardPositions()[i] == game.getCurrentPlayer()) {
-                        actions.add(i);
-                    }
-                }
-                break;
-            case MOVE:
-                for (int move : game.getValidMoves()) {
-                    if (game.formsMill(move, game.getCurrentPlayer())) {
-                        actions.add(0, move);
-                    } else {
-                        actions.add(move);
-                    }
-                }
-                break;
-            case DELETE:
-                Player opponent = game.getCurrentPlayer().opponent();
-                for (int i = 0; i < 24; i++) {
-                    if (game.getBoardPositions()[i] == opponent) {
-                        if (!game.formsMill(i, opponent)) {
-
-                            actions.add(0, i);
-                        } else {
-                            actions.add(i);
-                        }
-                    }
-                }
-                break;
+    private int findReusableRoot(NodePool tree, int treeRoot, MorrisState current) {
+        if (treeRoot < 0) {
+            return -1;
         }
-        return actions;
+        MorrisState[] states = new MorrisState[(turnTree ? MAX_TURN_REUSE_DEPTH : MAX_REUSE_DEPTH) + 1];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new MorrisState(current.in12MenVersion);
+        }
+        states[0].copyFrom(rootState);
+        int found = findMatch(tree, treeRoot, 0, states, current);
+        if (found >= 0) {
+            reusedRoots++;
+            reusedVisits += tree.visits[found];
+        }
+        return found;
     }
 
     /**
-     * Applies the specified action to a copy of the game state.
-     *
-     * @param childGame The copy of the game state to which the action will be applied.
-     * @param actionType The type of action to apply (PLACE, SELECT, MOVE, DELETE).
-     * @param move The move to be executed.
-     * @param selectedPos The position of the selected piece, if applicable.
+     * Depth first search for the most visited node whose state equals current.
      */
-    private void applyAction(Game childGame, ActionType actionType, int move, int selectedPos) {
-        switch (actionType) {
-            case PLACE:
-            case SELECT:
-            case DELETE:
-                childGame.makeMove(move);
-                break;
-            case MOVE:
-                childGame.setSelectedPiece(selectedPos);
-                childGame.makeMove(move);
-                break;
+    private int findMatch(NodePool tree, int node, int depth, MorrisState[] states, MorrisState current) {
+        if (states[depth].sameAs(current)) {
+            return node;
+        }
+        int best = -1;
+        if (depth == states.length - 1 || !tree.hasChildren(node)) {
+            return best;
         }
+        for (int child = tree.firstChild[node]; child != NodePool.NONE; child = tree.nextSibling[child]) {
+            states[depth + 1].copyFrom(states[depth]);
+            play(states[depth + 1], tree.move[child]);
+            int match = findMatch(tree, child, depth + 1, states, current);
+            if (match >= 0 && (best < 0 || tree.visits[match] > tree.visits[best])) {
+                best = match;
+            }
+        }
+        return best;
+    }
 
-        if (actionType != ActionType.DELETE
-          && childGame.formsMill(move, childGame.getCurrentPlayer())) {
-            childGame.setPhase(-1);
+    private static int childCount(NodePool tree, int node) {
+        int count = 0;
+        for (int child = tree.firstChild(node); child != NodePool.NONE; child = tree.nextSibling[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int mostVisitedChild(NodePool tree, int node) {
+        int best = tree.firstChild(node);
+        for (int child = best; child != NodePool.NONE; child = tree.nextSibling[child]) {
+            if (tree.visits[child] > tree.visits[best]) {
+                best = child;
+            }
         }
+        return best;
     }
 
     /**
-     * Determines the action type to be taken based on the current game phase.
+     * Returns the child with the best UCB value. Every node stores its results from the view of the player
+     * who moved into it, which is the player to move in state. A child proven to win for that player is
+     * returned at once and children proven to lose are skipped, so the result is -1 if all of them lose.
+     * With RAVE the average result of a child is blended with its all-moves-as-first average, which counts
+     * most while the child has few visits. In the turn tree the mill bonus looks at the destination of the turn.
      *
-     * @param g The current game state.
-     * @return The corresponding action type (PLACE, SELECT, MOVE, DELETE).
+     * With priors the exploration term is the PUCT one, c * prior * sqrt(parent visits) / (1 + visits), which
+     * replaces the mill bonus, and only the first WIDENING_BASE + sqrt(parent visits) unproven children
+     * (the most probable ones) are considered.
      */
-    private ActionType getActionType(Game g) {
-        int phase = g.getPhase();
+    private int getBestChild(NodePool tree, int node, MorrisState state, double c) {
+        boolean rave = rave();
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int own = state.pieces[state.toMove];
+        int opp = state.pieces[state.toMove ^ 1];
+        int parentVisits = tree.visits[node];
+        double logVisits = Math.log(parentVisits + 1.0);
+        double sqrtVisits = Math.sqrt(parentVisits + 1.0);
+        int width = priorTree ? WIDENING_BASE + (int) Math.sqrt(Math.max(0, parentVisits)) : Integer.MAX_VALUE;
+
+        for (int child = tree.firstChild(node); child != NodePool.NONE; child = tree.nextSibling[child]) {
+            int winner = tree.winner(child);
+            if (winner == state.toMove) {
+                return child;
+            }
+            if (winner != -1) {
+                continue;
+            }
+            if (width-- == 0) {
+                break;
+            }
+            double childVisits = tree.visits[child] + 1e-6;
+            double avgWinRate = tree.wins(child) / childVisits;
+            int amafVisits = tree.amafVisits[child];
+            if (rave && amafVisits > 0) {
+                double beta = Math.sqrt(RAVE_EQUIVALENCE / (3 * childVisits + RAVE_EQUIVALENCE));
+                avgWinRate = (1 - beta) * avgWinRate + beta * tree.amafWins(child) / amafVisits;
+            }
+            double ucbValue;
+            if (priorTree) {
+                ucbValue = avgWinRate + c * tree.prior[child] * sqrtVisits / (1 + tree.visits[child]);
+            } else {
+                double explorationTerm = Math.sqrt(logVisits / childVisits);
+                ucbValue = avgWinRate + c * explorationTerm;
 
-        if (phase == 0) {
-            return ActionType.PLACE;
-        }
+                int move = turnTree ? MorrisState.turnTo(tree.move[child]) : tree.move[child];
+                if (move != MorrisState.NO_POSITION && state.inMill(own, move)) {
+                    ucbValue += 0.1;
+                }
 
-        if (phase == 1 || phase == 2) {
-            if (g.getSelectedPiece() == -1) {
-                return ActionType.SELECT;
-            } else {
-                return ActionType.MOVE;
+                if (move != MorrisState.NO_POSITION && state.inMill(opp, move)) {
+                    ucbValue -= 0.1;
+                }
             }
-        }
 
-        if (phase < 0) {
-            return ActionType.DELETE;
+            if (ucbValue > bestValue) {
+                bestValue = ucbValue;
+                best = child;
+            }
         }
-
-        return ActionType.PLACE;
+        return best;
     }
 
     /**
-     * Chooses an action randomly from a list of possible actions, with a bias toward the first action.
+     * Evaluates the current board state and returns a score representing the advantage of the player.
      *
-     * @param rolloutGame The current game state during the rollout.
-     * @param actionType The action type to be applied.
-     * @param possibleActions A list of possible actions.
-     * @return The chosen action (move position).
+     * @param state The current game state.
+     * @param player The player for whom the evaluation is performed (0 = BLUE, 1 = RED).
+     * @return A score between -1.0 and 1.0 representing the advantage for the given player.
      */
-    private int pickRolloutAction(Game rolloutGame, ActionType actionType, List<Integer> possibleActions) {
-
-        Random r = new Random();
-        if (!possibleActions.isEmpty() && r.nextDouble() < 0.5) {
-            return possibleActions.get(0);
-        }
-        return possibleActions.get(r.nextInt(possibleActions.size()));
+    static double evaluateBoardState(MorrisState state, int player) {
+        return evaluateBoardState(state, player, null);
     }
 
     /**
-     * Makes a move on the provided game state based on the given action type.
-     *
-     * @param g The current game state.
-     * @param at The action type to be applied.
-     * @param move The move to be executed.
+     * Like {@link #evaluateBoardState(MorrisState, int)}, looking the score up in the cache first if there is one.
      */
-    private void makeRolloutMove(Game g, ActionType at, int move) {
-        switch (at) {
-            case PLACE:
-            case SELECT:
-            case DELETE:
-                g.makeMove(move);
-                break;
-            case MOVE:
-                int oldSelected = g.getSelectedPiece();
-                g.setSelectedPiece(oldSelected);
-                g.makeMove(move);
-                break;
+    static double evaluateBoardState(MorrisState state, int player, EvalCache cache) {
+        if (cache == null) {
+            return heuristicBoardState(state, player);
         }
-
-        if (at != ActionType.DELETE && g.formsMill(move, g.getCurrentPlayer())) {
-            g.setPhase(-1);
+        long key = Zobrist.key(state, player);
+        double score = cache.probe(key);
+        if (Double.isNaN(score)) {
+            score = heuristicBoardState(state, player);
+            cache.store(key, score);
         }
+        return score;
     }
 
-    /**
-     * Creates a deep copy of the provided game state.
-     *
-     * @param original The original game state to be cloned.
-     * @return A new instance of the game with the same state as the original.
-     */
-    private Game cloneGame(Game original) {
-        Game copy = new Game();
-        copy.setIn12MenMorrisVersion(original.isIn12MenMorrisVersion());
-        copy.setPhase(original.getPhase());
-        copy.setCurrentPlayer(original.getCurrentPlayer());
-        copy.setPlacedPiecesBlue(original.getPlacedPiecesBlue());
-        copy.setPlacedPiecesRed(original.getPlacedPiecesRed());
-        copy.setSelectedPiece(original.getSelectedPiece());
+    private static double heuristicBoardState(MorrisState state, int player) {
+        int opp = player ^ 1;
+
+        int pieceDiff = Integer.bitCount(state.pieces[player]) - Integer.bitCount(state.pieces[opp]);
+        int moveDiff = state.mobility(player) - state.mobility(opp);
 
+        double score = 0.5 * pieceDiff + 0.5 * moveDiff;
 
-        Player[] newBoardPositions = Arrays.copyOf(original.getBoardPositions(), 24);
-        copy.setBoardPositions(newBoardPositions);
+        double maxPossible = 24.0;
+        double minPossible = -24.0;
+        double normalized = (score - minPossible) / (maxPossible - minPossible);
 
-        return copy;
+        return Math.max(-1.0, Math.min(1.0, 2.0 * normalized - 1.0));
     }
 
     /**
-     * Evaluates the current board state and returns a score representing the advantage of the player.
-     *
-     * @param game The current game state.
-     * @param player The player for whom the evaluation is performed.
-     * @return A score between -1.0 and 1.0 representing the advantage for the given player.
+     * A search thread. Workers share the tree (or, in the root parallel mode, search their own), and each one
+     * replays moves into its own scratch state and plays its own rollouts.
      */
-    private double evaluateBoardState(Game game, Player player) {
-        Player opp = player.opponent();
+    private final class Worker {
+        private final NodePool tree;
+        private int treeRoot = -1;
+        private final MorrisState scratch;
+        private final RolloutEngine rollouts;
+        private final int[] actions = new int[MorrisState.MAX_TURNS];
+        private final float[] priors = new float[MorrisState.MAX_TURNS];
+        private final double[] scores = new double[MorrisState.MAX_TURNS];
+        private final MorrisState evaluated;   // state after a move whose prior is computed
+        private int[] path = new int[64];
+        private int[] movers = new int[64];   // player who made the move into the node on the path
+        private int[] types = new int[64];    // action type of the move into the node on the path
+        private final int[] played = new int[8];   // positions played below a path node, per player and action type
+        private long iterations = 0;
+
+        Worker(boolean in12MenVersion, SplittableRandom random, NodePool tree) {
+            this.tree = tree;
+            this.scratch = new MorrisState(in12MenVersion);
+            this.evaluated = new MorrisState(in12MenVersion);
+            this.rollouts = new RolloutEngine(in12MenVersion, random);
+        }
 
-        int myCount = getPieceCount(game, player);
-        int oppCount = getPieceCount(game, opp);
+        void search(long endTime, long iterationLimit, int virtualLoss, boolean stopWhenFull) {
+            while (iterations < iterationLimit && System.currentTimeMillis() < endTime && tree.winner(treeRoot) == -1
+                    && !(stopWhenFull && tree.free() == 0)) {
+                int depth = select(virtualLoss);
+                int leaf = path[depth];
+
+                // Only the worker that wins the expansion continues below the leaf; the others simulate
+                // from the leaf itself. A proven leaf is terminal: recycling may have dropped its children, and
+                // rebuilding them would only search a result that is already known.
+                if (scratch.loser() == -1 && tree.winner(leaf) == -1 && tree.firstChild(leaf) == NodePool.UNEXPANDED
+                        && expand(leaf) && tree.hasChildren(leaf)) {
+                    // continue with a random new child, or with the most probable one if there are priors
+                    int child = tree.firstChild(leaf);
+                    for (int skip = priorTree ? 0 : rollouts.nextInt(childCount(tree, leaf)); skip > 0; skip--) {
+                        child = tree.nextSibling[child];
+                    }
+                    depth = push(depth, child, virtualLoss);
+                }
 
-        int pieceDiff = myCount - oppCount;
+                int player = scratch.toMove;
+                int actionType = scratch.actionType();
+                boolean playedOut = false;
+                double result;
+                int loser = scratch.loser();
+                if (loser != -1 && loser != MorrisState.DRAW) {
+                    tree.setWinner(path[depth], loser ^ 1);
+                }
+                int winner = tree.winner(path[depth]);
+                if (winner != -1) {
+                    // a proven node needs no playout
+                    propagateProof(depth);
+                    result = winner == player ? 1.0 : -1.0;
+                } else if (loser == MorrisState.DRAW) {
+                    // a drawn node needs no playout either; it stays unproven, so no loss is proven through it
+                    result = 0.0;
+                } else {
+                    result = rollouts.playout(scratch);
+                    playedOut = true;
+                }
 
-        int myMoves = countAllPossibleMoves(game, player);
-        int oppMoves = countAllPossibleMoves(game, opp);
+                backpropagate(depth, player, result, virtualLoss);
+                if (rave()) {
+                    updateAmaf(depth, player, actionType, result, playedOut);
+                }
+                iterations++;
+            }
+        }
 
+        /**
+         * Expands the leaf, whose state is in scratch, with its actions or turns.
+         *
+         * @return true if this worker expanded the leaf
+         */
+        private boolean expand(int leaf) {
+            int count = turnTree ? scratch.turns(actions) : scratch.actions(actions);
+            if (!priorTree) {
+                return tree.expand(leaf, actions, count);
+            }
+            computePriors(count);
+            return tree.expand(leaf, actions, priors, count);
+        }
 
-        double score = 0.5 * pieceDiff + 0.5 * (myMoves - oppMoves);
+        /**
+         * Scores the moves in actions with the line heuristic of AlphaBetaBot for the player to move, turns the
+         * scores into priors and sorts the moves by prior, the most probable first.
+         */
+        private void computePriors(int count) {
+            int player = scratch.toMove;
+            boolean placing = scratch.placed[player] < scratch.requiredPieces;
+            double maxScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                evaluated.copyFrom(scratch);
+                play(evaluated, actions[i]);
+                scores[i] = AlphaBetaBot.lineScore(scratch.in12MenVersion, placing,
+                        evaluated.pieces[player], evaluated.pieces[player ^ 1]);
+                maxScore = Math.max(maxScore, scores[i]);
+            }
+            double sum = 0;
+            for (int i = 0; i < count; i++) {
+                scores[i] = Math.exp((scores[i] - maxScore) / PRIOR_TEMPERATURE);
+                sum += scores[i];
+            }
+            for (int i = 0; i < count; i++) {
+                float prior = (float) ((1 - PRIOR_UNIFORM_SHARE) * scores[i] / sum + PRIOR_UNIFORM_SHARE / count);
+                int action = actions[i];
+                int j = i;
+                for (; j > 0 && priors[j - 1] < prior; j--) {
+                    priors[j] = priors[j - 1];
+                    actions[j] = actions[j - 1];
+                }
+                priors[j] = prior;
+                actions[j] = action;
+            }
+        }
 
-        double maxPossible = 24.0;
-        double minPossible = -24.0;
-        double normalized = (score - minPossible) / (maxPossible - minPossible);
+        /**
+         * Walks down from the root along the best children by the UCB formula, replaying the moves into
+         * the scratch state, and records the path. It stops at a node without children or at a proven node,
+         * which is terminal: the search neither descends below it nor expands it.
+         *
+         * @return the depth of the reached node on the path
+         */
+        private int select(int virtualLoss) {
+            scratch.copyFrom(rootState);
+            path[0] = treeRoot;
+            movers[0] = -1;
+            addVirtualLoss(treeRoot, virtualLoss);
+            int depth = 0;
+            int node = treeRoot;
+            while (tree.hasChildren(node) && tree.winner(node) == -1) {
+                node = getBestChild(tree, node, scratch, EXPLORATION_CONSTANT);
+                if (node == -1) {
+                    // all children are lost, but the proof has not reached this node yet
+                    break;
+                }
+                depth = push(depth, node, virtualLoss);
+            }
+            return depth;
+        }
 
-        return 2.0 * normalized - 1.0;
-    }
+        /**
+         * Appends a child to the path and applies its move to the scratch state.
+         */
+        private int push(int depth, int child, int virtualLoss) {
+            depth++;
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                movers = Arrays.copyOf(movers, depth * 2);
+                types = Arrays.copyOf(types, depth * 2);
+            }
+            path[depth] = child;
+            movers[depth] = scratch.toMove;
+            types[depth] = scratch.actionType();
+            play(scratch, tree.move[child]);
+            addVirtualLoss(child, virtualLoss);
+            return depth;
+        }
 
-    /**
-     * Counts all possible valid moves for the given player.
-     *
-     * @param game The current game state.
-     * @param p The player for whom the valid moves are counted.
-     * @return The total number of valid moves available for the given player.
-     */
-    private int countAllPossibleMoves(Game game, Player p) {
-        int count = 0;
+        /**
+         * Carries the proven result of the node at the given depth up the path: a node is won for the player
+         * to move if one child wins for them, and lost if all children lose.
+         */
+        private void propagateProof(int depth) {
+            for (int i = depth - 1; i >= 0; i--) {
+                int winner = tree.winner(path[i + 1]);
+                int player = movers[i + 1];   // the player to move at path[i]
+                if (winner == -1) {
+                    return;
+                }
+                if (winner != player) {
+                    for (int child = tree.firstChild(path[i]); child != NodePool.NONE;
+                         child = tree.nextSibling[child]) {
+                        if (tree.winner(child) != winner) {
+                            return;
+                        }
+                    }
+                }
+                tree.setWinner(path[i], winner);
+            }
+        }
 
-        if (game.getPhase() == 0) {
-            for (Player pos : game.getBoardPositions()) {
-                if (pos == null) count++;
+        /**
+         * Updates the all-moves-as-first statistics along the path: every child of a path node whose move the
+         * player to move there played later in the simulation, in the tree or in the playout, gets the result.
+         *
+         * @param depth the depth of the simulated node on the path
+         * @param player the player to move at the simulated node, whom the result is seen from
+         * @param actionType the action type at the simulated node
+         * @param result the result of the simulation
+         * @param playedOut whether the result comes from a playout, whose actions count as well
+         */
+        private void updateAmaf(int depth, int player, int actionType, double result, boolean playedOut) {
+            for (int i = 0; i < played.length; i++) {
+                played[i] = playedOut ? rollouts.played(i >> 2, i & 3) : 0;
+            }
+            int toMove = player;
+            int type = actionType;
+            for (int i = depth; i >= 0; i--) {
+                int node = path[i];
+                int moves = played[toMove << 2 | type];
+                if (moves != 0 && tree.hasChildren(node)) {
+                    double childResult = toMove == player ? result : -result;
+                    for (int child = tree.firstChild(node); child != NodePool.NONE; child = tree.nextSibling[child]) {
+                        if ((moves >> tree.move[child] & 1) != 0) {
+                            tree.addAmaf(child, childResult);
+                        }
+                    }
+                }
+                if (i > 0) {
+                    toMove = movers[i];
+                    type = types[i];
+                    played[toMove << 2 | type] |= 1 << tree.move[node];
+                }
             }
-            return count;
         }
 
-        for (int i = 0; i < 24; i++) {
-            if (game.getBoardPositions()[i] == p) {
-                count += game.getValidMoves().size();
+        private void addVirtualLoss(int node, int virtualLoss) {
+            if (virtualLoss != 0) {
+                tree.addVisits(node, virtualLoss);
+                tree.addWins(node, -virtualLoss);
             }
         }
-        return count;
+
+        /**
+         * Backpropagates the result of a simulation along the path and takes back the virtual loss.
+         *
+         * @param depth the depth of the simulated node on the path
+         * @param player the player the result is seen from
+         * @param result the result of the simulation
+         * @param virtualLoss the virtual loss charged on the way down
+         */
+        private void backpropagate(int depth, int player, double result, int virtualLoss) {
+            for (int i = 0; i <= depth; i++) {
+                int node = path[i];
+                tree.addVisits(node, 1 - virtualLoss);
+                tree.addWins(node, (movers[i] == player ? result : -result) + virtualLoss);
+            }
+        }
+    }
+
+    /**
+     * How several search threads share the work.
+     */
+    public enum Parallelism {
+        /** All threads search one shared tree, spread out by virtual loss. */
+        TREE,
+        /** Every thread searches a tree of its own from the same root; the root visits are summed at the end. */
+        ROOT
     }
 
     /**
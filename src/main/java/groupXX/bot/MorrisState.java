@@ -0,0 +1,523 @@
+package groupXX.bot;
+
+import groupXX.Game;
+import groupXX.Player;
+
+import java.util.SplittableRandom;
+
+/**
+ * MorrisState is a compact, mutable copy of the rules state of a {@link Game}: one bitboard per player, the placed
+ * piece counts, the player to move, the phase (with the same values as {@link Game#getPhase()}) and the selected
+ * piece. It follows the same rules as Game, action by action, but without lists, undo stacks or console output,
+ * so searches can keep a few scratch states and replay moves into them instead of cloning games.
+ */
+public final class MorrisState {
+    public static final int PLACE = 0;
+    public static final int SELECT = 1;
+    public static final int MOVE = 2;
+    public static final int DELETE = 3;
+
+    /** Upper bound for the number of actions of a single decision. */
+    public static final int MAX_ACTIONS = 24;
+    /** Upper bound for the number of turns of a single decision (a flying move that closes a mill, times the captures). */
+    public static final int MAX_TURNS = 1024;
+    /** Part of a turn that is left out, e.g. the source of a placement or the capture of a move without mill. */
+    public static final int NO_POSITION = 31;
+    /** Result of {@link #loser()} for a drawn game. */
+    public static final int DRAW = 2;
+    /** Moves without a capture after which the game is drawn, like the 50-move rule of Game. */
+    public static final int DRAW_MOVES = 50;
+
+    final int[] pieces = new int[2];   // bitboards, indexed by player (0 = BLUE, 1 = RED)
+    final int[] placed = new int[2];
+    int toMove;
+    int phase;
+    int selected = -1;
+    int quietMoves;   // moves without a mill since the last capture, like Game#moveWithoutCapture
+
+    final boolean in12MenVersion;
+    final int requiredPieces;
+    private final int[] adjacency;
+    private final int[][] linesAt;
+
+    public MorrisState(boolean in12MenVersion) {
+        this.in12MenVersion = in12MenVersion;
+        this.requiredPieces = in12MenVersion ? 12 : 9;
+        this.adjacency = Bitboards.adjacency(in12MenVersion);
+        this.linesAt = linesAt(Bitboards.lineMasks(in12MenVersion));
+    }
+
+    public MorrisState(Game game) {
+        this(game.isIn12MenMorrisVersion());
+        copyFrom(game);
+    }
+
+    private static int[][] linesAt(int[] lines) {
+        int[][] result = new int[24][];
+        for (int position = 0; position < 24; position++) {
+            int count = 0;
+            for (int line : lines) {
+                if ((line >> position & 1) != 0) count++;
+            }
+            result[position] = new int[count];
+            count = 0;
+            for (int line : lines) {
+                if ((line >> position & 1) != 0) result[position][count++] = line;
+            }
+        }
+        return result;
+    }
+
+    public void copyFrom(Game game) {
+        pieces[0] = Bitboards.mask(game.getBoardPositions(), Player.BLUE);
+        pieces[1] = Bitboards.mask(game.getBoardPositions(), Player.RED);
+        placed[0] = game.getPlacedPiecesBlue();
+        placed[1] = game.getPlacedPiecesRed();
+        toMove = game.getCurrentPlayer() == Player.BLUE ? 0 : 1;
+        phase = game.getPhase();
+        selected = game.getSelectedPiece();
+        quietMoves = game.moveWithoutCapture;
+    }
+
+    /**
+     * Copies the board, the placed counts and the player to move of a search state. A GameState has no phase of
+     * its own, so the phase follows from the placed pieces of the player to move, as after a completed turn.
+     */
+    public void copyFrom(GameState state) {
+        pieces[0] = Bitboards.mask(state.boardPositions, Player.BLUE);
+        pieces[1] = Bitboards.mask(state.boardPositions, Player.RED);
+        placed[0] = state.moveCountBlue;
+        placed[1] = state.moveCountRed;
+        toMove = state.currentPlayer == Player.BLUE ? 0 : 1;
+        phase = placed[toMove] != requiredPieces ? 0 : toMove + 1;
+        selected = -1;
+        quietMoves = 0;
+    }
+
+    public void copyFrom(MorrisState other) {
+        pieces[0] = other.pieces[0];
+        pieces[1] = other.pieces[1];
+        placed[0] = other.placed[0];
+        placed[1] = other.placed[1];
+        toMove = other.toMove;
+        phase = other.phase;
+        selected = other.selected;
+        quietMoves = other.quietMoves;
+    }
+
+    /**
+     * Returns true if both states describe the same decision. The moves since the last capture are left out, as
+     * they only matter for the draw at {@link #DRAW_MOVES}.
+     */
+    public boolean sameAs(MorrisState other) {
+        return pieces[0] == other.pieces[0] && pieces[1] == other.pieces[1]
+                && placed[0] == other.placed[0] && placed[1] == other.placed[1]
+                && toMove == other.toMove && phase == other.phase && selected == other.selected;
+    }
+
+    /**
+     * Creates a Game in this state, e.g. to hand it to code that works on games.
+     */
+    public Game toGame() {
+        Game game = new Game();
+        game.setIn12MenMorrisVersion(in12MenVersion);
+        Player[] boardPositions = new Player[24];
+        for (int position = 0; position < 24; position++) {
+            if ((pieces[0] >> position & 1) != 0) {
+                boardPositions[position] = Player.BLUE;
+            } else if ((pieces[1] >> position & 1) != 0) {
+                boardPositions[position] = Player.RED;
+            }
+        }
+        game.setBoardPositions(boardPositions);
+        game.setPlacedPiecesBlue(placed[0]);
+        game.setPlacedPiecesRed(placed[1]);
+        game.setCurrentPlayer(player(toMove));
+        game.setPhase(phase);
+        game.setSelectedPiece(selected);
+        game.moveWithoutCapture = quietMoves;
+        return game;
+    }
+
+    public static Player player(int index) {
+        return index == 0 ? Player.BLUE : Player.RED;
+    }
+
+    public Player currentPlayer() {
+        return player(toMove);
+    }
+
+    public int empty() {
+        return ~(pieces[0] | pieces[1]) & Bitboards.FULL;
+    }
+
+    /**
+     * The kind of action the player to move has to choose.
+     */
+    public int actionType() {
+        if (phase == 0) {
+            return PLACE;
+        }
+        if (phase > 0) {
+            return selected == -1 ? SELECT : MOVE;
+        }
+        return DELETE;
+    }
+
+    /**
+     * Flying: the player has placed all pieces and has exactly 3 left.
+     */
+    public boolean isFlying(int player) {
+        return placed[player] == requiredPieces && Integer.bitCount(pieces[player]) == 3;
+    }
+
+    /**
+     * Returns true if the pieces contain a mill through the position.
+     */
+    public boolean inMill(int playerPieces, int position) {
+        for (int line : linesAt[position]) {
+            if ((playerPieces & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the pieces of the player that can move (all of them when flying).
+     */
+    public int movablePieces(int player) {
+        int own = pieces[player];
+        int empty = empty();
+        if (isFlying(player)) {
+            return empty != 0 ? own : 0;
+        }
+        int result = 0;
+        for (int rest = own; rest != 0; rest &= rest - 1) {
+            int position = Integer.numberOfTrailingZeros(rest);
+            if ((adjacency[position] & empty) != 0) {
+                result |= 1 << position;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of moves the player has (the number of empty positions while placing).
+     */
+    public int mobility(int player) {
+        int empty = empty();
+        if (phase == 0) {
+            return Integer.bitCount(empty);
+        }
+        if (isFlying(player)) {
+            return Integer.bitCount(pieces[player]) * Integer.bitCount(empty);
+        }
+        int count = 0;
+        for (int rest = pieces[player]; rest != 0; rest &= rest - 1) {
+            count += Integer.bitCount(adjacency[Integer.numberOfTrailingZeros(rest)] & empty);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the opponent pieces the player may delete: those outside mills, or any if all are in mills.
+     */
+    public int deletablePieces(int player) {
+        int opp = pieces[player ^ 1];
+        int result = 0;
+        for (int rest = opp; rest != 0; rest &= rest - 1) {
+            int position = Integer.numberOfTrailingZeros(rest);
+            if (!inMill(opp, position)) {
+                result |= 1 << position;
+            }
+        }
+        return result == 0 ? opp : result;
+    }
+
+    /**
+     * Returns the positions the selected piece can go to.
+     */
+    public int targets() {
+        return targets(selected);
+    }
+
+    private int targets(int from) {
+        return isFlying(toMove) ? empty() : adjacency[from] & empty();
+    }
+
+    /**
+     * Writes the actions of the current decision into the buffer, actions that close a mill
+     * (or, when deleting, pieces outside mills) first, and returns their number.
+     */
+    public int actions(int[] buffer) {
+        int candidates;
+        int preferred;
+        switch (actionType()) {
+            case PLACE -> {
+                candidates = empty();
+                preferred = millSquares(candidates, toMove);
+            }
+            case SELECT -> {
+                candidates = movablePieces(toMove);
+                preferred = 0;
+            }
+            case MOVE -> {
+                candidates = targets();
+                preferred = millSquares(candidates, toMove);
+            }
+            default -> {
+                candidates = deletablePieces(toMove);
+                preferred = candidates & ~millPieces(pieces[toMove ^ 1]);
+            }
+        }
+        int count = 0;
+        for (int rest = preferred; rest != 0; rest &= rest - 1) {
+            buffer[count++] = Integer.numberOfTrailingZeros(rest);
+        }
+        for (int rest = candidates & ~preferred; rest != 0; rest &= rest - 1) {
+            buffer[count++] = Integer.numberOfTrailingZeros(rest);
+        }
+        return count;
+    }
+
+    /**
+     * Writes the rest of the current turn of the player to move into the buffer, as packed turns (see
+     * {@link #turn(int, int, int)}): the placement or the move, and the capture if it closes a mill. In the middle
+     * of a turn only its remaining parts are given, e.g. just the capture after a mill. Returns the number of turns.
+     */
+    public int turns(int[] buffer) {
+        int count = 0;
+        switch (actionType()) {
+            case PLACE -> {
+                for (int rest = empty(); rest != 0; rest &= rest - 1) {
+                    count = addTurns(buffer, count, NO_POSITION, Integer.numberOfTrailingZeros(rest));
+                }
+            }
+            case SELECT -> {
+                for (int pieces = movablePieces(toMove); pieces != 0; pieces &= pieces - 1) {
+                    int from = Integer.numberOfTrailingZeros(pieces);
+                    for (int rest = targets(from); rest != 0; rest &= rest - 1) {
+                        count = addTurns(buffer, count, from, Integer.numberOfTrailingZeros(rest));
+                    }
+                }
+            }
+            case MOVE -> {
+                for (int rest = targets(); rest != 0; rest &= rest - 1) {
+                    count = addTurns(buffer, count, NO_POSITION, Integer.numberOfTrailingZeros(rest));
+                }
+            }
+            default -> {
+                for (int rest = deletablePieces(toMove); rest != 0; rest &= rest - 1) {
+                    buffer[count++] = turn(NO_POSITION, NO_POSITION, Integer.numberOfTrailingZeros(rest));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the turns that put a piece of the player to move from the source (NO_POSITION for a placement or for
+     * the selected piece) on the destination: one per capture if that closes a mill, otherwise one without.
+     */
+    private int addTurns(int[] buffer, int count, int from, int to) {
+        int own = pieces[toMove];
+        int source = from != NO_POSITION ? from : selected;
+        if (source != -1) {
+            own &= ~(1 << source);
+        }
+        if (!inMill(own | 1 << to, to)) {
+            buffer[count++] = turn(from, to, NO_POSITION);
+            return count;
+        }
+        // the opponent pieces are not changed by the first part of the turn
+        for (int rest = deletablePieces(toMove); rest != 0; rest &= rest - 1) {
+            buffer[count++] = turn(from, to, Integer.numberOfTrailingZeros(rest));
+        }
+        return count;
+    }
+
+    /**
+     * Packs a turn into an int of 15 bits, five for every part.
+     */
+    public static int turn(int from, int to, int capture) {
+        return from << 10 | to << 5 | capture;
+    }
+
+    public static int turnFrom(int turn) {
+        return turn >> 10 & 31;
+    }
+
+    public static int turnTo(int turn) {
+        return turn >> 5 & 31;
+    }
+
+    public static int turnCapture(int turn) {
+        return turn & 31;
+    }
+
+    /**
+     * Returns the action of the turn for the current decision, e.g. the source of the turn while selecting.
+     */
+    public int turnAction(int turn) {
+        return switch (actionType()) {
+            case SELECT -> turnFrom(turn);
+            case PLACE, MOVE -> turnTo(turn);
+            default -> turnCapture(turn);
+        };
+    }
+
+    /**
+     * Applies the rest of a turn from {@link #turns(int[])} action by action.
+     */
+    public void applyTurn(int turn) {
+        if (actionType() == SELECT) {
+            apply(turnFrom(turn));
+        }
+        if (turnTo(turn) != NO_POSITION) {
+            apply(turnTo(turn));
+        }
+        if (turnCapture(turn) != NO_POSITION) {
+            apply(turnCapture(turn));
+        }
+    }
+
+    /**
+     * Returns the positions among the candidates where a piece of the player would close a mill
+     * (the selected piece is taken off the board first when moving).
+     */
+    private int millSquares(int candidates, int player) {
+        int own = pieces[player];
+        if (selected != -1) {
+            own &= ~(1 << selected);
+        }
+        int result = 0;
+        for (int rest = candidates; rest != 0; rest &= rest - 1) {
+            int position = Integer.numberOfTrailingZeros(rest);
+            if (inMill(own | 1 << position, position)) {
+                result |= 1 << position;
+            }
+        }
+        return result;
+    }
+
+    private int millPieces(int playerPieces) {
+        int result = 0;
+        for (int rest = playerPieces; rest != 0; rest &= rest - 1) {
+            int position = Integer.numberOfTrailingZeros(rest);
+            if (inMill(playerPieces, position)) {
+                result |= 1 << position;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies an action of the current decision, following {@link Game#makeMove(int)}.
+     */
+    public void apply(int position) {
+        switch (actionType()) {
+            case PLACE -> {
+                pieces[toMove] |= 1 << position;
+                placed[toMove]++;
+                millOrSwitchPlayer(position);
+            }
+            case SELECT -> selected = position;
+            case MOVE -> {
+                pieces[toMove] = pieces[toMove] & ~(1 << selected) | 1 << position;
+                selected = -1;
+                millOrSwitchPlayer(position);
+                if (phase >= 0) {
+                    quietMoves++;
+                }
+            }
+            default -> {
+                pieces[toMove ^ 1] &= ~(1 << position);
+                quietMoves = 0;
+                switchPlayer();
+                phase = placed[0] == requiredPieces && placed[1] == requiredPieces ? toMove + 1 : 0;
+            }
+        }
+    }
+
+    private void millOrSwitchPlayer(int position) {
+        if (inMill(pieces[toMove], position)) {
+            phase = -(toMove + 1);
+        } else {
+            switchPlayer();
+        }
+    }
+
+    private void switchPlayer() {
+        toMove ^= 1;
+        phase = placed[toMove] != requiredPieces ? 0 : toMove + 1;
+        selected = -1;
+    }
+
+    /**
+     * Returns the losing player (0 or 1) or {@link #DRAW} if the game is over, following Game's rules in the same
+     * order: in the moving phase a player with fewer than 3 pieces loses, and so does the player to move if it
+     * cannot move; otherwise 3 against 3 pieces after the placing phase and {@link #DRAW_MOVES} moves without a
+     * capture are drawn. Returns -1 otherwise.
+     */
+    public int loser() {
+        if (phase <= 0) {
+            return -1;
+        }
+        if (Integer.bitCount(pieces[0]) < 3) {
+            return 0;
+        }
+        if (Integer.bitCount(pieces[1]) < 3) {
+            return 1;
+        }
+        if (movablePieces(toMove) == 0) {
+            return toMove;
+        }
+        boolean placingDone = placed[0] == requiredPieces && placed[1] == requiredPieces;
+        if (placingDone && Integer.bitCount(pieces[0]) == 3 && Integer.bitCount(pieces[1]) == 3
+                || quietMoves >= DRAW_MOVES) {
+            return DRAW;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the network input of this Nine Men's Morris position, like {@link GameSituation#inputForNet}: 0 for
+     * an empty square, 1 for blue and 2 for red on each of the 24 squares, then the given player (0 or 1) as 1 or 2.
+     */
+    public int[] netInput(int player) {
+        return netInput(player, new int[25]);
+    }
+
+    /**
+     * Writes the network input of {@link #netInput(int)} into the given array of 25 values and returns it.
+     */
+    public int[] netInput(int player, int[] input) {
+        for (int position = 0; position < 24; position++) {
+            input[position] = (pieces[0] >> position & 1) != 0 ? 1 : (pieces[1] >> position & 1) != 0 ? 2 : 0;
+        }
+        input[24] = player + 1;
+        return input;
+    }
+
+    /**
+     * Returns Nine Men's Morris positions reached by random play from the start, spread over all phases.
+     */
+    public static MorrisState[] randomPositions(int count, SplittableRandom random) {
+        MorrisState[] positions = new MorrisState[count];
+        int[] actions = new int[MAX_ACTIONS];
+        for (int i = 0; i < count; i++) {
+            MorrisState state = new MorrisState(false);
+            int plies = random.nextInt(60);
+            for (int ply = 0; ply < plies && state.loser() == -1; ply++) {
+                int actionCount = state.actions(actions);
+                if (actionCount == 0) {
+                    break;
+                }
+                state.apply(actions[random.nextInt(actionCount)]);
+            }
+            positions[i] = state;
+        }
+        return positions;
+    }
+}
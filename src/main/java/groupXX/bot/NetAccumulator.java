@@ -0,0 +1,40 @@
+package groupXX.bot;
+
+/**
+ * NetAccumulator keeps the hidden layer sums of a base position and updates them incrementally. The first layer
+ * is linear in the inputs, so changing an input adds the change times its weight row to the sums. A move changes
+ * one to three squares, so evaluating a successor from the base costs a few row additions, the hidden activation
+ * and the output, instead of all rows of the successor.
+ *
+ * The sums are kept in the number format of the network they come from (see {@link NetModel#accumulator()}).
+ * A floating point accumulator sums in a different order than a full forward pass, so the outputs may differ in
+ * the last bits. An accumulator is used by one thread at a time.
+ */
+public interface NetAccumulator {
+
+    /**
+     * Makes the given board input the base position and computes its sums from scratch.
+     * @param input The board input
+     */
+    void reset(int[] input);
+
+    /**
+     * Changes one input of the base position.
+     * @param index The input (a square, or 24 for the player to move)
+     * @param value The new board value
+     */
+    void set(int index, int value);
+
+    /**
+     * Evaluates the base position.
+     * @return Output value
+     */
+    double evaluate();
+
+    /**
+     * Evaluates a position that differs from the base position in a few inputs, leaving the base unchanged.
+     * @param input The board input of the position
+     * @return Output value
+     */
+    double evaluate(int[] input);
+}
@@ -10,11 +10,18 @@ import java.util.List;
 import java.util.Random;
 
 // Base class NetBase
+// The weights are stored in flat row-major arrays with one row per node of the lower layer: the weight from
+// input i to hidden node j is weightsInputHidden[i * hiddenNodes + j]. The hidden layer is then the sum of the
+// rows of the inputs, read front to back, and is summed in the same order as with the former double[][] arrays.
 public abstract class NetBase {
-    protected double[][] weightsInputHidden; // Weights from input layer to hidden layer
-    protected double[][] weightsHiddenOutput; // Weights from hidden layer to output layer
+    protected int inputNodes;
+    protected int hiddenNodes;
+    protected int outputNodes;
+    protected double[] weightsInputHidden; // Weights from input layer to hidden layer
+    protected double[] weightsHiddenOutput; // Weights from hidden layer to output layer
     protected double[] hiddenLayer; // Output from hidden layer
     protected double output; // Output value from the output layer
+    private NetWeights weights; // Evaluates with the weights above
 
     /**
      * Initializes the neural network with input, hidden, and output nodes
@@ -23,9 +30,13 @@ public abstract class NetBase {
      * @param outputNodes Number of output nodes
      */
     public void initNet(int inputNodes, int hiddenNodes, int outputNodes) {
-        weightsInputHidden = new double[inputNodes][hiddenNodes]; // Weights from input to hidden layer
-        weightsHiddenOutput = new double[hiddenNodes][outputNodes]; // Weights from hidden to output layer
+        this.inputNodes = inputNodes;
+        this.hiddenNodes = hiddenNodes;
+        this.outputNodes = outputNodes;
+        weightsInputHidden = new double[inputNodes * hiddenNodes]; // Weights from input to hidden layer
+        weightsHiddenOutput = new double[hiddenNodes * outputNodes]; // Weights from hidden to output layer
         hiddenLayer = new double[hiddenNodes]; // Output of hidden layer
+        weights = NetWeights.sigmoidNet(inputNodes, hiddenNodes, outputNodes, weightsInputHidden, weightsHiddenOutput);
 
         // Initialize weights randomly
         initializeWeights(inputNodes, hiddenNodes, outputNodes);
@@ -41,12 +52,12 @@ public abstract class NetBase {
         Random rand = new Random();
         for (int i = 0; i < inputNodes; i++) {
             for (int j = 0; j < hiddenNodes; j++) {
-                weightsInputHidden[i][j] = rand.nextDouble() * 2 - 1; // Range [-1, 1]
+                weightsInputHidden[i * hiddenNodes + j] = rand.nextDouble() * 2 - 1; // Range [-1, 1]
             }
         }
         for (int i = 0; i < hiddenNodes; i++) {
             for (int j = 0; j < outputNodes; j++) {
-                weightsHiddenOutput[i][j] = rand.nextDouble() * 2 - 1; // Range [-1, 1]
+                weightsHiddenOutput[i * outputNodes + j] = rand.nextDouble() * 2 - 1; // Range [-1, 1]
             }
         }
     }
@@ -59,28 +70,27 @@ public abstract class NetBase {
      * @return Output value
      */
     public double forward(double[] input) {
-        // Check if input array size matches expected size
-        if (input.length != weightsInputHidden.length) {
-            throw new IllegalArgumentException("Input size does not match expected size.");
-        }
-
-        // Calculate hidden layer values
-        for (int i = 0; i < hiddenLayer.length; i++) {
-            hiddenLayer[i] = 0;
-            for (int j = 0; j < weightsInputHidden.length; j++) {
-                hiddenLayer[i] += input[j] * weightsInputHidden[j][i];
-            }
-            hiddenLayer[i] = sigmoid(hiddenLayer[i]); // Apply sigmoid activation function
-        }
+        output = forward(input, hiddenLayer);
+        return output;
+    }
 
-        // Calculate output layer value
-        output = 0;
-        for (int i = 0; i < hiddenLayer.length; i++) {
-            output += hiddenLayer[i] * weightsHiddenOutput[i][0];
-        }
-        output = sigmoid(output); // Apply sigmoid activation function
+    /**
+     * Forward propagation into a caller-supplied buffer; the network itself is not changed
+     * @param input Input array
+     * @param hidden Buffer for the hidden layer values, at least hiddenNodes long
+     * @return Output value
+     */
+    public double forward(double[] input, double[] hidden) {
+        return weights.forward(input, hidden);
+    }
 
-        return output;
+    /**
+     * Returns the weights of this network for evaluation without the hiddenLayer and output fields. They are not
+     * copied, so they change when the network trains; use {@link NetWeights#copyOf(NetBase)} for a fixed copy
+     * @return The weights of this network
+     */
+    public NetWeights weights() {
+        return weights;
     }
 
     /**
@@ -94,22 +104,10 @@ public abstract class NetBase {
     }
 
     public void loadNetFromLines(List<String> lines) {
-        // Read weights from input to hidden layer
-        for (int i = 0; i < weightsInputHidden.length; i++) {
-            String line = lines.get(i);
-            String[] values = line.split(","); // Assumes comma-separated values
-            for (int j = 0; j < weightsInputHidden[i].length; j++) {
-                weightsInputHidden[i][j] = Double.parseDouble(values[j]);
-            }
-        }
-        // Read weights from hidden to output layer
-        for (int i = 0; i < weightsHiddenOutput.length; i++) {
-            String line = lines.get(i + weightsInputHidden.length);
-            String[] values = line.split(","); // Assumes comma-separated values
-            for (int j = 0; j < weightsHiddenOutput[i].length; j++) {
-                weightsHiddenOutput[i][j] = Double.parseDouble(values[j]);
-            }
-        }
+        // Read weights from input to hidden layer, one line per input
+        NetWeights.readRows(lines, 0, inputNodes, hiddenNodes, weightsInputHidden);
+        // Read weights from hidden to output layer, one line per hidden node
+        NetWeights.readRows(lines, inputNodes, hiddenNodes, outputNodes, weightsHiddenOutput);
     }
 
     /**
@@ -128,32 +126,28 @@ public abstract class NetBase {
         File file = new File(directoryPath, fileName);
 
         try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
-            // Save weights from input to hidden layer
-            for (double[] row : weightsInputHidden) {
-                for (int j = 0; j < row.length; j++) {
-                    bw.write(String.valueOf(row[j]));
-                    if (j < row.length - 1) {
-                        bw.write(","); // Comma-separated values
-                    }
-                }
-                bw.newLine();
-            }
+            // Save weights from input to hidden layer, one line per input
+            writeRows(bw, weightsInputHidden, inputNodes, hiddenNodes);
 
-            // Save weights from hidden to output layer
-            for (double[] row : weightsHiddenOutput) {
-                for (int j = 0; j < row.length; j++) {
-                    bw.write(String.valueOf(row[j]));
-                    if (j < row.length - 1) {
-                        bw.write(","); // Comma-separated values
-                    }
-                }
-                bw.newLine();
-            }
+            // Save weights from hidden to output layer, one line per hidden node
+            writeRows(bw, weightsHiddenOutput, hiddenNodes, outputNodes);
         }
 
         return fileName; // Return the saved file name
     }
 
+    private static void writeRows(BufferedWriter bw, double[] weights, int rows, int columns) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                bw.write(String.valueOf(weights[i * columns + j]));
+                if (j < columns - 1) {
+                    bw.write(","); // Comma-separated values
+                }
+            }
+            bw.newLine();
+        }
+    }
+
     /**
      * Sigmoid activation function
      * @param x Input value
@@ -172,16 +166,16 @@ public abstract class NetBase {
         double deltaOutput = outputError * output * (1 - output); // Output layer gradient
 
         // Update weights from hidden to output layer
-        for (int i = 0; i < hiddenLayer.length; i++) {
-            weightsHiddenOutput[i][0] += deltaOutput * hiddenLayer[i];
+        for (int i = 0; i < hiddenNodes; i++) {
+            weightsHiddenOutput[i * outputNodes] += deltaOutput * hiddenLayer[i];
         }
 
         // Update weights from input to hidden layer
-        for (int i = 0; i < weightsInputHidden.length; i++) {
-            for (int j = 0; j < hiddenLayer.length; j++) {
-                double hiddenError = deltaOutput * weightsHiddenOutput[j][0]; // Hidden layer error
+        for (int i = 0; i < inputNodes; i++) {
+            for (int j = 0; j < hiddenNodes; j++) {
+                double hiddenError = deltaOutput * weightsHiddenOutput[j * outputNodes]; // Hidden layer error
                 double deltaHidden = hiddenError * hiddenLayer[j] * (1 - hiddenLayer[j]); // Hidden layer gradient
-                weightsInputHidden[i][j] += deltaHidden;
+                weightsInputHidden[i * hiddenNodes + j] += deltaHidden;
             }
         }
     }
@@ -0,0 +1,313 @@
+package groupXX.bot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Checks of the network inference, see {@link Checks}.
+ */
+final class NetChecks {
+
+    private static final String NETWORK = "bestnet/20241109075547.txt";
+
+    private NetChecks() {
+    }
+
+    /**
+     * The Vector API kernels give the outputs of the scalar loops, up to the last bits of the vectorized sigmoid,
+     * for a random network on random positions. Passes without checking when the JVM runs without
+     * {@code --add-modules jdk.incubator.vector}.
+     */
+    static void vectorKernels() {
+        if (!NetKernels.VECTOR_API_AVAILABLE) {
+            return;
+        }
+        NeuralNetwork net = new NeuralNetwork();
+        net.initNet();
+        int[][] inputs = Benchmark.netInputs(1000, new SplittableRandom(41));
+        try {
+            for (int[] input : inputs) {
+                NetKernels.vectorized = false;
+                double scalar = net.forward(input);
+                NetKernels.vectorized = true;
+                double vector = net.forward(input);
+                Checks.require(Math.abs(vector - scalar) <= 1e-12, "vector output " + vector + " instead of "
+                        + scalar);
+            }
+        } finally {
+            NetKernels.vectorized = NetKernels.VECTORIZED_BY_DEFAULT;
+        }
+    }
+
+    /**
+     * A network written to a float64 {@link NetFile} reads back with the same outputs, one written as float32 within
+     * float rounding, for the shipped network and a random deeper one, and a file with a flipped byte is rejected.
+     */
+    static void netFile() {
+        try {
+            NetWeights shipped = NetWeights.parse(Files.readAllLines(Paths.get(NETWORK)));
+            NetWeights deeper = NetWeights.random(new int[]{shipped.inputNodes, 64, 32, 1},
+                    new Activation[]{Activation.CLIPPED_RELU, Activation.CLIPPED_RELU, Activation.SIGMOID}, 44);
+            int[][] inputs = Benchmark.netInputs(1000, new SplittableRandom(44));
+            Path file = Files.createTempFile("net", ".bin");
+            try {
+                for (NetWeights reference : new NetWeights[]{shipped, deeper}) {
+                    for (boolean float32 : new boolean[]{false, true}) {
+                        NetFile.write(file, reference, float32);
+                        NetWeights read = NetFile.read(file);
+                        for (int[] input : inputs) {
+                            double expected = reference.forward(input);
+                            double output = read.forward(input);
+                            Checks.require(float32 ? Math.abs(output - expected) <= 1e-5 : output == expected,
+                                    (float32 ? "float32" : "float64") + " file gives " + output + " instead of "
+                                            + expected);
+                        }
+                    }
+                }
+                byte[] bytes = Files.readAllBytes(file);
+                bytes[bytes.length / 2] ^= 1;
+                Files.write(file, bytes);
+                boolean rejected = false;
+                try {
+                    NetFile.read(file);
+                } catch (IOException e) {
+                    rejected = true;
+                }
+                Checks.require(rejected, "read a damaged network file");
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The float32 and int8 versions of the shipped network stay close to the double one on random positions,
+     * float32 within float rounding and int8 within 0.01, and choose the same best successor in at least 99% and
+     * 95% of random positions.
+     */
+    static void quantization() {
+        int[][] inputs = Benchmark.netInputs(1000, new SplittableRandom(45));
+        MorrisState[] positions = Arrays.stream(MorrisState.randomPositions(500, new SplittableRandom(45)))
+                .filter(state -> state.loser() == -1).toArray(MorrisState[]::new);
+        int[][][] successors = Benchmark.successorInputs(positions);
+        NetModel reference = NetRegistry.get(NETWORK, NetPrecision.DOUBLE);
+        for (NetPrecision precision : new NetPrecision[]{NetPrecision.FLOAT32, NetPrecision.INT8}) {
+            NetModel net = NetRegistry.get(NETWORK, precision);
+            double tolerance = precision == NetPrecision.FLOAT32 ? 1e-5 : 0.01;
+            for (int[] input : inputs) {
+                double expected = reference.forward(input);
+                double output = net.forward(input);
+                Checks.require(Math.abs(output - expected) <= tolerance, precision + " output " + output
+                        + " instead of " + expected);
+            }
+            int agreed = 0;
+            for (int[][] choices : successors) {
+                agreed += bestChoice(net, choices) == bestChoice(reference, choices) ? 1 : 0;
+            }
+            double required = precision == NetPrecision.FLOAT32 ? 0.99 : 0.95;
+            Checks.require(agreed >= required * successors.length, precision + " chose the same successor in only "
+                    + agreed + " of " + successors.length + " positions");
+        }
+    }
+
+    /**
+     * A {@link NetAccumulator} evaluates like a full forward pass in every precision, to the last bits of the
+     * floating point sums and exactly in int8: for the successors of every turn of random positions, and along
+     * random games where the changed squares are set one at a time.
+     */
+    static void accumulator() {
+        SplittableRandom random = new SplittableRandom(46);
+        MorrisState[] positions = Arrays.stream(MorrisState.randomPositions(300, random))
+                .filter(state -> state.loser() == -1).toArray(MorrisState[]::new);
+        int[][][] successors = Benchmark.successorInputs(positions);
+        int[] actions = new int[MorrisState.MAX_ACTIONS];
+        for (NetPrecision precision : NetPrecision.values()) {
+            NetModel net = NetRegistry.get(NETWORK, precision);
+            NetAccumulator accumulator = net.accumulator();
+            double tolerance = precision == NetPrecision.DOUBLE ? 1e-12 : precision == NetPrecision.FLOAT32 ? 1e-5 : 0;
+            for (int p = 0; p < positions.length; p++) {
+                accumulator.reset(positions[p].netInput(positions[p].toMove));
+                for (int[] successor : successors[p]) {
+                    requireClose(accumulator.evaluate(successor), net.forward(successor), tolerance,
+                            precision + " successor");
+                }
+            }
+            for (int game = 0; game < 50; game++) {
+                MorrisState state = new MorrisState(false);
+                int[] input = state.netInput(state.toMove);
+                accumulator.reset(input);
+                for (int ply = 0; ply < 200 && state.loser() == -1; ply++) {
+                    int count = state.actions(actions);
+                    if (count == 0) {
+                        break;
+                    }
+                    state.apply(actions[random.nextInt(count)]);
+                    int[] next = state.netInput(state.toMove);
+                    for (int i = 0; i < next.length; i++) {
+                        if (next[i] != input[i]) {
+                            accumulator.set(i, next[i]);
+                        }
+                    }
+                    input = next;
+                    requireClose(accumulator.evaluate(), net.forward(input), tolerance,
+                            precision + " after " + (ply + 1) + " actions of game " + game);
+                }
+            }
+        }
+    }
+
+    /**
+     * Random networks of several shapes and activations, with random biases, evaluate like a plain layer-by-layer
+     * loop over their weights, and their float32 and int8 versions stay within 1e-5 and 0.005 of them on random
+     * positions.
+     */
+    static void layerShapes() {
+        int[][] inputs = Benchmark.netInputs(500, new SplittableRandom(47));
+        int[][] calibration = Benchmark.netInputs(2000, new SplittableRandom(1));
+        int in = inputs[0].length;
+        Activation sigmoid = Activation.SIGMOID;
+        Activation clipped = Activation.CLIPPED_RELU;
+        int[][] shapes = {{in, 50, 1}, {in, 128, 1}, {in, 32, 1}, {in, 64, 32, 1}, {in, 16, 16, 16, 2}};
+        Activation[][] layerActivations = {{sigmoid, sigmoid}, {sigmoid, sigmoid}, {clipped, sigmoid},
+                {clipped, clipped, sigmoid}, {clipped, sigmoid, clipped, sigmoid}};
+        for (int s = 0; s < shapes.length; s++) {
+            NetWeights net = NetWeights.random(shapes[s], layerActivations[s], 47 + s);
+            SplittableRandom random = new SplittableRandom(s);
+            for (double[] biases : net.biases) {   // random() leaves them zero
+                for (int j = 0; j < biases.length; j++) {
+                    biases[j] = random.nextDouble(-0.5, 0.5);
+                }
+            }
+            NetModel float32 = FloatNetWeights.of(net);
+            NetModel int8 = QuantizedNetWeights.calibrate(net, calibration);
+            String shape = Arrays.toString(shapes[s]) + " " + Arrays.toString(layerActivations[s]);
+            for (int[] input : inputs) {
+                double expected = plainForward(net, input);
+                requireClose(net.forward(input), expected, 1e-12, shape + " double");
+                requireClose(float32.forward(input), expected, 1e-5, shape + " float32");
+                requireClose(int8.forward(input), expected, 0.005, shape + " int8");
+            }
+        }
+    }
+
+    /**
+     * {@link NetFeatures} of random positions from the view of both players name the pieces of the board input,
+     * the phase of each player and the pieces left to place, in ascending order. A random feature network with random
+     * biases gives the same output for them with forwardFeatures as with forward over the dense input, in every
+     * precision.
+     */
+    static void sparseFeatures() {
+        MorrisState[] positions = MorrisState.randomPositions(1000, new SplittableRandom(48));
+        NetWeights weights = NetWeights.random(new int[]{NetFeatures.COUNT, 50, 1},
+                new Activation[]{Activation.SIGMOID, Activation.SIGMOID}, 48);
+        SplittableRandom random = new SplittableRandom(48);
+        for (double[] biases : weights.biases) {   // random() leaves them zero
+            for (int j = 0; j < biases.length; j++) {
+                biases[j] = random.nextDouble(-0.5, 0.5);
+            }
+        }
+        int[][] calibration = new int[positions.length][];
+        int[] active = new int[NetFeatures.MAX_ACTIVE];
+        for (int i = 0; i < positions.length; i++) {
+            MorrisState state = positions[i];
+            calibration[i] = NetFeatures.dense(active, NetFeatures.extract(state, state.toMove, active));
+        }
+        NetModel[] models = {weights, FloatNetWeights.of(weights), QuantizedNetWeights.calibrate(weights, calibration)};
+        for (MorrisState state : positions) {
+            int[] board = state.netInput(0);
+            for (int player = 0; player < 2; player++) {
+                int count = NetFeatures.extract(state, player, active);
+                String where = "player " + player + " of " + HeuristicChecks.describe(new GameState(state.toGame()));
+                Checks.require(count <= NetFeatures.MAX_ACTIVE, where + ": " + count + " active features");
+                int[] expected = new int[NetFeatures.COUNT];
+                for (int square = 0; square < 24; square++) {
+                    if (board[square] != 0) {
+                        expected[(board[square] == player + 1 ? NetFeatures.OWN : NetFeatures.OPPONENT) + square] = 2;
+                    }
+                }
+                int[] groups = new int[4];   // own phase, opponent phase, own and opponent pieces in hand
+                for (int i = 0; i < count; i++) {
+                    int feature = active[i];
+                    Checks.require(i == 0 || feature > active[i - 1], where + ": features not ascending");
+                    if (feature >= NetFeatures.IN_HAND) {
+                        int opponent = feature >= NetFeatures.IN_HAND + 12 ? 1 : 0;
+                        int inHand = feature - NetFeatures.IN_HAND - 12 * opponent + 1;
+                        Checks.require(inHand == state.requiredPieces - state.placed[player ^ opponent],
+                                where + ": " + inHand + " pieces in hand");
+                        groups[2 + opponent]++;
+                    } else if (feature >= NetFeatures.PHASE) {
+                        int side = (feature - NetFeatures.PHASE) / 3;
+                        int owner = player ^ side;
+                        int phase = state.placed[owner] < state.requiredPieces ? 0
+                                : Integer.bitCount(state.pieces[owner]) == 3 ? 2 : 1;
+                        Checks.require(feature - NetFeatures.PHASE - 3 * side == phase, where + ": phase feature "
+                                + feature + " instead of phase " + phase);
+                        groups[side]++;
+                    } else {
+                        Checks.require(expected[feature] == 2, where + ": no piece for feature " + feature);
+                        expected[feature] = 0;
+                    }
+                }
+                Checks.require(Arrays.stream(expected).allMatch(value -> value == 0), where + ": a piece is missing");
+                Checks.require(groups[0] == 1 && groups[1] == 1, where + ": phases " + Arrays.toString(groups));
+                for (int side = 0; side < 2; side++) {
+                    boolean placing = state.placed[player ^ side] < state.requiredPieces;
+                    Checks.require(groups[2 + side] == (placing ? 1 : 0), where + ": pieces in hand features "
+                            + Arrays.toString(groups));
+                }
+                int[] dense = NetFeatures.dense(active, count);
+                for (NetModel model : models) {
+                    double sparse = model.forwardFeatures(active, count);
+                    Checks.require(sparse == model.forward(dense), where + ": forwardFeatures gives " + sparse
+                            + " instead of " + model.forward(dense));
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates the first output of the network with one loop per layer over its weights and biases.
+     */
+    private static double plainForward(NetWeights net, int[] input) {
+        double[] values = new double[input.length];
+        for (int i = 0; i < input.length; i++) {
+            values[i] = input[i] / 2.0;
+        }
+        for (int layer = 0; layer < net.weights.length; layer++) {
+            int outputs = net.nodes[layer + 1];
+            double[] next = new double[outputs];
+            for (int j = 0; j < outputs; j++) {
+                double sum = 0;
+                for (int i = 0; i < values.length; i++) {
+                    sum += values[i] * net.weights[layer][i * outputs + j];
+                }
+                next[j] = net.activations[layer].apply(sum + net.biases[layer][j]);
+            }
+            values = next;
+        }
+        return values[0];
+    }
+
+    private static void requireClose(double output, double expected, double tolerance, String where) {
+        Checks.require(Math.abs(output - expected) <= tolerance, where + ": " + output + " instead of " + expected);
+    }
+
+    private static int bestChoice(NetModel net, int[][] choices) {
+        double[] values = new double[choices.length];
+        net.forwardBatch(choices, values);
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,49 @@
+package groupXX.bot;
+
+/**
+ * NetEvaluator scores positions with a network: the output for the board input of the position from the view of
+ * the player (see {@link MorrisState#netInput(int)}), stretched from (0, 1) to (-1, 1). A batch of children is
+ * evaluated with the accumulator of the network, reset to their parent, so each child only adds the weight rows
+ * of the squares its move changed.
+ */
+public final class NetEvaluator implements Evaluator {
+    private final NetModel net;
+    private final NetAccumulator accumulator;
+    private final int[] input = new int[25];
+
+    /**
+     * @param net The network, e.g. from {@link NetRegistry#get(String, NetPrecision)}
+     */
+    public NetEvaluator(NetModel net) {
+        this.net = net;
+        this.accumulator = net.accumulator();
+    }
+
+    @Override
+    public double evaluate(MorrisState state, int player) {
+        return 2 * net.forward(state.netInput(player, input)) - 1;
+    }
+
+    @Override
+    public void beginChildren(MorrisState parent, int player) {
+        accumulator.reset(parent.netInput(player, input));
+    }
+
+    // Correct for any positions; the accumulator is just fastest for children of the last beginChildren
+    @Override
+    public void evaluateBatch(MorrisState[] states, int count, int player, double[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = 2 * accumulator.evaluate(states[i].netInput(player, input)) - 1;
+        }
+    }
+
+    @Override
+    public Evaluator copy() {
+        return new NetEvaluator(net);
+    }
+
+    @Override
+    public String toString() {
+        return "network " + net;
+    }
+}
@@ -0,0 +1,85 @@
+package groupXX.bot;
+
+/**
+ * NetFeatures is a sparse one-hot input encoding of a position from the view of one player, as an alternative to
+ * the board input of {@link MorrisState#netInput(int)}. Every feature is either active or not:
+ * <ul>
+ *     <li>{@link #OWN} + square: a piece of the player on the square,</li>
+ *     <li>{@link #OPPONENT} + square: a piece of the opponent on the square,</li>
+ *     <li>{@link #PHASE} + 0..2: the player is placing, moving or flying, and {@link #PHASE} + 3..5 the same
+ *     for the opponent,</li>
+ *     <li>{@link #IN_HAND} + n - 1: the player has n pieces left to place, and {@link #IN_HAND} + 12 + n - 1 the
+ *     same for the opponent.</li>
+ * </ul>
+ * A position has at most 24 pieces, two phases and two hand counts, and usually fewer than 20 active features.
+ * A network over these features ({@link #COUNT} inputs) evaluates a position by adding the weight rows of the
+ * active features, see {@link NetModel#forwardFeatures(int[], int)}. Its accumulator takes a feature as input
+ * index, with the value 2 for active and 0 for inactive.
+ */
+public final class NetFeatures {
+    public static final int OWN = 0;
+    public static final int OPPONENT = 24;
+    public static final int PHASE = 48;
+    public static final int IN_HAND = 54;
+    /** Number of features, the input size of a feature network. */
+    public static final int COUNT = 78;
+    /** Upper bound for the number of active features of a position. */
+    public static final int MAX_ACTIVE = 28;
+
+    private static final int MAX_IN_HAND = 12;
+
+    private NetFeatures() {
+    }
+
+    /**
+     * Writes the active features of the position from the view of the given player in ascending order.
+     * @param state The position
+     * @param player The player (0 or 1) whose pieces are the own pieces
+     * @param active Receives the features, at least {@link #MAX_ACTIVE} long
+     * @return The number of active features
+     */
+    public static int extract(MorrisState state, int player, int[] active) {
+        int count = 0;
+        for (int bits = state.pieces[player]; bits != 0; bits &= bits - 1) {
+            active[count++] = OWN + Integer.numberOfTrailingZeros(bits);
+        }
+        for (int bits = state.pieces[1 - player]; bits != 0; bits &= bits - 1) {
+            active[count++] = OPPONENT + Integer.numberOfTrailingZeros(bits);
+        }
+        active[count++] = PHASE + phase(state, player);
+        active[count++] = PHASE + 3 + phase(state, 1 - player);
+        int ownInHand = state.requiredPieces - state.placed[player];
+        if (ownInHand > 0) {
+            active[count++] = IN_HAND + ownInHand - 1;
+        }
+        int opponentInHand = state.requiredPieces - state.placed[1 - player];
+        if (opponentInHand > 0) {
+            active[count++] = IN_HAND + MAX_IN_HAND + opponentInHand - 1;
+        }
+        return count;
+    }
+
+    // 0 placing, 1 moving, 2 flying
+    private static int phase(MorrisState state, int player) {
+        if (state.placed[player] < state.requiredPieces) {
+            return 0;
+        }
+        return state.isFlying(player) ? 2 : 1;
+    }
+
+    /**
+     * Returns the features as a dense network input: 2 (a full input) for the active features and 0 for the others.
+     * A network gives the same output for it with {@link NetModel#forward(int[])} as for the features with
+     * {@link NetModel#forwardFeatures(int[], int)}, which makes it the input for training a feature network.
+     * @param active The active features
+     * @param count The number of active features
+     * @return The input of {@link #COUNT} values
+     */
+    public static int[] dense(int[] active, int count) {
+        int[] input = new int[COUNT];
+        for (int i = 0; i < count; i++) {
+            input[active[i]] = 2;
+        }
+        return input;
+    }
+}
@@ -0,0 +1,157 @@
+package groupXX.bot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * NetFile reads and writes network weights in a binary file that is memory-mapped on loading, so a network is
+ * read with a few bulk copies instead of parsing text. Weights can be stored as float64, which keeps them exact,
+ * or as float32, which halves the file.
+ *
+ * File layout (little-endian): magic, version, bytes per weight (4 or 8), number of input nodes, number of
+ * layers, then the node count and {@link Activation} code of every layer. Then comes every layer: its weight
+ * matrix in the layout of {@link NetWeights}, one row per node of the layer below, followed by its biases. The
+ * last int is the CRC32 of all bytes before it. Version 1 files have no biases.
+ */
+public final class NetFile {
+
+    static final int MAGIC = 0x54454E4D; // "MNET"
+    static final int VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final int LAYER_BYTES = 8;
+
+    private NetFile() {
+    }
+
+    /**
+     * Memory-maps a network file and copies its weights.
+     *
+     * @param path path of the network file
+     * @return the weights
+     * @throws IOException if the file cannot be read, is not a network file or is damaged
+     */
+    public static NetWeights read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a network file: " + path);
+            }
+            int version = buffer.getInt(4);
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported network file version " + version + ": " + path);
+            }
+            boolean hasBiases = version >= 2;
+            int weightBytes = buffer.getInt(8);
+            int inputNodes = buffer.getInt(12);
+            int layers = buffer.getInt(16);
+            if ((weightBytes != Float.BYTES && weightBytes != Double.BYTES) || inputNodes <= 0 || layers <= 0
+                    || buffer.limit() < HEADER_BYTES + (long) layers * LAYER_BYTES) {
+                throw new IOException("Corrupt network file header: " + path);
+            }
+
+            int[] nodes = new int[layers + 1];
+            Activation[] activations = new Activation[layers];
+            nodes[0] = inputNodes;
+            long size = HEADER_BYTES + (long) layers * LAYER_BYTES;
+            for (int layer = 0; layer < layers; layer++) {
+                nodes[layer + 1] = buffer.getInt(HEADER_BYTES + layer * LAYER_BYTES);
+                activations[layer] = Activation.ofCode(buffer.getInt(HEADER_BYTES + layer * LAYER_BYTES + 4));
+                if (nodes[layer + 1] <= 0 || activations[layer] == null) {
+                    throw new IOException("Corrupt network file header: " + path);
+                }
+                size += ((long) nodes[layer] * nodes[layer + 1] + (hasBiases ? nodes[layer + 1] : 0)) * weightBytes;
+            }
+            if (buffer.limit() != size + Integer.BYTES) {
+                throw new IOException("Truncated network file: " + path);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size));
+            if ((int) crc.getValue() != buffer.getInt((int) size)) {
+                throw new IOException("Checksum mismatch in network file: " + path);
+            }
+
+            double[][] weights = new double[layers][];
+            double[][] biases = new double[layers][];
+            int offset = HEADER_BYTES + layers * LAYER_BYTES;
+            for (int layer = 0; layer < layers; layer++) {
+                weights[layer] = readMatrix(buffer, offset, nodes[layer] * nodes[layer + 1], weightBytes);
+                offset += nodes[layer] * nodes[layer + 1] * weightBytes;
+                if (hasBiases) {
+                    biases[layer] = readMatrix(buffer, offset, nodes[layer + 1], weightBytes);
+                    offset += nodes[layer + 1] * weightBytes;
+                } else {
+                    biases[layer] = new double[nodes[layer + 1]];
+                }
+            }
+            return new NetWeights(nodes, activations, weights, biases);
+        }
+    }
+
+    private static double[] readMatrix(ByteBuffer buffer, int offset, int count, int weightBytes) {
+        ByteBuffer bytes = buffer.slice(offset, count * weightBytes).order(ByteOrder.LITTLE_ENDIAN);
+        double[] weights = new double[count];
+        if (weightBytes == Double.BYTES) {
+            bytes.asDoubleBuffer().get(weights);
+        } else {
+            float[] floats = new float[count];
+            bytes.asFloatBuffer().get(floats);
+            for (int i = 0; i < count; i++) {
+                weights[i] = floats[i];
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Writes a network file.
+     *
+     * @param path    the file to write
+     * @param weights the weights to store
+     * @param float32 true to store the weights as float32, false to store them exactly as float64
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(Path path, NetWeights weights, boolean float32) throws IOException {
+        int weightBytes = float32 ? Float.BYTES : Double.BYTES;
+        int layers = weights.layers();
+        int size = HEADER_BYTES + layers * LAYER_BYTES;
+        for (int layer = 0; layer < layers; layer++) {
+            size += (weights.weights[layer].length + weights.biases[layer].length) * weightBytes;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size + Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(weightBytes).putInt(weights.inputNodes).putInt(layers);
+        for (int layer = 0; layer < layers; layer++) {
+            buffer.putInt(weights.nodes[layer + 1]).putInt(weights.activations[layer].code);
+        }
+        for (int layer = 0; layer < layers; layer++) {
+            putValues(buffer, weights.weights[layer], float32);
+            putValues(buffer, weights.biases[layer], float32);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, size);
+        buffer.putInt((int) crc.getValue());
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, buffer.array());
+    }
+
+    private static void putValues(ByteBuffer buffer, double[] values, boolean float32) {
+        for (double value : values) {
+            if (float32) {
+                buffer.putFloat((float) value);
+            } else {
+                buffer.putDouble(value);
+            }
+        }
+    }
+}
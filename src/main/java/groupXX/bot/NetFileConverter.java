@@ -0,0 +1,40 @@
+package groupXX.bot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * NetFileConverter converts networks saved as text by {@link NetBase#saveNet(String)} into binary
+ * {@link NetFile}s. A directory is converted file by file, each {@code .txt} file into a {@code .bin} file next to
+ * it; float64 keeps the weights exact, float32 halves the files.
+ *
+ * Usage: {@code NetFileConverter [text file or directory] [float64|float32]}, by default {@code bestnet float64}
+ */
+public class NetFileConverter {
+
+    public static void main(String[] args) throws IOException {
+        Path input = Paths.get(args.length > 0 ? args[0] : "bestnet");
+        boolean float32 = args.length > 1 && args[1].equals("float32");
+
+        List<Path> files;
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> list = Files.list(input)) {
+                files = list.filter(file -> file.toString().endsWith(".txt")).sorted().toList();
+            }
+        } else {
+            files = List.of(input);
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            String base = name.endsWith(".txt") ? name.substring(0, name.length() - ".txt".length()) : name;
+            Path output = file.resolveSibling(base + ".bin");
+            NetFile.write(output, NetWeights.parse(Files.readAllLines(file)), float32);
+            System.out.println("Converted " + file + " (" + Files.size(file) + " bytes) to " + output + " ("
+                    + Files.size(output) + " bytes)");
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package groupXX.bot;
+
+import java.util.Arrays;
+
+/**
+ * NetKernels holds the inner loops of the network forward pass. They run as plain loops by default. The Vector API
+ * path is taken only when the {@code jdk.incubator.vector} module is present (start the JVM with
+ * {@code --add-modules jdk.incubator.vector}) and {@code -Dmorris.vectorKernels=true} is set: whether it beats the
+ * scalar loops depends on the machine (it was slower on some, twice as fast on others), so turn it on only where
+ * {@code Benchmark nn-forward} measures it faster. The vector class is only loaded in that case.
+ *
+ * Both paths add the weight rows in the same order as the scalar loop, so the sums are bit-identical; only the
+ * vectorized sigmoid may differ from {@link Math#exp} in the last bit.
+ */
+final class NetKernels {
+
+    /** Whether the Vector API can be used in this JVM. */
+    static final boolean VECTOR_API_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    /** Whether the kernels run on the Vector API; off unless enabled and available, see the class comment. */
+    static final boolean VECTORIZED_BY_DEFAULT = VECTOR_API_AVAILABLE && Boolean.getBoolean("morris.vectorKernels");
+
+    // Switch to compare both paths; the vector path is only taken if the module is present
+    static boolean vectorized = VECTORIZED_BY_DEFAULT;
+
+    private NetKernels() {
+    }
+
+    /**
+     * Adds scale times the row of the flat weight matrix starting at offset to out[outOffset..outOffset + length).
+     */
+    static void addScaledRow(double[] weights, int offset, double scale, double[] out, int outOffset, int length) {
+        if (vectorized) {
+            VectorNetKernels.addScaledRow(weights, offset, scale, out, outOffset, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] += scale * weights[offset + i];
+        }
+    }
+
+    /**
+     * Adds the row of the flat weight matrix starting at offset to out[0..length), for an input of exactly 1.
+     */
+    static void addRow(double[] weights, int offset, double[] out, int length) {
+        if (vectorized) {
+            VectorNetKernels.addRow(weights, offset, out, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            out[i] += weights[offset + i];
+        }
+    }
+
+    /**
+     * Computes out = input * weights for a flat row-major weight matrix with one row per input, i.e. the sum of
+     * the rows scaled by their inputs. Zero inputs are skipped.
+     */
+    static void multiply(double[] input, int inputs, double[] weights, double[] out, int outputs) {
+        Arrays.fill(out, 0, outputs, 0.0);
+        for (int i = 0; i < inputs; i++) {
+            if (input[i] != 0.0) {
+                addScaledRow(weights, i * outputs, input[i], out, 0, outputs);
+            }
+        }
+    }
+
+    /**
+     * The float version of {@link #addScaledRow(double[], int, double, double[], int, int)}.
+     */
+    static void addScaledRow(float[] weights, int offset, float scale, float[] out, int length) {
+        if (vectorized) {
+            VectorNetKernels.addScaledRow(weights, offset, scale, out, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            out[i] += scale * weights[offset + i];
+        }
+    }
+
+    /**
+     * The float version of {@link #addRow(double[], int, double[], int)}.
+     */
+    static void addRow(float[] weights, int offset, float[] out, int length) {
+        if (vectorized) {
+            VectorNetKernels.addRow(weights, offset, out, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            out[i] += weights[offset + i];
+        }
+    }
+
+    /**
+     * Adds scale times the int8 row starting at offset to the int sums out[0..length).
+     */
+    static void addScaledRow(byte[] weights, int offset, int scale, int[] out, int length) {
+        if (vectorized) {
+            VectorNetKernels.addScaledRow(weights, offset, scale, out, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            out[i] += scale * weights[offset + i];
+        }
+    }
+
+    /**
+     * Applies the sigmoid function to values[0..length) in place, in float precision.
+     */
+    static void sigmoid(float[] values, int length) {
+        if (vectorized) {
+            VectorNetKernels.sigmoid(values, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            values[i] = (float) (1.0 / (1.0 + Math.exp(-values[i])));
+        }
+    }
+
+    /**
+     * Applies an activation function to values[offset..offset + length) in place.
+     */
+    static void activate(Activation activation, double[] values, int offset, int length) {
+        switch (activation) {
+            case SIGMOID -> sigmoid(values, offset, length);
+            case LINEAR -> {
+            }
+            default -> {
+                for (int i = offset; i < offset + length; i++) {
+                    values[i] = activation.apply(values[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies an activation function to values[0..length) in place, in float precision.
+     */
+    static void activate(Activation activation, float[] values, int length) {
+        switch (activation) {
+            case SIGMOID -> sigmoid(values, length);
+            case RELU -> {
+                for (int i = 0; i < length; i++) {
+                    values[i] = Math.max(0f, values[i]);
+                }
+            }
+            case CLIPPED_RELU -> {
+                for (int i = 0; i < length; i++) {
+                    values[i] = Math.min(Math.max(0f, values[i]), 1f);
+                }
+            }
+            case LINEAR -> {
+            }
+        }
+    }
+
+    /**
+     * Applies the sigmoid function to values[offset..offset + length) in place.
+     */
+    static void sigmoid(double[] values, int offset, int length) {
+        if (vectorized) {
+            VectorNetKernels.sigmoid(values, offset, length);
+            return;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = 1.0 / (1.0 + Math.exp(-values[i]));
+        }
+    }
+}
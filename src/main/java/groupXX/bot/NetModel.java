@@ -0,0 +1,39 @@
+package groupXX.bot;
+
+/**
+ * A network that evaluates board inputs (the values 0 empty, 1 blue and 2 red of the 24 squares and the player
+ * to move, see {@link GameSituation#inputForNet}). Implementations can be shared by all bots and threads.
+ */
+public interface NetModel {
+
+    /**
+     * Evaluates one board input.
+     * @param input The board input
+     * @return Output value
+     */
+    double forward(int[] input);
+
+    /**
+     * Evaluates several board inputs at once.
+     * @param inputs The board inputs
+     * @param out Receives the output value of every input
+     */
+    void forwardBatch(int[][] inputs, double[] out);
+
+    /**
+     * Evaluates an input given by its active inputs, each a full input (board value 2) while all others are 0,
+     * such as the features of {@link NetFeatures}. Only the weight rows of the active inputs are added. Gives the
+     * output of {@link #forward(int[])} for {@link NetFeatures#dense(int[], int)} of the same inputs, if they are
+     * in ascending order.
+     * @param active The indices of the active inputs
+     * @param count The number of active inputs
+     * @return Output value
+     */
+    double forwardFeatures(int[] active, int count);
+
+    /**
+     * Returns a new accumulator for evaluating positions incrementally with this network.
+     * @return The accumulator, with an empty board as base position
+     */
+    NetAccumulator accumulator();
+}
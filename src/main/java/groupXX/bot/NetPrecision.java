@@ -0,0 +1,13 @@
+package groupXX.bot;
+
+/**
+ * Number formats a bot can evaluate its network in, see {@link NetRegistry#get(String, NetPrecision)}.
+ */
+public enum NetPrecision {
+    /** The weights as trained, see {@link NetWeights}. */
+    DOUBLE,
+    /** Float weights and sums, see {@link FloatNetWeights}. */
+    FLOAT32,
+    /** Calibrated int8 weights with int sums, see {@link QuantizedNetWeights}. */
+    INT8
+}
@@ -0,0 +1,81 @@
+package groupXX.bot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * NetRegistry loads every network file once and hands the same {@link NetWeights} to all bots and threads that
+ * ask for it, so playing a move never reads or parses a file.
+ */
+public final class NetRegistry {
+    private static final int CALIBRATION_POSITIONS = 2000;
+
+    private static final Map<Path, NetWeights> NETS = new ConcurrentHashMap<>();
+    private static final Map<Path, FloatNetWeights> FLOAT_NETS = new ConcurrentHashMap<>();
+    private static final Map<Path, QuantizedNetWeights> QUANTIZED_NETS = new ConcurrentHashMap<>();
+
+    private NetRegistry() {
+    }
+
+    /**
+     * Returns the weights stored in a network file, loading the file on the first call for it.
+     * @param path Path of a binary {@link NetFile} ending in .bin, or of a text file written by
+     *             {@link NetBase#saveNet(String)}
+     * @return The shared weights
+     * @throws UncheckedIOException If the file cannot be read
+     */
+    public static NetWeights get(String path) {
+        return NETS.computeIfAbsent(key(path), NetRegistry::load);
+    }
+
+    /**
+     * Returns the network stored in a network file in the given precision, converting it on the first call for it.
+     * The int8 network is calibrated on positions of random games, see {@link QuantizedNetWeights#calibrate}.
+     * @param path Path of the network file, see {@link #get(String)}
+     * @param precision The number format to evaluate in
+     * @return The shared network
+     * @throws UncheckedIOException If the file cannot be read
+     */
+    public static NetModel get(String path, NetPrecision precision) {
+        return switch (precision) {
+            case DOUBLE -> get(path);
+            case FLOAT32 -> FLOAT_NETS.computeIfAbsent(key(path), key -> FloatNetWeights.of(get(path)));
+            case INT8 -> QUANTIZED_NETS.computeIfAbsent(key(path),
+                    key -> QuantizedNetWeights.calibrate(get(path), calibrationPositions()));
+        };
+    }
+
+    /**
+     * Returns the board inputs of positions from random games, the same ones on every call.
+     */
+    static int[][] calibrationPositions() {
+        MorrisState[] positions = MorrisState.randomPositions(CALIBRATION_POSITIONS, new SplittableRandom(1));
+        int[][] inputs = new int[positions.length][];
+        for (int i = 0; i < positions.length; i++) {
+            inputs[i] = positions[i].netInput(positions[i].toMove);
+        }
+        return inputs;
+    }
+
+    private static Path key(String path) {
+        return Paths.get(path).toAbsolutePath().normalize();
+    }
+
+    private static NetWeights load(Path path) {
+        try {
+            if (path.toString().endsWith(".bin")) {
+                return NetFile.read(path);
+            }
+            return NetWeights.parse(Files.readAllLines(path, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package groupXX.bot;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * NetWeights holds the weights of a layered network and evaluates positions with them. Layer l has nodes[l + 1]
+ * nodes, an {@link Activation} and a bias per node. Its weights are a flat row-major matrix with one row per
+ * node of the layer below (see {@link NetBase}), so that every input adds one contiguous row. The layer values
+ * are kept in per-thread scratch buffers, so one instance can be shared by any number of bots and threads.
+ *
+ * Every layer sums the rows of its inputs front to back and then adds its biases. The network of
+ * {@link NetBase}, with a sigmoid hidden layer, a sigmoid output and zero biases, therefore gives exactly the
+ * output of {@link NetBase#forward(double[])}.
+ *
+ * The instances made by {@link #copyOf(NetBase)}, {@link #parse(List)} and {@link NetFile#read} own their
+ * weights and never change; the one returned by {@link NetBase#weights()} reads the weights of its network and
+ * changes while it trains.
+ */
+public final class NetWeights implements NetModel {
+    final int[] nodes;               // nodes[0] inputs, nodes[l + 1] nodes of layer l
+    final Activation[] activations;  // per layer
+    final double[][] weights;        // per layer, nodes[l] rows of nodes[l + 1] weights
+    final double[][] biases;         // per layer
+    final int inputNodes;
+    private final int maxNodes;      // largest layer after the inputs
+    private final ThreadLocal<Scratch> scratch;
+
+    private final class Scratch {
+        final double[] inputs = new double[inputNodes];
+        final double[] first = new double[nodes[1]];
+        final double[] values = new double[maxNodes];
+        final double[] next = new double[maxNodes];
+    }
+
+    /**
+     * Uses the given arrays as they are, without copying them.
+     */
+    NetWeights(int[] nodes, Activation[] activations, double[][] weights, double[][] biases) {
+        if (nodes.length < 2 || activations.length != nodes.length - 1 || weights.length != nodes.length - 1
+                || biases.length != nodes.length - 1) {
+            throw new IllegalArgumentException("Layer descriptions do not match.");
+        }
+        for (int layer = 0; layer < weights.length; layer++) {
+            if (weights[layer].length != nodes[layer] * nodes[layer + 1] || biases[layer].length != nodes[layer + 1]) {
+                throw new IllegalArgumentException("Weights of layer " + layer + " do not match its size.");
+            }
+        }
+        this.nodes = nodes;
+        this.activations = activations;
+        this.weights = weights;
+        this.biases = biases;
+        this.inputNodes = nodes[0];
+        this.maxNodes = Arrays.stream(nodes, 1, nodes.length).max().getAsInt();
+        this.scratch = ThreadLocal.withInitial(Scratch::new);
+    }
+
+    /**
+     * The network of {@link NetBase}: one sigmoid hidden layer, sigmoid outputs and no biases.
+     */
+    static NetWeights sigmoidNet(int inputNodes, int hiddenNodes, int outputNodes, double[] weightsInputHidden,
+                                 double[] weightsHiddenOutput) {
+        return new NetWeights(new int[]{inputNodes, hiddenNodes, outputNodes},
+                new Activation[]{Activation.SIGMOID, Activation.SIGMOID},
+                new double[][]{weightsInputHidden, weightsHiddenOutput},
+                new double[][]{new double[hiddenNodes], new double[outputNodes]});
+    }
+
+    /**
+     * Returns a network of the given shape with random weights and zero biases, scaled to the number of inputs of
+     * each layer.
+     * @param nodes The number of inputs, then the number of nodes of every layer
+     * @param activations The activation of every layer
+     * @param seed Seed of the random weights
+     * @return The network
+     */
+    public static NetWeights random(int[] nodes, Activation[] activations, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] weights = new double[nodes.length - 1][];
+        double[][] biases = new double[nodes.length - 1][];
+        for (int layer = 0; layer < weights.length; layer++) {
+            double range = Math.sqrt(3.0 / nodes[layer]);
+            weights[layer] = random.doubles(nodes[layer] * nodes[layer + 1], -range, range).toArray();
+            biases[layer] = new double[nodes[layer + 1]];
+        }
+        return new NetWeights(nodes.clone(), activations.clone(), weights, biases);
+    }
+
+    /**
+     * Returns a copy of the current weights of a network, which does not change when the network trains on.
+     * @param net The network to copy
+     * @return The copied weights
+     */
+    public static NetWeights copyOf(NetBase net) {
+        return sigmoidNet(net.inputNodes, net.hiddenNodes, net.outputNodes, net.weightsInputHidden.clone(),
+                net.weightsHiddenOutput.clone());
+    }
+
+    /**
+     * Reads weights in the text format of {@link NetBase#saveNet(String)}: one line of comma-separated values per
+     * input node and then one per hidden node. The layer sizes follow from the numbers of lines and values.
+     * @param lines The lines of the file
+     * @return The weights
+     */
+    public static NetWeights parse(List<String> lines) {
+        List<String> rows = lines.stream().filter(line -> !line.isBlank()).toList();
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Network file is empty.");
+        }
+        int hiddenNodes = rows.get(0).split(",").length;
+        int outputNodes = rows.get(rows.size() - 1).split(",").length;
+        int inputNodes = rows.size() - hiddenNodes;
+        if (inputNodes <= 0) {
+            throw new IllegalArgumentException("Network file has " + rows.size() + " rows for " + hiddenNodes
+                    + " hidden nodes.");
+        }
+        double[] weightsInputHidden = new double[inputNodes * hiddenNodes];
+        double[] weightsHiddenOutput = new double[hiddenNodes * outputNodes];
+        readRows(rows, 0, inputNodes, hiddenNodes, weightsInputHidden);
+        readRows(rows, inputNodes, hiddenNodes, outputNodes, weightsHiddenOutput);
+        return sigmoidNet(inputNodes, hiddenNodes, outputNodes, weightsInputHidden, weightsHiddenOutput);
+    }
+
+    /**
+     * Parses the lines first..first + rows of comma-separated values into a flat row-major matrix.
+     */
+    static void readRows(List<String> lines, int first, int rows, int columns, double[] weights) {
+        for (int i = 0; i < rows; i++) {
+            String[] values = lines.get(first + i).split(",");
+            if (values.length < columns) {
+                throw new IllegalArgumentException("Line " + (first + i + 1) + " has " + values.length
+                        + " values instead of " + columns + ".");
+            }
+            for (int j = 0; j < columns; j++) {
+                weights[i * columns + j] = Double.parseDouble(values[j]);
+            }
+        }
+    }
+
+    /**
+     * Converts board inputs (0 empty, 1 blue, 2 red, and the player to move) to the network inputs 0, 0.5 and 1.
+     */
+    static void scale(int[] input, double[] scaled, int offset) {
+        for (int i = 0; i < input.length; i++) {
+            scaled[offset + i] = input[i] / 2.0;
+        }
+    }
+
+    /**
+     * @return The number of layers after the inputs
+     */
+    public int layers() {
+        return weights.length;
+    }
+
+    /**
+     * Evaluates one board input, see {@link NeuralNetwork#forward(int[])}.
+     * @param input The board input
+     * @return The value of the first output
+     */
+    @Override
+    public double forward(int[] input) {
+        checkSize(input);
+        Scratch buffers = scratch.get();
+        scale(input, buffers.inputs, 0);
+        return evaluate(buffers.inputs, buffers.first, buffers);
+    }
+
+    @Override
+    public double forwardFeatures(int[] active, int count) {
+        Scratch buffers = scratch.get();
+        double[] first = buffers.first;
+        Arrays.fill(first, 0, nodes[1], 0.0);
+        for (int i = 0; i < count; i++) {
+            checkFeature(active[i]);
+            NetKernels.addRow(weights[0], active[i] * nodes[1], first, nodes[1]);
+        }
+        addBiases(first, 0, 0);
+        return propagate(first, 0, buffers);
+    }
+
+    /**
+     * Forward propagation with a caller-supplied buffer for the first layer
+     * @param input Input array
+     * @param hidden Buffer for the values of the first layer, at least nodes[1] long
+     * @return The value of the first output
+     */
+    public double forward(double[] input, double[] hidden) {
+        if (input.length != inputNodes) {
+            throw new IllegalArgumentException("Input size does not match expected size.");
+        }
+        return evaluate(input, hidden, scratch.get());
+    }
+
+    private double evaluate(double[] input, double[] first, Scratch buffers) {
+        NetKernels.multiply(input, inputNodes, weights[0], first, nodes[1]);
+        addBiases(first, 0, 0);
+        return propagate(first, 0, buffers);
+    }
+
+    private void addBiases(double[] sums, int offset, int layer) {
+        double[] bias = biases[layer];
+        for (int j = 0; j < bias.length; j++) {
+            sums[offset + j] += bias[j];
+        }
+    }
+
+    /**
+     * Activates the sums of the first layer at first[offset..] in place and passes them through the other layers.
+     * Returns the first output; the other nodes of the last layer are not computed.
+     */
+    private double propagate(double[] first, int offset, Scratch buffers) {
+        int last = weights.length - 1;
+        if (last == 0) {
+            return activations[0].apply(first[offset]);
+        }
+        NetKernels.activate(activations[0], first, offset, nodes[1]);
+        double[] values = first;
+        int valuesOffset = offset;
+        for (int layer = 1; layer < last; layer++) {
+            int inputs = nodes[layer];
+            int outputs = nodes[layer + 1];
+            double[] out = values == buffers.values ? buffers.next : buffers.values;
+            Arrays.fill(out, 0, outputs, 0.0);
+            for (int i = 0; i < inputs; i++) {
+                double value = values[valuesOffset + i];
+                if (value != 0.0) {
+                    NetKernels.addScaledRow(weights[layer], i * outputs, value, out, 0, outputs);
+                }
+            }
+            addBiases(out, 0, layer);
+            NetKernels.activate(activations[layer], out, 0, outputs);
+            values = out;
+            valuesOffset = 0;
+        }
+
+        // The first output, summed in the same order as the rows of a full layer
+        double[] matrix = weights[last];
+        int outputs = nodes[last + 1];
+        double sum = 0;
+        for (int i = 0; i < nodes[last]; i++) {
+            sum += values[valuesOffset + i] * matrix[i * outputs];
+        }
+        return activations[last].apply(sum + biases[last][0]);
+    }
+
+    /**
+     * Evaluates several board inputs, one forward pass each. A blocked first layer that read every weight row once
+     * per block of inputs was not faster than this, as the rows of such small layers stay in the cache anyway.
+     * @param inputs The board inputs
+     * @param out Receives the value of the first output for every input
+     */
+    @Override
+    public void forwardBatch(int[][] inputs, double[] out) {
+        if (out.length < inputs.length) {
+            throw new IllegalArgumentException("Batch size does not match expected size.");
+        }
+        for (int i = 0; i < inputs.length; i++) {
+            out[i] = forward(inputs[i]);
+        }
+    }
+
+    @Override
+    public NetAccumulator accumulator() {
+        return new Accumulator();
+    }
+
+    // Adds the rows in the order of forward, so reset and evaluate() give the same output as forward
+    private final class Accumulator implements NetAccumulator {
+        private final int[] base = new int[inputNodes];
+        private final double[] sums = new double[nodes[1]];
+        private final double[] first = new double[nodes[1]];
+
+        @Override
+        public void reset(int[] input) {
+            checkSize(input);
+            Arrays.fill(base, 0);
+            Arrays.fill(sums, 0.0);
+            for (int i = 0; i < inputNodes; i++) {
+                set(i, input[i]);
+            }
+        }
+
+        @Override
+        public void set(int index, int value) {
+            if (value != base[index]) {
+                NetKernels.addScaledRow(weights[0], index * nodes[1], (value - base[index]) / 2.0, sums, 0, nodes[1]);
+                base[index] = value;
+            }
+        }
+
+        @Override
+        public double evaluate() {
+            System.arraycopy(sums, 0, first, 0, nodes[1]);
+            addBiases(first, 0, 0);
+            return propagate(first, 0, scratch.get());
+        }
+
+        @Override
+        public double evaluate(int[] input) {
+            checkSize(input);
+            System.arraycopy(sums, 0, first, 0, nodes[1]);
+            for (int i = 0; i < inputNodes; i++) {
+                if (input[i] != base[i]) {
+                    NetKernels.addScaledRow(weights[0], i * nodes[1], (input[i] - base[i]) / 2.0, first, 0, nodes[1]);
+                }
+            }
+            addBiases(first, 0, 0);
+            return propagate(first, 0, scratch.get());
+        }
+    }
+
+    private void checkSize(int[] input) {
+        if (input.length != inputNodes) {
+            throw new IllegalArgumentException("Input size does not match expected size.");
+        }
+    }
+
+    private void checkFeature(int index) {
+        if (index < 0 || index >= inputNodes) {
+            throw new IllegalArgumentException("Input " + index + " is not an input of the network.");
+        }
+    }
+}
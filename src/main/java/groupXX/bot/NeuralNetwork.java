@@ -9,6 +9,8 @@ public class NeuralNetwork extends NetBase {
     private static final int HIDDEN_NODES = 50;  // Number of hidden nodes
     private static final int OUTPUT_NODES = 1;   // Number of output nodes
 
+    private final double[] scaledInput = new double[INPUT_NODES]; // Reused by forward(int[])
+
     /**
      * Initialize the network and set input and hidden layer nodes
      */
@@ -20,17 +22,41 @@ public class NeuralNetwork extends NetBase {
     /**
      * Forward propagation to calculate the output layer value
      * @param input Input array
-     * @param target Target output
      * @return Output layer value
      */
     public double forward(int[] input) {
-        // Convert int[] to double[] and divide each element by 2
-        double[] doubleInput = new double[input.length];
-        for (int i = 0; i < input.length; i++) {
-            doubleInput[i] = input[i] / 2.0; // Divide by 2 and convert to double type
-        }
+        scale(input, scaledInput);
         // Call the forward method from the parent class
-        return super.forward(doubleInput);
+        return super.forward(scaledInput);
+    }
+
+    /**
+     * Forward propagation into caller-supplied buffers; the network itself is not changed
+     * @param input Input array
+     * @param scaled Buffer for the scaled input, INPUT_NODES long
+     * @param hidden Buffer for the hidden layer values, HIDDEN_NODES long
+     * @return Output layer value
+     */
+    public double forward(int[] input, double[] scaled, double[] hidden) {
+        scale(input, scaled);
+        return super.forward(scaled, hidden);
+    }
+
+    /**
+     * Evaluates several inputs, see {@link NetWeights#forwardBatch(int[][], double[])}
+     * @param inputs Input arrays
+     * @param out Receives the output layer value of every input
+     */
+    public void forwardBatch(int[][] inputs, double[] out) {
+        weights().forwardBatch(inputs, out);
+    }
+
+    private static void scale(int[] input, double[] scaled) {
+        if (input.length != scaled.length) {
+            throw new IllegalArgumentException("Input size does not match expected size.");
+        }
+        // Convert int[] to double[] and divide each element by 2
+        NetWeights.scale(input, scaled, 0);
     }
 
     /**
@@ -57,16 +83,16 @@ public class NeuralNetwork extends NetBase {
         double deltaOutput = (outputError / target) * (output / target) * (1 - output / target); // Calculate gradient of output layer
 
         // Update weights from hidden layer to output layer
-        for (int i = 0; i < hiddenLayer.length; i++) {
-            weightsHiddenOutput[i][0] += deltaOutput * hiddenLayer[i]; // Update weights
+        for (int i = 0; i < hiddenNodes; i++) {
+            weightsHiddenOutput[i * outputNodes] += deltaOutput * hiddenLayer[i]; // Update weights
         }
 
         // Update weights from input layer to hidden layer
-        for (int i = 0; i < weightsInputHidden.length; i++) {
-            for (int j = 0; j < hiddenLayer.length; j++) {
-                double hiddenError = deltaOutput * weightsHiddenOutput[j][0]; // Calculate hidden layer error
+        for (int i = 0; i < inputNodes; i++) {
+            for (int j = 0; j < hiddenNodes; j++) {
+                double hiddenError = deltaOutput * weightsHiddenOutput[j * outputNodes]; // Calculate hidden layer error
                 double deltaHidden = hiddenError * hiddenLayer[j] * (1 - hiddenLayer[j]); // Calculate gradient of hidden layer
-                weightsInputHidden[i][j] += deltaHidden; // Update weights
+                weightsInputHidden[i * hiddenNodes + j] += deltaHidden; // Update weights
             }
         }
     }
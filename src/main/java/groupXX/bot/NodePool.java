@@ -0,0 +1,366 @@
+package groupXX.bot;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * NodePool stores the nodes of a Monte Carlo search tree as a struct of arrays: node i is described by the i-th
+ * entry of every array, and children are linked through firstChild/nextSibling. Nodes hold no game state;
+ * the state of a node is rebuilt by replaying the moves on the path from the root into a scratch
+ * {@link MorrisState}.
+ *
+ * Several search threads may share a pool. Visits and results are updated atomically, a node is expanded by the
+ * thread that wins the compare-and-set of its firstChild from UNEXPANDED to EXPANDING, and the children
+ * are published with a release store once they are complete. Once the result of a node is proven, the winner is
+ * stored with it; proofs never change, so threads that prove the same node store the same value. Nodes are handed
+ * out from the front of the arrays; {@link #clear()}, {@link #compact(int)} and {@link #recycle(int)} must only be
+ * called while no search is running.
+ *
+ * The capacity is the node budget of the tree. Once it is used up, {@link #recycle(int)} prunes the subtrees with
+ * the fewest visits off the principal line and compacts the rest, so a search can go on at constant memory.
+ */
+public final class NodePool {
+    public static final int DEFAULT_CAPACITY = 1 << 19;
+    /** Bytes of one node in all arrays. */
+    public static final int BYTES_PER_NODE = 4 * 4 + 8 + 1 + 4 + 8 + 4;
+    // share of the capacity a recycled tree may fill
+    private static final double RECYCLED_OCCUPANCY = 0.5;
+
+    /** firstChild value of a node that has not been expanded yet. */
+    public static final int UNEXPANDED = -1;
+    /** firstChild value of a node that a thread is expanding right now. */
+    public static final int EXPANDING = -2;
+    /** firstChild value of an expanded node without children. */
+    public static final int NO_CHILDREN = -3;
+    /** nextSibling value of the last child. */
+    public static final int NONE = -1;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle DOUBLES = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle SIZE;
+
+    static {
+        try {
+            SIZE = MethodHandles.lookup().findVarHandle(NodePool.class, "size", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    final int capacity;
+    int[] firstChild;
+    int[] nextSibling;
+    int[] move;
+    int[] visits;
+    double[] wins;   // sum of the results from the view of the player who made the move into the node
+    byte[] winner;   // 0 while unknown, otherwise 1 + index of the player who wins with best play
+    // All-moves-as-first statistics: results of the simulations through the parent in which the node's move
+    // was played later on by the same player
+    int[] amafVisits;
+    double[] amafWins;
+    float[] prior;   // probability of the node's move by the evaluator, set at expansion
+    volatile int size = 0;
+
+    // Number of recycles and of the nodes they freed
+    public long recycles = 0;
+    public long recycledNodes = 0;
+
+    public NodePool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NodePool(int capacity) {
+        this.capacity = capacity;
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        move = new int[capacity];
+        visits = new int[capacity];
+        wins = new double[capacity];
+        winner = new byte[capacity];
+        amafVisits = new int[capacity];
+        amafWins = new double[capacity];
+        prior = new float[capacity];
+    }
+
+    /**
+     * Returns the capacity that fits a memory budget, see {@link #BYTES_PER_NODE}.
+     */
+    public static int capacityFor(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, bytes / BYTES_PER_NODE);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of free nodes.
+     */
+    public int free() {
+        return Math.max(0, capacity - size);
+    }
+
+    /**
+     * Returns the share of the capacity in use.
+     */
+    public double occupancy() {
+        return Math.min(size, capacity) / (double) capacity;
+    }
+
+    /**
+     * Allocates an unexpanded node reached by the given move, or returns -1 if the pool is full.
+     */
+    public int allocate(int nodeMove) {
+        int node = allocateBlock(1);
+        if (node >= 0) {
+            initNode(node, nodeMove, NONE);
+        }
+        return node;
+    }
+
+    private int allocateBlock(int count) {
+        int start = (int) SIZE.getAndAdd(this, count);
+        return start + count <= capacity ? start : -1;
+    }
+
+    private void initNode(int node, int nodeMove, int sibling) {
+        firstChild[node] = UNEXPANDED;
+        nextSibling[node] = sibling;
+        move[node] = nodeMove;
+        visits[node] = 0;
+        wins[node] = 0.0;
+        winner[node] = 0;
+        amafVisits[node] = 0;
+        amafWins[node] = 0.0;
+        prior[node] = 0f;
+    }
+
+    /**
+     * Adds children for the given moves to an unexpanded node. Does nothing if another thread is expanding or
+     * has expanded the node, or if the pool has no room for the children.
+     *
+     * @return true if this call expanded the node
+     */
+    public boolean expand(int node, int[] moves, int count) {
+        return expand(node, moves, null, count);
+    }
+
+    /**
+     * Like {@link #expand(int, int[], int)}, and stores the prior of every child.
+     *
+     * @param priors the priors of the moves, or null
+     */
+    public boolean expand(int node, int[] moves, float[] priors, int count) {
+        if (!INTS.compareAndSet(firstChild, node, UNEXPANDED, EXPANDING)) {
+            return false;
+        }
+        if (count == 0) {
+            INTS.setRelease(firstChild, node, NO_CHILDREN);
+            return true;
+        }
+        int start = allocateBlock(count);
+        if (start < 0) {
+            INTS.setRelease(firstChild, node, UNEXPANDED);
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            initNode(start + i, moves[i], i + 1 < count ? start + i + 1 : NONE);
+            if (priors != null) {
+                prior[start + i] = priors[i];
+            }
+        }
+        INTS.setRelease(firstChild, node, start);
+        return true;
+    }
+
+    /**
+     * Returns the first child of the node, or one of the negative markers.
+     */
+    public int firstChild(int node) {
+        return (int) INTS.getAcquire(firstChild, node);
+    }
+
+    public boolean isExpanded(int node) {
+        return firstChild(node) != UNEXPANDED;
+    }
+
+    public boolean hasChildren(int node) {
+        return firstChild(node) >= 0;
+    }
+
+    public void addVisits(int node, int delta) {
+        INTS.getAndAdd(visits, node, delta);
+    }
+
+    public void addWins(int node, double delta) {
+        add(wins, node, delta);
+    }
+
+    public double wins(int node) {
+        return (double) DOUBLES.getOpaque(wins, node);
+    }
+
+    public void addAmaf(int node, double result) {
+        INTS.getAndAdd(amafVisits, node, 1);
+        add(amafWins, node, result);
+    }
+
+    public double amafWins(int node) {
+        return (double) DOUBLES.getOpaque(amafWins, node);
+    }
+
+    private static void add(double[] array, int index, double delta) {
+        double previous;
+        do {
+            previous = (double) DOUBLES.getVolatile(array, index);
+        } while (!DOUBLES.compareAndSet(array, index, previous, previous + delta));
+    }
+
+    /**
+     * Returns the index of the player who wins from the node with best play, or -1 if that is not proven.
+     */
+    public int winner(int node) {
+        return (byte) BYTES.getAcquire(winner, node) - 1;
+    }
+
+    public void setWinner(int node, int player) {
+        BYTES.setRelease(winner, node, (byte) (player + 1));
+    }
+
+    /**
+     * Moves the subtree below root to the front of the pool, dropping all other nodes.
+     *
+     * @return the new index of root
+     */
+    public int compact(int root) {
+        return slideLive(root, 0, null);
+    }
+
+    /**
+     * Frees room in a full tree: every node off the principal line (the most visited children from root) with
+     * fewer visits than a threshold, or with a proven result, loses its children and becomes a leaf with its
+     * statistics, and the rest is compacted. The threshold is the smallest one that leaves the tree at most
+     * RECYCLED_OCCUPANCY of the capacity.
+     *
+     * @return the new index of root
+     */
+    public int recycle(int root) {
+        BitSet principal = new BitSet();
+        for (int node = root; node >= 0; node = mostVisitedChild(node)) {
+            principal.set(node);
+        }
+        int target = (int) (capacity * RECYCLED_OCCUPANCY);
+        int low = 1;
+        int high = visits[root] + 1;
+        while (low < high) {
+            int threshold = (low + high) >>> 1;
+            if (liveNodes(root, threshold, principal) <= target) {
+                high = threshold;
+            } else {
+                low = threshold + 1;
+            }
+        }
+        int before = Math.min(size, capacity);
+        root = slideLive(root, low, principal);
+        recycles++;
+        recycledNodes += Math.max(0, before - size);
+        return root;
+    }
+
+    private int mostVisitedChild(int node) {
+        int best = NONE;
+        if (firstChild[node] >= 0) {
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                if (best == NONE || visits[child] > visits[best]) {
+                    best = child;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns true if the children of the node survive a recycle with the given threshold (always for 0).
+     */
+    private boolean keepsChildren(int node, int threshold, BitSet principal) {
+        return firstChild[node] >= 0
+                && (threshold == 0 || principal.get(node) || (winner[node] == 0 && visits[node] >= threshold));
+    }
+
+    /**
+     * Counts the nodes a recycle with the given threshold keeps below node.
+     */
+    private int liveNodes(int node, int threshold, BitSet principal) {
+        int count = 1;
+        if (keepsChildren(node, threshold, principal)) {
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                count += liveNodes(child, threshold, principal);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Slides the subtree below root to the front of the pool, without the children of the nodes that
+     * {@link #keepsChildren(int, int, BitSet)} drops, so the freed nodes are handed out again. The live nodes keep
+     * their order, so every node moves to a lower index or stays, and the pool is compacted in place; the only
+     * extra memory is one bit per node and one int per 64 nodes.
+     */
+    private int slideLive(int root, int threshold, BitSet principal) {
+        int used = Math.min(size, capacity);
+        long[] live = new long[(used + 63) >>> 6];
+        // Mark the kept nodes, depth first
+        int[] stack = new int[64];
+        int depth = 0;
+        live[root >>> 6] |= 1L << root;
+        stack[depth++] = root;
+        while (depth > 0) {
+            int node = stack[--depth];
+            if (!keepsChildren(node, threshold, principal)) {
+                continue;
+            }
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                live[child >>> 6] |= 1L << child;
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * depth);
+                }
+                stack[depth++] = child;
+            }
+        }
+        // The new index of a kept node is the number of kept nodes before it
+        int[] ranks = new int[live.length];
+        for (int word = 1; word < live.length; word++) {
+            ranks[word] = ranks[word - 1] + Long.bitCount(live[word - 1]);
+        }
+
+        int newRoot = rank(live, ranks, root);
+        int newSize = 0;
+        for (int word = 0; word < live.length; word++) {
+            for (long bits = live[word]; bits != 0; bits &= bits - 1) {
+                int node = word << 6 | Long.numberOfTrailingZeros(bits);
+                int to = newSize++;
+                int child = firstChild[node];
+                boolean keeps = child >= 0 && (live[child >>> 6] & 1L << child) != 0;
+                firstChild[to] = child < 0 ? child : keeps ? rank(live, ranks, child) : UNEXPANDED;
+                // Siblings are kept or dropped together and stay next to each other
+                nextSibling[to] = node == root || nextSibling[node] == NONE ? NONE : to + 1;
+                move[to] = move[node];
+                visits[to] = visits[node];
+                wins[to] = wins[node];
+                winner[to] = winner[node];
+                amafVisits[to] = amafVisits[node];
+                amafWins[to] = amafWins[node];
+                prior[to] = prior[node];
+            }
+        }
+        size = newSize;
+        return newRoot;
+    }
+
+    private static int rank(long[] live, int[] ranks, int node) {
+        return ranks[node >>> 6] + Long.bitCount(live[node >>> 6] & ((1L << node) - 1));
+    }
+}
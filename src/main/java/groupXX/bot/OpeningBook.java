@@ -0,0 +1,159 @@
+package groupXX.bot;
+
+import groupXX.Player;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The OpeningBook class holds precomputed placing phase moves. Entries are keyed by the canonical
+ * (symmetry reduced) position key and stored in a sorted binary file that is memory-mapped and probed
+ * with a binary search, so a book hit costs a few microseconds instead of a full alpha-beta search.
+ *
+ * File layout (big-endian): magic, version, entry count, then one long per entry holding
+ * {@code canonicalKey << 5 | move}, sorted ascending.
+ */
+public class OpeningBook {
+
+    static final int MAGIC = 0x4D4D4F42; // "MMOB"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int MOVE_BITS = 5;
+
+    private static final OpeningBook NINE_MEN = loadQuietly(Paths.get("book", "placement9.book"));
+    private static final OpeningBook TWELVE_MEN = loadQuietly(Paths.get("book", "placement12.book"));
+
+    private final LongBuffer entries;
+
+    private OpeningBook(LongBuffer entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the book for the given board version, or null if no book file is available.
+     *
+     * @param in12MenVersion true for the Twelve Men's Morris board
+     * @return the opening book or null
+     */
+    public static OpeningBook get(boolean in12MenVersion) {
+        return in12MenVersion ? TWELVE_MEN : NINE_MEN;
+    }
+
+    /**
+     * Memory-maps a book file.
+     *
+     * @param path path of the book file
+     * @return the loaded book
+     * @throws IOException if the file cannot be read or is not a book file
+     */
+    public static OpeningBook load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            int count = buffer.getInt(8);
+            if (buffer.remaining() < HEADER_BYTES + (long) count * Long.BYTES) {
+                throw new IOException("Truncated opening book: " + path);
+            }
+            buffer.position(HEADER_BYTES);
+            LongBuffer entries = buffer.slice().order(ByteOrder.BIG_ENDIAN).asLongBuffer();
+            entries.limit(count);
+            return new OpeningBook(entries);
+        }
+    }
+
+    private static OpeningBook loadQuietly(Path path) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return load(path);
+        } catch (IOException e) {
+            System.out.println("Could not load opening book " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a book file from unsorted entries.
+     *
+     * @param path the file to write
+     * @param keys canonical position keys
+     * @param moves the book move for every key, in the canonical orientation
+     * @param count number of entries to write
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(Path path, long[] keys, int[] moves, int count) throws IOException {
+        long[] packed = new long[count];
+        for (int i = 0; i < count; i++) {
+            packed[i] = keys[i] << MOVE_BITS | moves[i];
+        }
+        Arrays.sort(packed);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            for (long entry : packed) {
+                out.writeLong(entry);
+            }
+        }
+    }
+
+    /**
+     * @return the number of positions in the book
+     */
+    public int size() {
+        return entries.limit();
+    }
+
+    /**
+     * Looks up the book move for a placing phase position.
+     *
+     * @param state the position, with the side to move in {@code state.currentPlayer}
+     * @return the book move in the orientation of the given position, or -1 if the position is not in the book
+     */
+    public int probe(GameState state) {
+        int blue = Bitboards.mask(state.boardPositions, Player.BLUE);
+        int red = Bitboards.mask(state.boardPositions, Player.RED);
+        long[] canonical = BoardSymmetry.canonicalKey(blue, red, state.moveCountBlue, state.moveCountRed, state.currentPlayer);
+        int move = find(canonical[0]);
+        if (move == -1) {
+            return -1;
+        }
+        return BoardSymmetry.INVERSES[(int) canonical[1]][move];
+    }
+
+    private int find(long key) {
+        int low = 0;
+        int high = entries.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long entry = entries.get(mid);
+            long midKey = entry >>> MOVE_BITS;
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return (int) (entry & ((1 << MOVE_BITS) - 1));
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,133 @@
+package groupXX.bot;
+
+import groupXX.GameBoard;
+import groupXX.GameBoardFactory;
+import groupXX.Player;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * OpeningBookBuilder builds the placing phase opening book offline. It enumerates every position reachable
+ * within the first plies of the placing phase (one representative per symmetry class), searches each of them
+ * in parallel with the AlphaBetaBot placement search at a fixed depth and writes the results with
+ * {@link OpeningBook#write}.
+ *
+ * Usage: {@code OpeningBookBuilder [plies] [depth] [9|12] [output file]}. The defaults, 4 plies at depth 7, are the
+ * parameters of the shipped {@code book/placement9.book}.
+ */
+public class OpeningBookBuilder {
+
+    public static void main(String[] args) throws IOException {
+        int plies = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        boolean in12MenVersion = args.length > 2 && args[2].equals("12");
+        Path output = args.length > 3 ? Paths.get(args[3])
+                : Paths.get("book", in12MenVersion ? "placement12.book" : "placement9.book");
+
+        GameBoard board = GameBoardFactory.get(in12MenVersion);
+        List<Long> positions = enumerate(plies, AlphaBetaBot.get(in12MenVersion));
+        System.out.println("Searching " + positions.size() + " positions (" + plies + " plies) at depth " + depth + "...");
+
+        long[] keys = new long[positions.size()];
+        int[] moves = new int[positions.size()];
+        AtomicInteger done = new AtomicInteger();
+        long startTime = System.currentTimeMillis();
+
+        IntStream.range(0, positions.size()).parallel().forEach(i -> {
+            long key = positions.get(i);
+            GameState state = toState(board, key);
+            int[] result = new AlphaBetaBot().placePiece_limited_alphabeta_search(state, depth);
+            keys[i] = key;
+            moves[i] = result[1];
+            int finished = done.incrementAndGet();
+            if (finished % 50 == 0) {
+                System.out.println(finished + "/" + positions.size() + " positions searched after "
+                        + (System.currentTimeMillis() - startTime) + " ms");
+            }
+        });
+
+        // Drop positions for which the search did not return a move
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (moves[i] >= 0) {
+                keys[count] = keys[i];
+                moves[count] = moves[i];
+                count++;
+            }
+        }
+        OpeningBook.write(output, keys, moves, count);
+        System.out.println("Wrote " + count + " positions to " + output + " in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * Enumerates the canonical keys of all placing phase positions after 0 to plies - 1 placements
+     * in which no mill has been formed yet.
+     */
+    static List<Long> enumerate(int plies, int[][] millPaths) {
+        List<Long> result = new ArrayList<>();
+        Set<Long> layer = new LinkedHashSet<>();
+        layer.add(BoardSymmetry.packKey(0, 0, 0, 0, Player.BLUE));
+        for (int ply = 0; ply < plies; ply++) {
+            result.addAll(layer);
+            if (ply == plies - 1) {
+                break;
+            }
+            Set<Long> next = new LinkedHashSet<>();
+            for (long key : layer) {
+                int blue = (int) (key & 0xFFFFFF);
+                int red = (int) (key >>> 24 & 0xFFFFFF);
+                int placedBlue = (int) (key >>> 48 & 0xF);
+                int placedRed = (int) (key >>> 52 & 0xF);
+                boolean blueToMove = (key >>> 56 & 1) == 0;
+                for (int position = 0; position < 24; position++) {
+                    int bit = 1 << position;
+                    if (((blue | red) & bit) != 0) {
+                        continue;
+                    }
+                    int newBlue = blueToMove ? blue | bit : blue;
+                    int newRed = blueToMove ? red : red | bit;
+                    if (closesMill(millPaths, blueToMove ? newBlue : newRed, position)) {
+                        continue; // leads to the delete phase, not a placing decision
+                    }
+                    next.add(BoardSymmetry.canonicalKey(newBlue, newRed,
+                            placedBlue + (blueToMove ? 1 : 0), placedRed + (blueToMove ? 0 : 1),
+                            blueToMove ? Player.RED : Player.BLUE)[0]);
+                }
+            }
+            layer = next;
+        }
+        return result;
+    }
+
+    private static boolean closesMill(int[][] millPaths, int mask, int position) {
+        for (int[] path : millPaths) {
+            if ((path[0] == position || path[1] == position || path[2] == position)
+                    && (mask >> path[0] & 1) != 0 && (mask >> path[1] & 1) != 0 && (mask >> path[2] & 1) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static GameState toState(GameBoard board, long key) {
+        Player[] positions = new Player[24];
+        for (int i = 0; i < 24; i++) {
+            if ((key >> i & 1) != 0) {
+                positions[i] = Player.BLUE;
+            } else if ((key >> (24 + i) & 1) != 0) {
+                positions[i] = Player.RED;
+            }
+        }
+        Player toMove = (key >>> 56 & 1) == 0 ? Player.BLUE : Player.RED;
+        return new GameState(board, positions, toMove, (int) (key >>> 48 & 0xF), (int) (key >>> 52 & 0xF));
+    }
+}
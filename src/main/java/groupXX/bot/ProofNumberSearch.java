@@ -0,0 +1,438 @@
+package groupXX.bot;
+
+import groupXX.Player;
+
+/**
+ * ProofNumberSearch tries to solve moving phase positions with depth-first proof-number search (df-pn).
+ * A move is a full turn: the piece moved and, if that closes a mill, the opponent piece deleted.
+ * A player loses when it is reduced to fewer than 3 pieces or cannot move. As in {@link groupXX.Game}, 3 against 3
+ * pieces and 50 moves without a capture are drawn, so the moves since the last capture are part of every position.
+ * Draws, repetitions and positions beyond the maximum depth count as not won, so a reported proof is always sound
+ * while a draw is never proven.
+ *
+ * Proof and disproof numbers live in a direct mapped transposition table with a fixed number of entries,
+ * which is the memory budget, and every search stops after a fixed number of expanded nodes.
+ */
+public class ProofNumberSearch {
+    public static final int WIN = 1;
+    public static final int UNKNOWN = 0;
+    public static final int LOSS = -1;
+
+    public static final int DEFAULT_NODE_BUDGET = 100_000;
+    public static final int DEFAULT_TABLE_BITS = 18;   // 2^18 entries of 16 bytes
+    private static final int MAX_PLY = 64;
+    private static final int DRAW_MOVES = 50;
+    private static final int MAX_MOVES = 1024;
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    // lookup() finds no entry; proof and disproof numbers are never negative, so no packed pair equals it
+    private static final long NO_ENTRY = -1L;
+
+    // Position keys: blue pieces in bits 0-23, red pieces in 24-47, red to move in 48, 12 men board in 49,
+    // the attacker (only in table keys) in 50 and the moves since the last capture from 51 on
+    private static final int QUIET_SHIFT = 51;
+    private static final long BOARD = (1L << QUIET_SHIFT) - 1;
+
+    private final int nodeBudget;
+    private final long[] tableKeys;
+    private final int[] tableProofs;
+    private final int[] tableDisproofs;
+    private final int tableMask;
+
+    // Children of the nodes on the current path, per ply
+    private final int[][] moves = new int[MAX_PLY][MAX_MOVES];
+    private final long[][] children = new long[MAX_PLY][MAX_MOVES];
+    private final boolean[][] repeated = new boolean[MAX_PLY][MAX_MOVES];
+    private final long[] path = new long[MAX_PLY];
+
+    private int[] adjacency;
+    private int[] lines;
+    private int[][] linesAt;
+    private long boardBit;
+    private long attackerBit;
+    private boolean outOfBudget;
+
+    // Counters of the last search
+    public long nodes = 0;
+    public long tableHits = 0;
+
+    public ProofNumberSearch() {
+        this(DEFAULT_NODE_BUDGET, DEFAULT_TABLE_BITS);
+    }
+
+    public ProofNumberSearch(int nodeBudget, int tableBits) {
+        this.nodeBudget = nodeBudget;
+        this.tableKeys = new long[1 << tableBits];
+        this.tableProofs = new int[1 << tableBits];
+        this.tableDisproofs = new int[1 << tableBits];
+        this.tableMask = (1 << tableBits) - 1;
+    }
+
+    /**
+     * Returns true if a moving phase position is likely decided, so that solving it is worth a try:
+     * a side is close to flying or to losing, far behind in material or almost blocked.
+     */
+    public static boolean isDecisive(GameState state) {
+        if (state.isPlacingPhase()) {
+            return false;
+        }
+        int[] adjacency = Bitboards.adjacency(state.gameBoard.isIn12MenVer());
+        int own = Bitboards.mask(state.boardPositions, state.currentPlayer);
+        int opp = Bitboards.mask(state.boardPositions, state.currentPlayer.opponent());
+        int ownCount = Integer.bitCount(own);
+        int oppCount = Integer.bitCount(opp);
+        return ownCount <= 4 || oppCount <= 4
+                || Math.abs(ownCount - oppCount) >= 3
+                || mobility(own, opp, adjacency) <= 2
+                || mobility(opp, own, adjacency) <= 2;
+    }
+
+    private static int mobility(int own, int opp, int[] adjacency) {
+        int empty = ~(own | opp) & Bitboards.FULL;
+        if (Integer.bitCount(own) <= 3) {
+            return Integer.bitCount(own) * Integer.bitCount(empty);
+        }
+        int count = 0;
+        for (int pieces = own; pieces != 0; pieces &= pieces - 1) {
+            count += Integer.bitCount(adjacency[Integer.numberOfTrailingZeros(pieces)] & empty);
+        }
+        return count;
+    }
+
+    /**
+     * Tries to prove a win and, failing that, a loss for the current player of a moving phase state, counting
+     * moves without a capture from 0.
+     */
+    public int[] solve(GameState state) {
+        return solve(state, 0);
+    }
+
+    /**
+     * Tries to prove a win and, failing that, a loss for the current player of a moving phase state that was
+     * reached by the given number of moves without a capture, see {@link groupXX.Game#moveWithoutCapture}.
+     *
+     * @return {WIN, from, to, delete} with the winning move, {LOSS, from, to, delete} with a legal move if every
+     * move loses, or {UNKNOWN, -1, -1, -1}; delete is -1 if the move does not close a mill
+     */
+    public int[] solve(GameState state, int movesWithoutCapture) {
+        int[] unknown = {UNKNOWN, -1, -1, -1};
+        if (state.isPlacingPhase()) {
+            return unknown;
+        }
+        prepare(state.gameBoard.isIn12MenVer());
+        long root = Bitboards.mask(state.boardPositions, Player.BLUE)
+                | (long) Bitboards.mask(state.boardPositions, Player.RED) << 24
+                | (state.currentPlayer == Player.RED ? 1L << 48 : 0L)
+                | boardBit
+                | (long) Math.min(movesWithoutCapture, DRAW_MOVES) << QUIET_SHIFT;
+        if (lost(root) || drawn(root)) {
+            return unknown;
+        }
+        nodes = 0;
+        tableHits = 0;
+        outOfBudget = false;
+
+        // Can the player to move force a win?
+        attackerBit = (root & 1L << 48) << 2;
+        if (prove(root)) {
+            int move = provenChild(root, true);
+            if (move >= 0) {
+                return toResult(WIN, move);
+            }
+        }
+        // Does every move lose against the opponent?
+        attackerBit = ((root & 1L << 48) ^ 1L << 48) << 2;
+        if (!outOfBudget && prove(root)) {
+            int count = generate(root, 0);
+            if (count > 0) {
+                return toResult(LOSS, moves[0][0]);
+            }
+        }
+        return unknown;
+    }
+
+    private boolean prove(long root) {
+        long entry = lookup(root | attackerBit);
+        if (entry == NO_ENTRY || proof(entry) != 0 && disproof(entry) != 0) {
+            mid(root, 0, INFINITY, INFINITY);
+        }
+        entry = lookup(root | attackerBit);
+        return entry != NO_ENTRY && proof(entry) == 0;
+    }
+
+    private static int[] toResult(int outcome, int move) {
+        return new int[]{outcome, move & 31, move >> 5 & 31, (move >> 10) - 1};
+    }
+
+    /**
+     * Returns the move to a child of the root that is proven for the attacker, or -1.
+     */
+    private int provenChild(long root, boolean attackerToMove) {
+        int count = generate(root, 0);
+        for (int i = 0; i < count; i++) {
+            long values = childValues(children[0][i], false);
+            if (attackerToMove ? proof(values) == 0 : disproof(values) == 0) {
+                return moves[0][i];
+            }
+        }
+        return -1;
+    }
+
+    private void prepare(boolean in12MenVersion) {
+        int[] newLines = Bitboards.lineMasks(in12MenVersion);
+        if (lines == newLines) {
+            return;
+        }
+        lines = newLines;
+        adjacency = Bitboards.adjacency(in12MenVersion);
+        boardBit = in12MenVersion ? 1L << 49 : 0L;
+        linesAt = new int[24][];
+        for (int position = 0; position < 24; position++) {
+            int count = 0;
+            for (int line : lines) {
+                if ((line >> position & 1) != 0) count++;
+            }
+            linesAt[position] = new int[count];
+            count = 0;
+            for (int line : lines) {
+                if ((line >> position & 1) != 0) linesAt[position][count++] = line;
+            }
+        }
+    }
+
+    /**
+     * Multiple iterative deepening: expands the node until its proof number reaches thresholdProof or its
+     * disproof number reaches thresholdDisproof, then stores both in the table.
+     */
+    private void mid(long key, int ply, int thresholdProof, int thresholdDisproof) {
+        if (++nodes > nodeBudget) {
+            outOfBudget = true;
+            return;
+        }
+        boolean attackerToMove = (key << 2 & 1L << 50) == attackerBit;
+        int count = generate(key, ply);
+        path[ply] = key;
+        for (int i = 0; i < count; i++) {
+            repeated[ply][i] = ply + 1 >= MAX_PLY || onPath(children[ply][i], ply);
+        }
+
+        int proof;
+        int disproof;
+        while (true) {
+            // OR node: the attacker needs one proven child; AND node: every child has to be proven
+            int best = -1;
+            int bestValue = INFINITY + 1;
+            int secondValue = INFINITY;
+            int bestProof = 0;
+            int bestDisproof = 0;
+            int min = INFINITY;
+            int sum = 0;
+            for (int i = 0; i < count; i++) {
+                long values = childValues(children[ply][i], repeated[ply][i]);
+                int select = attackerToMove ? proof(values) : disproof(values);
+                int add = attackerToMove ? disproof(values) : proof(values);
+                min = Math.min(min, select);
+                sum = Math.min(INFINITY, sum + add);
+                if (select < bestValue) {
+                    secondValue = bestValue;
+                    bestValue = select;
+                    best = i;
+                    bestProof = proof(values);
+                    bestDisproof = disproof(values);
+                } else if (select < secondValue) {
+                    secondValue = select;
+                }
+            }
+            proof = attackerToMove ? min : sum;
+            disproof = attackerToMove ? sum : min;
+            if (proof >= thresholdProof || disproof >= thresholdDisproof || best < 0) {
+                break;
+            }
+            secondValue = Math.min(secondValue, INFINITY - 1);
+            int childProof;
+            int childDisproof;
+            if (attackerToMove) {
+                childProof = Math.min(thresholdProof, secondValue + 1);
+                childDisproof = (int) Math.min(INFINITY, (long) thresholdDisproof - disproof + bestDisproof);
+            } else {
+                childProof = (int) Math.min(INFINITY, (long) thresholdProof - proof + bestProof);
+                childDisproof = Math.min(thresholdDisproof, secondValue + 1);
+            }
+            mid(children[ply][best], ply + 1, childProof, childDisproof);
+            if (outOfBudget) {
+                return;
+            }
+        }
+        store(key | attackerBit, proof, disproof);
+    }
+
+    /**
+     * Returns the proof and disproof numbers of a child, see {@link #pack(int, int)}, from the table, the game
+     * rules or the initial values 1 and 1.
+     */
+    private long childValues(long child, boolean repeated) {
+        long entry = lookup(child | attackerBit);
+        // An open entry of a repeated child or one at the depth limit must not be searched from here
+        if (entry != NO_ENTRY && (!repeated || proof(entry) == 0 || disproof(entry) == 0)) {
+            return entry;
+        }
+        boolean attackerToMove = (child << 2 & 1L << 50) == attackerBit;
+        if (lost(child)) {
+            long values = attackerToMove ? pack(INFINITY, 0) : pack(0, INFINITY);
+            store(child | attackerBit, proof(values), disproof(values));
+            return values;
+        }
+        if (drawn(child)) {
+            store(child | attackerBit, INFINITY, 0);
+            return pack(INFINITY, 0);
+        }
+        if (repeated) {
+            // A repetition or the depth limit is never a win for the attacker
+            return pack(INFINITY, 0);
+        }
+        return pack(1, 1);
+    }
+
+    /**
+     * Packs a proof and a disproof number into one long, so the search passes them around without allocating.
+     */
+    private static long pack(int proof, int disproof) {
+        return (long) proof << 32 | disproof;
+    }
+
+    private static int proof(long values) {
+        return (int) (values >>> 32);
+    }
+
+    private static int disproof(long values) {
+        return (int) values;
+    }
+
+    /**
+     * Returns true if the same board with the same player to move is on the current path, whatever the moves
+     * since the last capture.
+     */
+    private boolean onPath(long key, int ply) {
+        for (int i = ply; i >= 0; i--) {
+            if (((path[i] ^ key) & BOARD) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the player to move has lost: fewer than 3 pieces or no legal move.
+     */
+    private boolean lost(long key) {
+        boolean redToMove = (key & 1L << 48) != 0;
+        int own = (int) (redToMove ? key >>> 24 : key) & Bitboards.FULL;
+        int opp = (int) (redToMove ? key : key >>> 24) & Bitboards.FULL;
+        if (Integer.bitCount(own) < 3) {
+            return true;
+        }
+        int empty = ~(own | opp) & Bitboards.FULL;
+        if (Integer.bitCount(own) == 3) {
+            return empty == 0;
+        }
+        for (int pieces = own; pieces != 0; pieces &= pieces - 1) {
+            if ((adjacency[Integer.numberOfTrailingZeros(pieces)] & empty) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if a position the player to move has not lost is drawn: 3 against 3 pieces, or
+     * {@link #DRAW_MOVES} moves without a capture.
+     */
+    private static boolean drawn(long key) {
+        return Long.bitCount(key & Bitboards.FULL) == 3 && Long.bitCount(key >>> 24 & Bitboards.FULL) == 3
+                || key >>> QUIET_SHIFT >= DRAW_MOVES;
+    }
+
+    /**
+     * Generates all turns of the player to move into the buffers of the given ply and returns their number.
+     * Moves are encoded as from | to << 5 | (delete + 1) << 10.
+     */
+    private int generate(long key, int ply) {
+        boolean redToMove = (key & 1L << 48) != 0;
+        int own = (int) (redToMove ? key >>> 24 : key) & Bitboards.FULL;
+        int opp = (int) (redToMove ? key : key >>> 24) & Bitboards.FULL;
+        int empty = ~(own | opp) & Bitboards.FULL;
+        boolean flying = Integer.bitCount(own) <= 3;
+        long quiet = Math.min((key >>> QUIET_SHIFT) + 1, DRAW_MOVES) << QUIET_SHIFT;
+        int[] plyMoves = moves[ply];
+        long[] plyChildren = children[ply];
+        int count = 0;
+
+        for (int pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int from = Integer.numberOfTrailingZeros(pieces);
+            int targets = flying ? empty : adjacency[from] & empty;
+            for (; targets != 0; targets &= targets - 1) {
+                int to = Integer.numberOfTrailingZeros(targets);
+                int next = own & ~(1 << from) | 1 << to;
+                if (!formsMill(next, to)) {
+                    plyMoves[count] = from | to << 5;
+                    plyChildren[count++] = child(next, opp, redToMove) | quiet;
+                    continue;
+                }
+                int deletable = 0;
+                for (int others = opp; others != 0; others &= others - 1) {
+                    int position = Integer.numberOfTrailingZeros(others);
+                    if (!formsMill(opp, position)) {
+                        deletable |= 1 << position;
+                    }
+                }
+                if (deletable == 0) {
+                    deletable = opp; // all pieces are in mills
+                }
+                for (; deletable != 0; deletable &= deletable - 1) {
+                    int delete = Integer.numberOfTrailingZeros(deletable);
+                    plyMoves[count] = from | to << 5 | (delete + 1) << 10;
+                    plyChildren[count++] = child(next, opp & ~(1 << delete), redToMove);
+                }
+            }
+        }
+        return count;
+    }
+
+    private long child(int own, int opp, boolean redMoved) {
+        long blue = redMoved ? opp : own;
+        long red = redMoved ? own : opp;
+        return blue | red << 24 | (redMoved ? 0L : 1L << 48) | boardBit;
+    }
+
+    private boolean formsMill(int pieces, int position) {
+        for (int line : linesAt[position]) {
+            if ((pieces & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the packed proof and disproof numbers stored for the key, or NO_ENTRY.
+     */
+    private long lookup(long key) {
+        int index = index(key);
+        if (tableKeys[index] != key) {
+            return NO_ENTRY;
+        }
+        tableHits++;
+        return pack(tableProofs[index], tableDisproofs[index]);
+    }
+
+    private void store(long key, int proof, int disproof) {
+        int index = index(key);
+        tableKeys[index] = key;
+        tableProofs[index] = proof;
+        tableDisproofs[index] = disproof;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & tableMask;
+    }
+}
@@ -0,0 +1,286 @@
+package groupXX.bot;
+
+import java.util.Arrays;
+
+/**
+ * QuantizedNetWeights evaluates a network like {@link NetWeights} in integer arithmetic. All weight matrices are
+ * rounded to int8 with one scale per layer, and the board inputs are used as they are (0, 1 or 2 instead of 0, 0.5
+ * or 1), so the sums of the first layer are exact int32 sums. Their activation is a table indexed by the sum
+ * that gives the layer value in 0..255. The layers after it sum those values times their int8 weights in int32,
+ * and only their activations are computed in floating point.
+ *
+ * The values of every layer but the last must lie in [0, 1], so the hidden layers need a sigmoid or clipped ReLU
+ * activation. The output may have any activation.
+ *
+ * The scales come from {@link #calibrate(NetWeights, int[][])}. Each scale starts from the largest weight of its
+ * layer and may shrink, which clips the few largest weights. The calibration keeps the scales with the smallest
+ * error on the given positions.
+ */
+public final class QuantizedNetWeights implements NetModel {
+    private static final int MAX_INPUT = 2;      // largest board input value
+    private static final int WEIGHT_MAX = 127;   // largest int8 weight
+    private static final int HIDDEN_MAX = 255;   // layer value of 1.0
+    // Fractions of the largest weight of a layer that the calibration tries as int8 range
+    private static final double[] CLIP_FACTORS = {1.0, 0.9, 0.8, 0.7, 0.6, 0.5};
+
+    private final int[] nodes;
+    private final Activation[] activations;
+    private final double[] clips;             // fractions of the largest weight of each layer that became 127
+    private final byte[][] weights;
+    private final double[] units;             // value of one unit of the sums of each layer
+    private final double[][] biases;          // of the layers after the first
+    private final int inputNodes;
+    private final int[] firstBiases;          // biases of the first layer in units of its sums
+    private final int tableOffset;            // largest absolute sum of the first layer, the table index of 0
+    private final byte[] activationTable;     // value 0..255 (unsigned) of the first layer per sum
+    private final ThreadLocal<int[][]> scratch;
+
+    private QuantizedNetWeights(NetWeights net, double[] clips) {
+        nodes = net.nodes.clone();
+        activations = net.activations.clone();
+        inputNodes = nodes[0];
+        this.clips = clips.clone();
+        int layers = activations.length;
+        for (int layer = 0; layer < layers - 1; layer++) {
+            if (!activations[layer].bounded()) {
+                throw new IllegalArgumentException("Layer " + layer + " needs a sigmoid or clipped ReLU activation"
+                        + " for int8 inference.");
+            }
+        }
+
+        weights = new byte[layers][];
+        units = new double[layers];
+        for (int layer = 0; layer < layers; layer++) {
+            double scale = scale(net.weights[layer], clips[layer]);
+            weights[layer] = quantize(net.weights[layer], scale);
+            // one input unit is 0.5, see NeuralNetwork#forward(int[]); one layer value unit is 1/255
+            units[layer] = layer == 0 ? scale / MAX_INPUT : scale / HIDDEN_MAX;
+        }
+        biases = net.biases.clone();
+        firstBiases = new int[nodes[1]];
+        for (int j = 0; j < nodes[1]; j++) {
+            firstBiases[j] = (int) Math.round(net.biases[0][j] / units[0]);
+        }
+
+        // Bound the first layer sums by the largest weight of each input row at the largest input
+        int bound = Arrays.stream(firstBiases).map(Math::abs).max().getAsInt();
+        for (int i = 0; i < inputNodes; i++) {
+            int largest = 0;
+            for (int j = 0; j < nodes[1]; j++) {
+                largest = Math.max(largest, Math.abs(weights[0][i * nodes[1] + j]));
+            }
+            bound += MAX_INPUT * largest;
+        }
+        tableOffset = bound;
+        activationTable = new byte[2 * bound + 1];
+        for (int sum = -bound; sum <= bound; sum++) {
+            double value = activations[0].bounded() ? activations[0].apply(sum * units[0]) : 0;
+            activationTable[sum + bound] = (byte) Math.round(value * HIDDEN_MAX);
+        }
+        int maxNodes = Arrays.stream(nodes, 1, nodes.length).max().getAsInt();
+        scratch = ThreadLocal.withInitial(() -> new int[][]{new int[nodes[1]], new int[maxNodes], new int[maxNodes],
+                new int[maxNodes]});
+    }
+
+    /**
+     * Quantizes a network with the scales that reproduce its outputs on the given positions best.
+     * @param net The network
+     * @param positions Board inputs of typical positions
+     * @return The quantized network
+     */
+    public static QuantizedNetWeights calibrate(NetWeights net, int[][] positions) {
+        double[] reference = new double[positions.length];
+        net.forwardBatch(positions, reference);
+        // One layer after the other, the layers not calibrated yet with their full range
+        double[] clips = new double[net.layers()];
+        Arrays.fill(clips, 1.0);
+        QuantizedNetWeights best = null;
+        double bestError = Double.MAX_VALUE;
+        for (int layer = 0; layer < clips.length; layer++) {
+            double[] candidateClips = best == null ? clips : best.clips.clone();
+            for (double clip : CLIP_FACTORS) {
+                candidateClips[layer] = clip;
+                QuantizedNetWeights candidate = new QuantizedNetWeights(net, candidateClips);
+                double error = candidate.squaredError(positions, reference);
+                if (error < bestError) {
+                    best = candidate;
+                    bestError = error;
+                }
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        return "int8 network, weights clipped at " + Arrays.toString(clips) + " of the largest";
+    }
+
+    private double squaredError(int[][] positions, double[] reference) {
+        double error = 0;
+        for (int i = 0; i < positions.length; i++) {
+            double deviation = forward(positions[i]) - reference[i];
+            error += deviation * deviation;
+        }
+        return error;
+    }
+
+    private static double scale(double[] weights, double clip) {
+        double largest = 0;
+        for (double weight : weights) {
+            largest = Math.max(largest, Math.abs(weight));
+        }
+        return largest == 0 ? 1 : largest * clip / WEIGHT_MAX;
+    }
+
+    private static byte[] quantize(double[] weights, double scale) {
+        byte[] quantized = new byte[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            long value = Math.round(weights[i] / scale);
+            quantized[i] = (byte) Math.max(-WEIGHT_MAX, Math.min(WEIGHT_MAX, value));
+        }
+        return quantized;
+    }
+
+    @Override
+    public double forward(int[] input) {
+        checkSize(input);
+        int[][] buffers = scratch.get();
+        int[] first = buffers[0];
+        Arrays.fill(first, 0);
+        for (int i = 0; i < inputNodes; i++) {
+            int value = input[i];
+            if (value == 0) {
+                continue;
+            }
+            checkValue(value);
+            NetKernels.addScaledRow(weights[0], i * nodes[1], value, first, nodes[1]);
+        }
+        return propagate(first, buffers);
+    }
+
+    // A full input is the board value 2, so the sums keep the units of forward and its activation table
+    @Override
+    public double forwardFeatures(int[] active, int count) {
+        int[][] buffers = scratch.get();
+        int[] first = buffers[0];
+        Arrays.fill(first, 0);
+        for (int i = 0; i < count; i++) {
+            checkFeature(active[i]);
+            NetKernels.addScaledRow(weights[0], active[i] * nodes[1], MAX_INPUT, first, nodes[1]);
+        }
+        return propagate(first, buffers);
+    }
+
+    // Activates the sums of the first layer, passes them through the other layers and returns the first output
+    private double propagate(int[] first, int[][] buffers) {
+        int last = weights.length - 1;
+        if (last == 0) {
+            return activations[0].apply(first[0] * units[0] + biases[0][0]);
+        }
+        int[] values = buffers[1];
+        for (int j = 0; j < nodes[1]; j++) {
+            values[j] = activationTable[first[j] + firstBiases[j] + tableOffset] & 0xFF;
+        }
+        int[] sums = buffers[3];
+        for (int layer = 1; layer < last; layer++) {
+            int inputs = nodes[layer];
+            int outputs = nodes[layer + 1];
+            Arrays.fill(sums, 0, outputs, 0);
+            for (int i = 0; i < inputs; i++) {
+                if (values[i] != 0) {
+                    NetKernels.addScaledRow(weights[layer], i * outputs, values[i], sums, outputs);
+                }
+            }
+            int[] next = values == buffers[1] ? buffers[2] : buffers[1];
+            for (int j = 0; j < outputs; j++) {
+                double value = activations[layer].apply(sums[j] * units[layer] + biases[layer][j]);
+                next[j] = (int) Math.round(value * HIDDEN_MAX);
+            }
+            values = next;
+        }
+
+        // The first output
+        byte[] matrix = weights[last];
+        int outputs = nodes[last + 1];
+        int sum = 0;
+        for (int i = 0; i < nodes[last]; i++) {
+            sum += values[i] * matrix[i * outputs];
+        }
+        return activations[last].apply(sum * units[last] + biases[last][0]);
+    }
+
+    @Override
+    public void forwardBatch(int[][] inputs, double[] out) {
+        for (int i = 0; i < inputs.length; i++) {
+            out[i] = forward(inputs[i]);
+        }
+    }
+
+    @Override
+    public NetAccumulator accumulator() {
+        return new Accumulator();
+    }
+
+    // The sums are exact integers, so an updated accumulator gives exactly the output of forward
+    private final class Accumulator implements NetAccumulator {
+        private final int[] base = new int[inputNodes];
+        private final int[] sums = new int[nodes[1]];
+        private final int[] first = new int[nodes[1]];
+
+        @Override
+        public void reset(int[] input) {
+            checkSize(input);
+            Arrays.fill(base, 0);
+            Arrays.fill(sums, 0);
+            for (int i = 0; i < inputNodes; i++) {
+                set(i, input[i]);
+            }
+        }
+
+        @Override
+        public void set(int index, int value) {
+            checkValue(value);
+            if (value != base[index]) {
+                NetKernels.addScaledRow(weights[0], index * nodes[1], value - base[index], sums, nodes[1]);
+                base[index] = value;
+            }
+        }
+
+        @Override
+        public double evaluate() {
+            return propagate(sums, scratch.get());
+        }
+
+        @Override
+        public double evaluate(int[] input) {
+            checkSize(input);
+            System.arraycopy(sums, 0, first, 0, nodes[1]);
+            for (int i = 0; i < inputNodes; i++) {
+                if (input[i] != base[i]) {
+                    checkValue(input[i]);
+                    NetKernels.addScaledRow(weights[0], i * nodes[1], input[i] - base[i], first, nodes[1]);
+                }
+            }
+            return propagate(first, scratch.get());
+        }
+    }
+
+    private void checkSize(int[] input) {
+        if (input.length != inputNodes) {
+            throw new IllegalArgumentException("Input size does not match expected size.");
+        }
+    }
+
+    private void checkFeature(int index) {
+        if (index < 0 || index >= inputNodes) {
+            throw new IllegalArgumentException("Input " + index + " is not an input of the network.");
+        }
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0 || value > MAX_INPUT) {
+            throw new IllegalArgumentException("Input value " + value + " is not a board value.");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package groupXX.bot;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * RolloutEngine plays the random games of the Monte Carlo search on a {@link MorrisState}. It owns its state,
+ * action buffer and random generator, so a playout allocates nothing and prints nothing; every search thread
+ * needs its own engine.
+ *
+ * The policy is the one MonteCarloBot always used: the first action (one that closes a mill, or deletes a piece
+ * outside a mill, if there is one) with probability 1/2, otherwise a uniformly random action.
+ */
+public final class RolloutEngine {
+    public static final int MAX_ROLLOUT_DEPTH = 50;
+
+    private final MorrisState state;
+    private final int[] actions = new int[MorrisState.MAX_ACTIONS];
+    private final SplittableRandom random;
+    // Positions played in the last playout, one mask per player and action type
+    private final int[] played = new int[8];
+
+    // Scores of the final positions of playouts that did not end the game; null evaluates every one
+    public EvalCache evalCache = null;
+    // Scores those final positions instead of MonteCarloBot#evaluateBoardState; null keeps the heuristic
+    public Evaluator evaluator = null;
+
+    // Number of playouts and actions played so far, and the evaluator calls and their time
+    public long playouts = 0;
+    public long actionsPlayed = 0;
+    public long evaluations = 0;
+    public long evaluationNanos = 0;
+
+    public RolloutEngine(boolean in12MenVersion) {
+        this(in12MenVersion, new SplittableRandom());
+    }
+
+    public RolloutEngine(boolean in12MenVersion, SplittableRandom random) {
+        this.state = new MorrisState(in12MenVersion);
+        this.random = random;
+    }
+
+    /**
+     * Returns a random int in [0, bound), drawn from the engine's generator.
+     */
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * Returns the positions the player chose for actions of the given type (see {@link MorrisState#actionType()})
+     * during the last playout, as a bitboard.
+     */
+    public int played(int player, int actionType) {
+        return played[player << 2 | actionType];
+    }
+
+    /**
+     * Plays a random game from the start state (which is left unchanged) for at most MAX_ROLLOUT_DEPTH actions.
+     *
+     * @return the result for the player to move in start: 1 for a win, -1 for a loss, 0 for a draw, otherwise the
+     * evaluation of the final position in [-1, 1] by the evaluator or MonteCarloBot's heuristic
+     */
+    public double playout(MorrisState start) {
+        state.copyFrom(start);
+        int player = state.toMove;
+        Arrays.fill(played, 0);
+
+        int depth = 0;
+        int loser = state.loser();
+        while (loser == -1 && depth < MAX_ROLLOUT_DEPTH) {
+            int count = state.actions(actions);
+            if (count == 0) {
+                break;
+            }
+            int action = random.nextBoolean() ? actions[0] : actions[random.nextInt(count)];
+            played[state.toMove << 2 | state.actionType()] |= 1 << action;
+            state.apply(action);
+            depth++;
+            loser = state.loser();
+        }
+        playouts++;
+        actionsPlayed += depth;
+
+        if (loser == MorrisState.DRAW) {
+            return 0.0;
+        }
+        if (loser != -1) {
+            return loser == player ? -1.0 : 1.0;
+        }
+        if (evaluator == null) {
+            return MonteCarloBot.evaluateBoardState(state, player, evalCache);
+        }
+        long evaluationStart = System.nanoTime();
+        double score = evaluator.evaluate(state, player);
+        evaluationNanos += System.nanoTime() - evaluationStart;
+        evaluations++;
+        return Math.max(-1.0, Math.min(1.0, score));
+    }
+}
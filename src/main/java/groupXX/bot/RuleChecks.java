@@ -0,0 +1,53 @@
+package groupXX.bot;
+
+import groupXX.Game;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Checks of the game rules the searches use instead of {@link Game}, see {@link Checks}.
+ */
+final class RuleChecks {
+
+    private RuleChecks() {
+    }
+
+    /**
+     * MorrisState ends random games like Game does: the same loser, or a draw by 3 against 3 pieces after the
+     * placing phase or by the 50-move rule, on every position of random 9 and 12 men games.
+     */
+    static void gameEnd() {
+        SplittableRandom random = new SplittableRandom(36);
+        int[] actions = new int[MorrisState.MAX_ACTIONS];
+        int[] endings = new int[4];
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));   // Game prints every check
+        try {
+            for (int i = 0; i < 2_000; i++) {
+                MorrisState state = new MorrisState(random.nextBoolean());
+                int loser = -1;
+                for (int ply = 0; ply < 400; ply++) {
+                    loser = state.loser();
+                    Game game = state.toGame();
+                    boolean over = game.isOver();
+                    int expected = !over ? -1 : game.loser == null ? MorrisState.DRAW : game.loser.ordinal();
+                    Checks.require(loser == expected, "loser() is " + loser + " instead of " + expected
+                            + " after " + ply + " actions of game " + i);
+                    int count = state.actions(actions);
+                    if (loser != -1 || count == 0) {
+                        break;
+                    }
+                    state.apply(actions[random.nextInt(count)]);
+                }
+                endings[loser + 1]++;
+            }
+        } finally {
+            System.setOut(out);
+        }
+        Checks.require(endings[1] > 0 && endings[2] > 0 && endings[3] > 0,
+                "random games did not reach wins of both players and draws: " + Arrays.toString(endings));
+    }
+}
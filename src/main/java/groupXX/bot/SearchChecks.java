@@ -0,0 +1,248 @@
+package groupXX.bot;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks of the search bots, see {@link Checks}.
+ */
+final class SearchChecks {
+
+    private SearchChecks() {
+    }
+
+    /**
+     * The proof-number search never proves a drawn game: 3 against 3 pieces stay unknown, and one move before the
+     * 50-move rule every proven win captures or blocks the opponent right away.
+     */
+    static void proofDraws() {
+        SplittableRandom random = new SplittableRandom(30);
+        ProofNumberSearch search = new ProofNumberSearch(20_000, 16);
+        int proven = 0;
+        for (int i = 0; i < 3_000; i++) {
+            GameState state = HeuristicChecks.randomState(random);
+            MorrisState before = new MorrisState(state.gameBoard.isIn12MenVer());
+            before.copyFrom(state);
+            if (state.isPlacingPhase() || before.loser() != -1 && before.loser() != MorrisState.DRAW) {
+                continue;
+            }
+            int[] proof = search.solve(state, MorrisState.DRAW_MOVES - 1);
+            if (before.loser() == MorrisState.DRAW) {
+                Checks.require(proof[0] == ProofNumberSearch.UNKNOWN, "proved a draw on board "
+                        + HeuristicChecks.describe(state));
+                continue;
+            }
+            if (proof[0] != ProofNumberSearch.WIN) {
+                continue;
+            }
+            proven++;
+            MorrisState after = new MorrisState(state.gameBoard.isIn12MenVer());
+            after.copyFrom(before);
+            after.quietMoves = MorrisState.DRAW_MOVES - 1;
+            after.apply(proof[1]);
+            after.apply(proof[2]);
+            if (proof[3] >= 0) {
+                after.apply(proof[3]);
+            }
+            Checks.require(after.loser() != MorrisState.DRAW, "proved a win by a drawing move "
+                    + proof[1] + "-" + proof[2] + " on board " + HeuristicChecks.describe(state));
+        }
+        Checks.require(proven > 0, "no win was proven");
+    }
+
+    /**
+     * MonteCarloBot's rollout scores are the same with and without an {@link EvalCache}, on every position of random
+     * games and on the same board with the other player to move, evaluated for both players in random order, so no
+     * two positions with different scores share a key.
+     */
+    static void rolloutEvalCache() {
+        SplittableRandom random = new SplittableRandom(49);
+        List<MorrisState> positions = new ArrayList<>();
+        int[] actions = new int[MorrisState.MAX_ACTIONS];
+        for (int game = 0; game < 500; game++) {
+            MorrisState state = new MorrisState(random.nextBoolean());
+            for (int ply = 0; ply < 300 && state.loser() == -1; ply++) {
+                MorrisState position = new MorrisState(state.in12MenVersion);
+                position.copyFrom(state);
+                positions.add(position);
+                MorrisState otherToMove = new MorrisState(state.in12MenVersion);
+                otherToMove.copyFrom(state);
+                otherToMove.toMove ^= 1;
+                otherToMove.phase = otherToMove.placed[otherToMove.toMove] != otherToMove.requiredPieces
+                        ? 0 : otherToMove.toMove + 1;
+                otherToMove.selected = -1;
+                positions.add(otherToMove);
+                int count = state.actions(actions);
+                if (count == 0) {
+                    break;
+                }
+                state.apply(actions[random.nextInt(count)]);
+            }
+        }
+        EvalCache cache = new EvalCache(22);
+        for (int i = 0; i < 4 * positions.size(); i++) {
+            MorrisState state = positions.get(random.nextInt(positions.size()));
+            int player = random.nextInt(2);
+            double cached = MonteCarloBot.evaluateBoardState(state, player, cache);
+            double expected = MonteCarloBot.evaluateBoardState(state, player);
+            Checks.require(cached == expected, "cached score " + cached + " instead of " + expected + " for player "
+                    + player + " in phase " + state.phase + " of "
+                    + HeuristicChecks.describe(new GameState(state.toGame())));
+        }
+    }
+
+    /**
+     * AlphaBetaBot and EasyBot decide the same with and without their {@link EvalCache} along random games, each
+     * keeping one cache over all positions: AlphaBetaBot's placement searches to depth 1 to 4 give the same score
+     * and placement, and EasyBot chooses the same action in every position.
+     */
+    static void searchEvalCache() {
+        SplittableRandom random = new SplittableRandom(49);
+        List<MorrisState> line = new ArrayList<>();
+        int[] actions = new int[MorrisState.MAX_ACTIONS];
+        for (int game = 0; game < 20; game++) {
+            MorrisState state = new MorrisState(random.nextBoolean());
+            for (int ply = 0; ply < 120 && state.loser() == -1; ply++) {
+                MorrisState position = new MorrisState(state.in12MenVersion);
+                position.copyFrom(state);
+                line.add(position);
+                int count = state.actions(actions);
+                if (count == 0) {
+                    break;
+                }
+                state.apply(actions[random.nextInt(count)]);
+            }
+        }
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));   // the bots print their decisions
+        try {
+            AlphaBetaBot plainSearch = new AlphaBetaBot();
+            plainSearch.evalCache = null;
+            AlphaBetaBot cachedSearch = new AlphaBetaBot();
+            EasyBot plainEasy = new EasyBot();
+            plainEasy.evalCache = null;
+            EasyBot cachedEasy = new EasyBot();
+            for (MorrisState position : line) {
+                String where = HeuristicChecks.describe(new GameState(position.toGame()));
+                if (position.phase == 0) {
+                    GameState state = new GameState(position.toGame());
+                    for (int depth = 1; depth <= 4; depth++) {
+                        int[] plain = plainSearch.placePiece_limited_alphabeta_search(state, depth);
+                        int[] cached = cachedSearch.placePiece_limited_alphabeta_search(state, depth);
+                        Checks.require(Arrays.equals(plain, cached), "AlphaBetaBot depth " + depth + " search gives "
+                                + Arrays.toString(cached) + " instead of " + Arrays.toString(plain) + " on " + where);
+                    }
+                }
+                int plain = Benchmark.botMove(position.toGame(), plainEasy);
+                int cached = Benchmark.botMove(position.toGame(), cachedEasy);
+                Checks.require(plain == cached, "EasyBot chooses " + cached + " instead of " + plain + " on " + where);
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Compacting and recycling a NodePool in place keeps the subtree below the root with all its statistics, except
+     * for the children recycle drops, and leaves a recycled pool at most half full.
+     */
+    static void nodePoolCompaction() {
+        SplittableRandom random = new SplittableRandom(38);
+        for (int round = 0; round < 200; round++) {
+            NodePool pool = new NodePool(2_000 + random.nextInt(20_000));
+            int top = growRandomTree(pool, random);
+            // a root below the first node, as after tree reuse, or the first node itself
+            int root = random.nextBoolean() ? top : pool.nextSibling[pool.firstChild(top)] == NodePool.NONE
+                    ? pool.firstChild(top) : pool.nextSibling[pool.firstChild(top)];
+            boolean recycle = random.nextBoolean();
+            NodePool before = copyOf(pool);
+            int newRoot = recycle ? pool.recycle(root) : pool.compact(root);
+            Checks.require(pool.nextSibling[newRoot] == NodePool.NONE, "round " + round + ": root has siblings");
+            int[] count = new int[1];
+            sameSubtree(before, root, pool, newRoot, recycle, count, "round " + round);
+            Checks.require(count[0] == pool.size, "round " + round + ": " + pool.size + " nodes in use but "
+                    + count[0] + " in the tree");
+            Checks.require(!recycle || pool.occupancy() <= 0.5, "round " + round + ": recycled pool is "
+                    + pool.occupancy() + " full");
+        }
+    }
+
+    /**
+     * Fills the pool with a random tree with statistics and some proven nodes and returns its top node.
+     */
+    private static int growRandomTree(NodePool pool, SplittableRandom random) {
+        int top = pool.allocate(0);
+        int[] moves = {0, 1, 2, 3, 4, 5, 6, 7};
+        float[] priors = new float[moves.length];
+        while (pool.free() > moves.length) {
+            // walk down to a random leaf, counting visits on the way, and expand it
+            int node = top;
+            while (true) {
+                pool.visits[node] += 1 + random.nextInt(3);
+                pool.wins[node] += random.nextDouble();
+                pool.amafVisits[node] += random.nextInt(2);
+                pool.amafWins[node] += random.nextDouble();
+                if (!pool.hasChildren(node)) {
+                    break;
+                }
+                node = pool.firstChild(node);
+                for (int skip = random.nextInt(moves.length); skip > 0 && pool.nextSibling[node] != NodePool.NONE;
+                     skip--) {
+                    node = pool.nextSibling[node];
+                }
+            }
+            if (random.nextInt(20) == 0) {
+                pool.setWinner(node, random.nextInt(2));
+            }
+            for (int i = 0; i < priors.length; i++) {
+                priors[i] = random.nextFloat();
+            }
+            pool.expand(node, moves, priors, node == top ? 2 + random.nextInt(7) : random.nextInt(moves.length + 1));
+        }
+        return top;
+    }
+
+    private static NodePool copyOf(NodePool pool) {
+        NodePool copy = new NodePool(pool.capacity);
+        copy.firstChild = pool.firstChild.clone();
+        copy.nextSibling = pool.nextSibling.clone();
+        copy.move = pool.move.clone();
+        copy.visits = pool.visits.clone();
+        copy.wins = pool.wins.clone();
+        copy.winner = pool.winner.clone();
+        copy.amafVisits = pool.amafVisits.clone();
+        copy.amafWins = pool.amafWins.clone();
+        copy.prior = pool.prior.clone();
+        copy.size = pool.size;
+        return copy;
+    }
+
+    /**
+     * Compares the subtree below old in the pool before with the one below node after, counting its nodes.
+     */
+    private static void sameSubtree(NodePool before, int old, NodePool after, int node, boolean recycle,
+                                    int[] count, String round) {
+        count[0]++;
+        String where = round + ", node " + old + ": ";
+        Checks.require(before.move[old] == after.move[node] && before.visits[old] == after.visits[node]
+                && before.wins[old] == after.wins[node] && before.winner[old] == after.winner[node]
+                && before.amafVisits[old] == after.amafVisits[node] && before.amafWins[old] == after.amafWins[node]
+                && before.prior[old] == after.prior[node], where + "statistics changed");
+        int oldChild = before.firstChild[old];
+        int child = after.firstChild[node];
+        if (recycle && oldChild >= 0 && child == NodePool.UNEXPANDED) {
+            return;   // the children were dropped
+        }
+        Checks.require(oldChild < 0 ? child == oldChild : child >= 0, where + "children changed");
+        for (; oldChild >= 0; oldChild = before.nextSibling[oldChild]) {
+            Checks.require(child >= 0, where + "lost a child");
+            sameSubtree(before, oldChild, after, child, recycle, count, round);
+            child = after.nextSibling[child];
+        }
+        Checks.require(child < 0, where + "gained a child");
+    }
+}
@@ -0,0 +1,291 @@
+package groupXX.bot;
+
+import groupXX.Player;
+
+/**
+ * ThreatSpaceSearch looks for forced mills in the moving phase. The side to move (the attacker) only plays
+ * threats, i.e. moves after which it can close a mill with its next move, while the defender may answer with
+ * any move. A sequence is proven once every defence runs into a mill: double threats, threats the defender
+ * cannot reach and opening and re-closing a mill the defender cannot block are all found this way.
+ *
+ * The search works on bitboards, caches proven and refuted positions in a small direct mapped table
+ * and stops when its node budget is used up.
+ */
+public class ThreatSpaceSearch {
+    public static final int DEFAULT_MAX_DEPTH = 4;       // attacker moves, the last one closing the mill
+    public static final int DEFAULT_NODE_BUDGET = 20_000;
+    private static final int DEFAULT_CACHE_BITS = 16;
+
+    private final int maxDepth;
+    private final int nodeBudget;
+
+    // Direct mapped cache: the position key and the depth it was proven at (> 0) or refuted at (< 0)
+    private final long[] cacheKeys;
+    private final byte[] cacheDepths;
+    private final int cacheMask;
+
+    private int[] adjacency;
+    private int[] lines;
+    private int[][] linesAt;
+    private long boardBit;
+    private boolean outOfBudget;
+
+    // Counters of the last search
+    public long nodes = 0;
+    public long cacheHits = 0;
+    public int provenDepth = 0;
+
+    public ThreatSpaceSearch() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_NODE_BUDGET, DEFAULT_CACHE_BITS);
+    }
+
+    public ThreatSpaceSearch(int maxDepth, int nodeBudget, int cacheBits) {
+        this.maxDepth = maxDepth;
+        this.nodeBudget = nodeBudget;
+        this.cacheKeys = new long[1 << cacheBits];
+        this.cacheDepths = new byte[1 << cacheBits];
+        this.cacheMask = (1 << cacheBits) - 1;
+    }
+
+    /**
+     * Searches for a forced mill for the current player of a moving phase state.
+     *
+     * @return {from, to} of the first move of the shortest forced mill found, or null if none was
+     * proven within the depth and node budget
+     */
+    public int[] search(GameState state) {
+        boolean in12MenVersion = state.gameBoard.isIn12MenVer();
+        prepare(in12MenVersion);
+        Player player = state.currentPlayer;
+        int own = Bitboards.mask(state.boardPositions, player);
+        int opp = Bitboards.mask(state.boardPositions, player.opponent());
+
+        nodes = 0;
+        cacheHits = 0;
+        provenDepth = 0;
+        outOfBudget = false;
+
+        // Depth 1: a mill can be closed right away
+        int closing = closingMove(own, opp);
+        if (closing >= 0) {
+            provenDepth = 1;
+            return new int[]{closing >> 5, closing & 31};
+        }
+
+        int empty = ~(own | opp) & Bitboards.FULL;
+        boolean flying = Integer.bitCount(own) <= 3;
+        for (int depth = 2; depth <= maxDepth && !outOfBudget; depth++) {
+            for (int pieces = own; pieces != 0; pieces &= pieces - 1) {
+                int from = Integer.numberOfTrailingZeros(pieces);
+                int targets = flying ? empty : adjacency[from] & empty;
+                for (; targets != 0; targets &= targets - 1) {
+                    int to = Integer.numberOfTrailingZeros(targets);
+                    int next = own & ~(1 << from) | 1 << to;
+                    if (millSquares(next, opp) == 0) {
+                        continue; // not a threat
+                    }
+                    if (defend(next, opp, depth - 1)) {
+                        provenDepth = depth;
+                        return new int[]{from, to};
+                    }
+                    if (outOfBudget) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void prepare(boolean in12MenVersion) {
+        int[] newLines = Bitboards.lineMasks(in12MenVersion);
+        if (lines == newLines) {
+            return;
+        }
+        lines = newLines;
+        adjacency = Bitboards.adjacency(in12MenVersion);
+        boardBit = in12MenVersion ? 1L << 49 : 0L;
+        linesAt = new int[24][];
+        for (int position = 0; position < 24; position++) {
+            int count = 0;
+            for (int line : lines) {
+                if ((line >> position & 1) != 0) count++;
+            }
+            linesAt[position] = new int[count];
+            count = 0;
+            for (int line : lines) {
+                if ((line >> position & 1) != 0) linesAt[position][count++] = line;
+            }
+        }
+    }
+
+    /**
+     * The attacker is to move: can it force a mill within depth moves?
+     */
+    private boolean attack(int own, int opp, int depth) {
+        if (millSquares(own, opp) != 0) {
+            return true;
+        }
+        if (depth <= 1) {
+            return false;
+        }
+        if (++nodes > nodeBudget) {
+            outOfBudget = true;
+            return false;
+        }
+        long key = own | (long) opp << 24 | boardBit;
+        int cached = probe(key, depth);
+        if (cached != 0) {
+            return cached > 0;
+        }
+
+        int empty = ~(own | opp) & Bitboards.FULL;
+        boolean flying = Integer.bitCount(own) <= 3;
+        for (int pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int from = Integer.numberOfTrailingZeros(pieces);
+            int targets = flying ? empty : adjacency[from] & empty;
+            for (; targets != 0; targets &= targets - 1) {
+                int to = Integer.numberOfTrailingZeros(targets);
+                int next = own & ~(1 << from) | 1 << to;
+                if (millSquares(next, opp) == 0) {
+                    continue;
+                }
+                if (defend(next, opp, depth - 1)) {
+                    store(key, depth);
+                    return true;
+                }
+                if (outOfBudget) {
+                    return false;
+                }
+            }
+        }
+        store(key, -depth);
+        return false;
+    }
+
+    /**
+     * The defender is to move against a threat: does every reply lose to a mill within depth attacker moves?
+     * A defender without moves is blocked and has lost.
+     */
+    private boolean defend(int own, int opp, int depth) {
+        if (++nodes > nodeBudget) {
+            outOfBudget = true;
+            return false;
+        }
+        long key = own | (long) opp << 24 | 1L << 48 | boardBit;
+        int cached = probe(key, depth);
+        if (cached != 0) {
+            return cached > 0;
+        }
+
+        int empty = ~(own | opp) & Bitboards.FULL;
+        boolean flying = Integer.bitCount(opp) <= 3;
+        // Replies that block a mill square come first, they are the likely refutations
+        int blocks = millSquares(own, opp);
+        for (int pass = 0; pass < 2; pass++) {
+            int wanted = pass == 0 ? blocks : ~blocks;
+            for (int pieces = opp; pieces != 0; pieces &= pieces - 1) {
+                int from = Integer.numberOfTrailingZeros(pieces);
+                int targets = (flying ? empty : adjacency[from] & empty) & wanted;
+                for (; targets != 0; targets &= targets - 1) {
+                    int to = Integer.numberOfTrailingZeros(targets);
+                    int next = opp & ~(1 << from) | 1 << to;
+                    if (formsMill(next, to) || !attack(own, next, depth)) {
+                        if (!outOfBudget) {
+                            store(key, -depth);
+                        }
+                        return false;
+                    }
+                }
+            }
+        }
+        store(key, depth);
+        return true;
+    }
+
+    /**
+     * Returns the empty squares on which the player with pieces own can close a mill with its next move.
+     */
+    private int millSquares(int own, int opp) {
+        int empty = ~(own | opp) & Bitboards.FULL;
+        boolean flying = Integer.bitCount(own) <= 3;
+        int result = 0;
+        for (int line : lines) {
+            int target = line & empty;
+            if (Integer.bitCount(own & line) != 2 || target == 0) {
+                continue;
+            }
+            int movers = own & ~line;
+            if (!flying) {
+                movers &= adjacency[Integer.numberOfTrailingZeros(target)];
+            }
+            if (movers != 0) {
+                result |= target;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a move closing a mill as from << 5 | to, or -1.
+     */
+    private int closingMove(int own, int opp) {
+        int empty = ~(own | opp) & Bitboards.FULL;
+        boolean flying = Integer.bitCount(own) <= 3;
+        for (int line : lines) {
+            int target = line & empty;
+            if (Integer.bitCount(own & line) != 2 || target == 0) {
+                continue;
+            }
+            int to = Integer.numberOfTrailingZeros(target);
+            int movers = own & ~line;
+            if (!flying) {
+                movers &= adjacency[to];
+            }
+            if (movers != 0) {
+                return Integer.numberOfTrailingZeros(movers) << 5 | to;
+            }
+        }
+        return -1;
+    }
+
+    private boolean formsMill(int pieces, int position) {
+        for (int line : linesAt[position]) {
+            if ((pieces & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns 1 if the position is known to be proven at this depth, -1 if it is known to fail, 0 otherwise.
+     */
+    private int probe(long key, int depth) {
+        int index = index(key);
+        if (cacheKeys[index] != key) {
+            return 0;
+        }
+        int stored = cacheDepths[index];
+        if (stored > 0 && stored <= depth) {
+            cacheHits++;
+            return 1;
+        }
+        if (stored < 0 && -stored >= depth) {
+            cacheHits++;
+            return -1;
+        }
+        return 0;
+    }
+
+    private void store(long key, int depth) {
+        int index = index(key);
+        cacheKeys[index] = key;
+        cacheDepths[index] = (byte) depth;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & cacheMask;
+    }
+}
@@ -0,0 +1,109 @@
+package groupXX.bot;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API versions of the {@link NetKernels} loops. Only NetKernels may use this class, and only if the
+ * incubator module is present.
+ */
+final class VectorNetKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // As many bytes as INTS has lanes, widened to one int vector per load
+    private static final VectorSpecies<Byte> INT_BYTES = VectorSpecies.of(byte.class,
+            VectorShape.forBitSize(INTS.length() * Byte.SIZE));
+
+    private VectorNetKernels() {
+    }
+
+    static void addScaledRow(double[] weights, int offset, double scale, double[] out, int outOffset, int length) {
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, scale);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector row = DoubleVector.fromArray(SPECIES, weights, offset + i);
+            // multiply and add separately, not fused, to round like the scalar loop
+            DoubleVector.fromArray(SPECIES, out, outOffset + i).add(row.mul(factor)).intoArray(out, outOffset + i);
+        }
+        for (; i < length; i++) {
+            out[outOffset + i] += scale * weights[offset + i];
+        }
+    }
+
+    static void addRow(double[] weights, int offset, double[] out, int length) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector row = DoubleVector.fromArray(SPECIES, weights, offset + i);
+            DoubleVector.fromArray(SPECIES, out, i).add(row).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] += weights[offset + i];
+        }
+    }
+
+    static void sigmoid(double[] values, int offset, int length) {
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        int i = offset;
+        int end = offset + length;
+        for (int bound = offset + SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            one.div(v.neg().lanewise(VectorOperators.EXP).add(one)).intoArray(values, i);
+        }
+        for (; i < end; i++) {
+            values[i] = 1.0 / (1.0 + Math.exp(-values[i]));
+        }
+    }
+
+    static void addScaledRow(float[] weights, int offset, float scale, float[] out, int length) {
+        FloatVector factor = FloatVector.broadcast(FLOATS, scale);
+        int i = 0;
+        for (int bound = FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+            FloatVector row = FloatVector.fromArray(FLOATS, weights, offset + i);
+            FloatVector.fromArray(FLOATS, out, i).add(row.mul(factor)).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] += scale * weights[offset + i];
+        }
+    }
+
+    static void addRow(float[] weights, int offset, float[] out, int length) {
+        int i = 0;
+        for (int bound = FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+            FloatVector row = FloatVector.fromArray(FLOATS, weights, offset + i);
+            FloatVector.fromArray(FLOATS, out, i).add(row).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] += weights[offset + i];
+        }
+    }
+
+    static void addScaledRow(byte[] weights, int offset, int scale, int[] out, int length) {
+        int i = 0;
+        for (int bound = INTS.loopBound(length); i < bound; i += INTS.length()) {
+            IntVector row = (IntVector) ByteVector.fromArray(INT_BYTES, weights, offset + i)
+                    .convertShape(VectorOperators.B2I, INTS, 0);
+            IntVector.fromArray(INTS, out, i).add(row.mul(scale)).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] += scale * weights[offset + i];
+        }
+    }
+
+    static void sigmoid(float[] values, int length) {
+        FloatVector one = FloatVector.broadcast(FLOATS, 1f);
+        int i = 0;
+        for (int bound = FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+            FloatVector v = FloatVector.fromArray(FLOATS, values, i);
+            one.div(v.neg().lanewise(VectorOperators.EXP).add(one)).intoArray(values, i);
+        }
+        for (; i < length; i++) {
+            values[i] = (float) (1.0 / (1.0 + Math.exp(-values[i])));
+        }
+    }
+}
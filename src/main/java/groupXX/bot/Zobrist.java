@@ -0,0 +1,122 @@
+package groupXX.bot;
+
+import groupXX.Player;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys of positions and network inputs for {@link EvalCache}. A key is the XOR of one fixed random long
+ * per piece on a square, per placed piece count, for the player the position is evaluated for, for the Twelve
+ * Men's Morris board and, for a MorrisState, for the player to move and the phase, so positions that differ in
+ * anything an evaluator looks at get unrelated keys.
+ */
+public final class Zobrist {
+    /** Largest network input the keys of {@link #key(int[])} cover. */
+    public static final int MAX_INPUTS = 128;
+
+    private static final long[][] SQUARES = new long[2][24];   // per player and square
+    private static final long[][] PLACED = new long[2][13];    // per player and placed piece count
+    private static final long[] PLAYER = new long[2];
+    private static final long TWELVE_MEN;
+    private static final long[][] INPUTS = new long[MAX_INPUTS][3];   // per network input and board value
+    private static final long[] TO_MOVE = new long[2];
+    private static final long[] PHASES = new long[5];   // per Game phase from -2 to 2
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EEDL);
+        for (int player = 0; player < 2; player++) {
+            for (int square = 0; square < 24; square++) {
+                SQUARES[player][square] = random.nextLong();
+            }
+            for (int count = 0; count < PLACED[player].length; count++) {
+                PLACED[player][count] = random.nextLong();
+            }
+            PLAYER[player] = random.nextLong();
+        }
+        TWELVE_MEN = random.nextLong();
+        for (long[] values : INPUTS) {
+            values[1] = random.nextLong();
+            values[2] = random.nextLong();
+        }
+        for (int player = 0; player < 2; player++) {
+            TO_MOVE[player] = random.nextLong();
+        }
+        for (int phase = 0; phase < PHASES.length; phase++) {
+            PHASES[phase] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a position evaluated for the given player.
+     * @param blue The bitboard of the blue pieces
+     * @param red The bitboard of the red pieces
+     * @param placedBlue The number of pieces blue has placed
+     * @param placedRed The number of pieces red has placed
+     * @param player The player (0 = BLUE, 1 = RED) the position is evaluated for
+     * @param in12MenVersion Whether the position is on the Twelve Men's Morris board
+     * @return The key
+     */
+    public static long key(int blue, int red, int placedBlue, int placedRed, int player, boolean in12MenVersion) {
+        long key = PLACED[0][placedBlue] ^ PLACED[1][placedRed] ^ PLAYER[player];
+        for (int bits = blue; bits != 0; bits &= bits - 1) {
+            key ^= SQUARES[0][Integer.numberOfTrailingZeros(bits)];
+        }
+        for (int bits = red; bits != 0; bits &= bits - 1) {
+            key ^= SQUARES[1][Integer.numberOfTrailingZeros(bits)];
+        }
+        return in12MenVersion ? key ^ TWELVE_MEN : key;
+    }
+
+    /**
+     * Returns the key of a MorrisState evaluated for the given player. Unlike a GameState, whose player to move is
+     * the player it is evaluated for and whose phase follows from the placed pieces, a MorrisState can be evaluated
+     * for either player in any phase, and the mobility depends on both, so they are part of the key as well.
+     */
+    public static long key(MorrisState state, int player) {
+        return key(state.pieces[0], state.pieces[1], state.placed[0], state.placed[1], player, state.in12MenVersion)
+                ^ TO_MOVE[state.toMove] ^ PHASES[state.phase + 2];
+    }
+
+    /**
+     * Returns the key of a GameState evaluated for its current player.
+     */
+    public static long key(GameState state) {
+        return key(Bitboards.mask(state.boardPositions, Player.BLUE), Bitboards.mask(state.boardPositions, Player.RED),
+                state.moveCountBlue, state.moveCountRed, state.currentPlayer == Player.BLUE ? 0 : 1,
+                state.gameBoard.isIn12MenVer());
+    }
+
+    /**
+     * Returns the key of a network input with the board values 0, 1 and 2, see {@link NetModel}.
+     * @param input The input, at most {@link #MAX_INPUTS} long
+     * @return The key
+     */
+    public static long key(int[] input) {
+        if (input.length > MAX_INPUTS) {
+            throw new IllegalArgumentException("Input has " + input.length + " values, at most " + MAX_INPUTS
+                    + " are supported.");
+        }
+        long key = 0;
+        for (int i = 0; i < input.length; i++) {
+            if (input[i] != 0) {
+                key ^= INPUTS[i][input[i]];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Returns the key of the active inputs of {@link NetModel#forwardFeatures(int[], int)}, which is the key of
+     * the dense input with 2 at every active input.
+     */
+    public static long featureKey(int[] active, int count) {
+        long key = 0;
+        for (int i = 0; i < count; i++) {
+            key ^= INPUTS[active[i]][2];
+        }
+        return key;
+    }
+}